@@ -63,6 +63,14 @@ public abstract class AbstractErrorReporter implements ErrorReporter {
 	}
 
 	protected abstract void deleteMessagesImpl();
+
+	/**
+	 * Write out messages that have been buffered by the reporter. Reporters
+	 * that buffer messages override this method, the default implementation
+	 * does nothing.
+	 */
+	public void flush() {
+	}
 	
 	
 	
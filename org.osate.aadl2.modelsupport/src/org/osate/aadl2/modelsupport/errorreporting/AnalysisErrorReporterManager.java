@@ -225,6 +225,21 @@ public final class AnalysisErrorReporterManager extends AbstractErrorReporterMan
 		return numMsg;
 	}
 
+	/**
+	 * Write out the messages buffered by the error reporters being managed.
+	 * Must be called when an analysis is done if the factory creates
+	 * reporters that buffer messages, e.g., batching
+	 * {@link MarkerAnalysisErrorReporter}s.
+	 */
+	public final void flush() {
+		for (final Iterator i = reportersList.iterator(); i.hasNext();) {
+			final Object err = i.next();
+			if (err instanceof AbstractErrorReporter) {
+				((AbstractErrorReporter) err).flush();
+			}
+		}
+	}
+
 //	public final void addPrefix(final SystemOperationMode som) {
 //		if (!som.getName().equalsIgnoreCase("No Modes")){
 //		addPrefix("In SystemMode " + som.getName() + ": ");
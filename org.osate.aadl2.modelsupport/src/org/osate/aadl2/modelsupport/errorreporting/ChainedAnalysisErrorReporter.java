@@ -49,6 +49,15 @@ public final class ChainedAnalysisErrorReporter extends AbstractAnalysisErrorRep
 		}
 	}
 
+	@Override
+	public void flush() {
+		for (int i = 0; i < reporters.length; i++) {
+			if (reporters[i] instanceof AbstractErrorReporter) {
+				((AbstractErrorReporter) reporters[i]).flush();
+			}
+		}
+	}
+
 
 	public static final class Factory implements AnalysisErrorReporterFactory {
 		final AnalysisErrorReporterFactory[] factories;
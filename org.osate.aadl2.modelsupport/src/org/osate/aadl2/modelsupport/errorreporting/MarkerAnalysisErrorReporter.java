@@ -33,9 +33,15 @@
  */
 package org.osate.aadl2.modelsupport.errorreporting;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.osate.aadl2.Element;
@@ -53,6 +59,13 @@ import org.osate.aadl2.modelsupport.resources.OsateResourceUtil;
  * <p>A marker is created when the maximum number of messages has been exceeded
  * that indicates this fact.
  * 
+ * <p>A reporter can be created with a flush threshold.  Such a reporter
+ * buffers the reports and creates the markers in a single workspace
+ * operation when the threshold is reached or {@link #flush()} is called.
+ * This avoids one resource change event per marker attribute when an
+ * analysis reports many messages.  The remaining reports must be flushed
+ * when the analysis is done, see {@link AnalysisErrorReporterManager#flush()}.
+ * 
  * <p>
  * The class defines a nested class
  * {@link edu.cmu.sei.aadl.model.pluginsupport.MarkerAnalysisErrorReporter.Factory}
@@ -67,6 +80,18 @@ public final class MarkerAnalysisErrorReporter extends AbstractAnalysisErrorRepo
 	/** The IResource to attach the markers to. */
 	private final IResource iResource;
 
+	/**
+	 * The number of buffered reports that causes the markers to be created.
+	 * If <code>0</code> each marker is created immediately.
+	 */
+	private final int flushThreshold;
+
+	/** The buffered reports. */
+	private final List<Report> pending;
+
+	/** The default flush threshold for batching reporters. */
+	public static final int DEFAULT_FLUSH_THRESHOLD = 500;
+
 	
 	
 	/**
@@ -75,9 +100,24 @@ public final class MarkerAnalysisErrorReporter extends AbstractAnalysisErrorRepo
 	 */
 	public MarkerAnalysisErrorReporter(
 			final Resource rsrc, final IResource irsrc,	final String mType) {
+		this(rsrc, irsrc, mType, 0);
+	}
+
+	/**
+	 * Create a new error reporter that uses the given marker types and
+	 * buffers reports.
+	 * Assumes that <code>resource</code> is not <code>null</code>.
+	 * 
+	 * @param threshold the number of reports after which the markers are
+	 *            created, <code>0</code> to create each marker immediately
+	 */
+	public MarkerAnalysisErrorReporter(final Resource rsrc,
+			final IResource irsrc, final String mType, final int threshold) {
 		super(rsrc);
 		iResource = irsrc;
 		markerType = mType;
+		flushThreshold = threshold;
+		pending = new ArrayList<Report>(threshold);
 	}
 
 	
@@ -85,20 +125,54 @@ public final class MarkerAnalysisErrorReporter extends AbstractAnalysisErrorRepo
 	private void createMarker(
 			final Element where, final String message, final int severity,
 			final String[] attrs, final Object[] values) {
+		final String[] names = new String[attrs.length + 3];
+		final Object[] report = new Object[attrs.length + 3];
+		names[0] = IMarker.SEVERITY;
+		report[0] = severity;
+		names[1] = IMarker.MESSAGE;
+		report[1] = message;
+		names[2] = AadlConstants.AADLURI;
+		report[2] = EcoreUtil.getURI(where).toString();
+		for (int i = 0; i < attrs.length; i++) {
+			names[i + 3] = markerType + "." + attrs[i];
+			report[i + 3] = values[i];
+		}
+		pending.add(new Report(names, report));
+		if (pending.size() >= flushThreshold) {
+			flush();
+		}
+	}
+
+	/**
+	 * Create the markers for the buffered reports in one workspace
+	 * operation.
+	 */
+	@Override
+	public void flush() {
+		if (pending.isEmpty()) {
+			return;
+		}
+		final Report[] reports = pending.toArray(new Report[pending.size()]);
+		pending.clear();
 		if (iResource.exists()) {
+			final IWorkspaceRunnable create = new IWorkspaceRunnable() {
+				public void run(final IProgressMonitor monitor) throws CoreException {
+					for (int i = 0; i < reports.length; i++) {
+						final IMarker marker_p = iResource.createMarker(markerType);
+						marker_p.setAttributes(reports[i].names, reports[i].values);
+					}
+				}
+			};
 			try {
-				IMarker marker_p = iResource.createMarker(markerType);
-				marker_p.setAttribute(IMarker.SEVERITY, severity);
-				marker_p.setAttribute(IMarker.MESSAGE, message);
-				marker_p.setAttribute(AadlConstants.AADLURI, EcoreUtil.getURI(where).toString());
-				
-				for (int i = 0; i < attrs.length; i++) {
-					marker_p.setAttribute(markerType + "." + attrs[i], values[i]);
+				if (reports.length == 1) {
+					create.run(null);
+				} else {
+					final IWorkspace workspace = iResource.getWorkspace();
+					workspace.run(create, iResource, IWorkspace.AVOID_UPDATE, null);
 				}
 			} catch (CoreException e1) {
 				Activator.logThrowable(e1);
 			}
-			return;
 		} else {
 			Activator.logErrorMessage("Couldn't find IResource.");
 		}
@@ -123,6 +197,7 @@ public final class MarkerAnalysisErrorReporter extends AbstractAnalysisErrorRepo
 	}
 
 	protected void deleteMessagesImpl() {
+		pending.clear();
 		if (iResource.exists()) {
 			try {
 				iResource.deleteMarkers(markerType, false, IResource.DEPTH_INFINITE);
@@ -134,6 +209,19 @@ public final class MarkerAnalysisErrorReporter extends AbstractAnalysisErrorRepo
 	
 	
 	
+	/** The marker attributes of a buffered report. */
+	private static final class Report {
+		final String[] names;
+		final Object[] values;
+		
+		Report(final String[] names, final Object[] values) {
+			this.names = names;
+			this.values = values;
+		}
+	}
+	
+	
+	
 	/**
 	 * Factory for creating Marker error reporters.  Parameterized by the
 	 * marker type to use.  Can optionally be parameterized by another
@@ -151,12 +239,27 @@ public final class MarkerAnalysisErrorReporter extends AbstractAnalysisErrorRepo
 		 * Allowed to be <code>null</code>.
 		 */
 		private final AnalysisErrorReporterFactory secondaryFactory;
+
+		/** The flush threshold of the created reporters. */
+		private final int flushThreshold;
 		
 		
 		
-		public Factory(final String mt, final AnalysisErrorReporterFactory sndFact) {
+		/**
+		 * Create a factory for reporters that buffer reports.
+		 * 
+		 * @param threshold the number of reports after which a reporter
+		 *            creates the markers, <code>0</code> to create each
+		 *            marker immediately
+		 */
+		public Factory(final String mt, final AnalysisErrorReporterFactory sndFact, final int threshold) {
 			markerType = mt;
 			secondaryFactory = sndFact;
+			flushThreshold = threshold;
+		}
+		
+		public Factory(final String mt, final AnalysisErrorReporterFactory sndFact) {
+			this(mt, sndFact, 0);
 		}
 		
 		public Factory(final String mt) {
@@ -171,7 +274,7 @@ public final class MarkerAnalysisErrorReporter extends AbstractAnalysisErrorRepo
 			final IResource irsrc =
 				OsateResourceUtil.convertToIResource(rsrc);
 			if (irsrc != null && irsrc.exists()) {
-				return new MarkerAnalysisErrorReporter(rsrc, irsrc, markerType);
+				return new MarkerAnalysisErrorReporter(rsrc, irsrc, markerType, flushThreshold);
 			} else {
 				// Try the secondary factory
 				if (secondaryFactory != null) {
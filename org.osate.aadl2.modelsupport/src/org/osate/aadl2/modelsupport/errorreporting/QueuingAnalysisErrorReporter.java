@@ -107,6 +107,23 @@ public final class QueuingAnalysisErrorReporter extends AbstractAnalysisErrorRep
 	public List<Message> getErrors() {
 		return new ArrayList<Message>(queue);
 	}
+
+	/**
+	 * Report queued messages again, in their original order.
+	 * @param messages The messages returned by {@link #getErrors()}.
+	 * @param errManager The error manager to report the messages to.
+	 */
+	public static void replay(final List<Message> messages, final AnalysisErrorReporterManager errManager) {
+		for (final Message msg : messages) {
+			if (ERROR.equals(msg.kind)) {
+				errManager.error(msg.where, msg.message, msg.attributes, msg.values);
+			} else if (WARNING.equals(msg.kind)) {
+				errManager.warning(msg.where, msg.message, msg.attributes, msg.values);
+			} else {
+				errManager.info(msg.where, msg.message, msg.attributes, msg.values);
+			}
+		}
+	}
 	
 	
 	
@@ -0,0 +1,255 @@
+/*
+ * <copyright>
+ * Copyright  2004 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ *
+ * </copyright>
+ */
+package org.osate.aadl2.modelsupport.modeltraversal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.osate.aadl2.impl.DeclarativeAdapters;
+import org.osate.aadl2.instance.SystemInstance;
+import org.osate.aadl2.instance.SystemOperationMode;
+import org.osate.aadl2.instance.util.ConnectionInstanceIndex;
+import org.osate.aadl2.instance.util.InstancePathIndex;
+import org.osate.aadl2.instance.util.ModeContext;
+import org.osate.aadl2.modelsupport.errorreporting.AnalysisErrorReporter;
+import org.osate.aadl2.modelsupport.errorreporting.AnalysisErrorReporterFactory;
+import org.osate.aadl2.modelsupport.errorreporting.AnalysisErrorReporterManager;
+import org.osate.aadl2.modelsupport.errorreporting.QueuingAnalysisErrorReporter;
+
+/**
+ * Runs an analysis over several system operation modes of a system instance
+ * at the same time. This is the parallel counterpart of the usual
+ * {@link SOMIterator} loop:
+ * 
+ * <pre>
+ * final SOMIterator soms = new SOMIterator(root);
+ * while (soms.hasNext()) {
+ * 	final SystemOperationMode som = soms.nextSOM();
+ * 	new MySwitch(errManager).defaultTraversal(root);
+ * }
+ * </pre>
+ * 
+ * A new switch is created for each system operation mode by a
+ * {@link SwitchFactory}. The switch receives a {@link ModeContext} instead of
+ * relying on the current mode stored in the instance model, and the context
+ * is bound to the worker thread while the switch runs.
+ * <p>
+ * The switches share one instance model, so they may only read it. In
+ * particular, the following can be used from a switch:
+ * <ul>
+ * <li>the methods of the {@link ModeContext},
+ * {@link SystemInstance#getCurrentSystemOperationMode()} and
+ * {@link org.osate.aadl2.instance.ComponentInstance#getCurrentMode()}, which
+ * return the mode of the context bound to the worker thread;</li>
+ * <li>property value lookups on instance objects;</li>
+ * <li>the connection instance queries of system and component instances and
+ * <code>AadlUtil.findConnectionInstance</code>, and
+ * {@link SystemInstance#findInstanceObject(String)}. The indexes behind them
+ * are attached before the workers start.</li>
+ * </ul>
+ * All references in the instance model and the declarative models are
+ * resolved before the workers start, and the adapters of the declarative
+ * models are attached, see {@link DeclarativeAdapters#prepare(SystemInstance)}.
+ * Switches must not change the instance model or its adapters, e.g., call
+ * {@link SystemInstance#setCurrentSystemOperationMode(SystemOperationMode)},
+ * <code>ComponentInstance.setCurrentMode</code> or attach adapters to
+ * instance objects.
+ * <p>
+ * The messages reported by a switch are queued and passed on to the error
+ * manager of the caller on the calling thread, in the order of the system
+ * operation modes and prefixed with the mode name.
+ */
+public class ParallelSOMProcessor {
+
+	/**
+	 * Creates the switch that analyzes one system operation mode.
+	 */
+	public interface SwitchFactory {
+		/**
+		 * Create a switch. Called on a worker thread.
+		 * 
+		 * @param context the mode context to analyze
+		 * @param errManager the error manager the switch must report to
+		 * @return the switch to run over the system instance
+		 */
+		AadlProcessingSwitch createSwitch(ModeContext context, AnalysisErrorReporterManager errManager);
+	}
+
+	private final int threads;
+
+	/**
+	 * @param threads the number of worker threads
+	 */
+	public ParallelSOMProcessor(final int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Run the switches over all system operation modes of the system
+	 * instance.
+	 * 
+	 * @see #process(SystemInstance, List, SwitchFactory,
+	 *      AnalysisErrorReporterManager, IProgressMonitor)
+	 */
+	public List<AadlProcessingSwitch> process(final SystemInstance root, final SwitchFactory factory,
+			final AnalysisErrorReporterManager errManager, final IProgressMonitor monitor) {
+		return process(root, root.getSystemOperationModes(), factory, errManager, monitor);
+	}
+
+	/**
+	 * Run the switches over the given system operation modes. Each switch is
+	 * run with its default traversal starting at the system instance.
+	 * 
+	 * @param root the system instance
+	 * @param soms the system operation modes to analyze
+	 * @param factory creates the switch for each mode
+	 * @param errManager receives the messages reported by the switches
+	 * @param monitor used for progress and cancellation
+	 * @return the switches in the order of the system operation modes, so
+	 *         that the caller can collect their results. The list is shorter
+	 *         than the list of modes if the analysis was cancelled.
+	 */
+	public List<AadlProcessingSwitch> process(final SystemInstance root, final List<SystemOperationMode> soms,
+			final SwitchFactory factory, final AnalysisErrorReporterManager errManager,
+			final IProgressMonitor monitor) {
+		// resolve the models and attach the lazily created indexes and
+		// adapters now, the workers must not modify the models or their
+		// adapter lists
+		EcoreUtil.resolveAll(root.eResource());
+		DeclarativeAdapters.prepare(root);
+		ConnectionInstanceIndex.getIndex(root);
+		InstancePathIndex.getIndex(root);
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, soms.size())));
+		final List<Future<Result>> futures = new ArrayList<Future<Result>>(soms.size());
+		final List<AadlProcessingSwitch> result = new ArrayList<AadlProcessingSwitch>(soms.size());
+		try {
+			for (final SystemOperationMode som : soms) {
+				futures.add(executor.submit(new Callable<Result>() {
+					public Result call() {
+						if (monitor.isCanceled()) {
+							return null;
+						}
+						return analyze(root, new ModeContext(root, som), factory);
+					}
+				}));
+			}
+
+			// report in mode order
+			for (int i = 0; i < futures.size(); i++) {
+				final Result r = getResult(futures.get(i));
+				if (r == null || monitor.isCanceled()) {
+					break;
+				}
+				monitor.subTask("Analyzed mode " + soms.get(i).getName());
+				replay(soms.get(i), r.messages, errManager);
+				result.add(r.processor);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		return result;
+	}
+
+	/*
+	 * Worker: run a new switch in the given mode context
+	 */
+	private static Result analyze(final SystemInstance root, final ModeContext context, final SwitchFactory factory) {
+		// one queue for all resources keeps the messages in order
+		final QueuingAnalysisErrorReporter reporter = new QueuingAnalysisErrorReporter(root.eResource());
+		final AnalysisErrorReporterManager queue = new AnalysisErrorReporterManager(
+				new AnalysisErrorReporterFactory() {
+					public AnalysisErrorReporter getReporterFor(final Resource rsrc) {
+						return reporter;
+					}
+				});
+		final AadlProcessingSwitch processor = factory.createSwitch(context, queue);
+		context.run(new Runnable() {
+			public void run() {
+				processor.defaultTraversal(root);
+			}
+		});
+		return new Result(processor, reporter.getErrors());
+	}
+
+	private static Result getResult(final Future<Result> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	private static void replay(final SystemOperationMode som, final List<QueuingAnalysisErrorReporter.Message> messages,
+			final AnalysisErrorReporterManager errManager) {
+		if (messages.isEmpty()) {
+			return;
+		}
+		errManager.addPrefix(som.getName().equalsIgnoreCase("No Modes") ? "" : "In SystemMode " + som.getName()
+				+ ": ");
+		try {
+			QueuingAnalysisErrorReporter.replay(messages, errManager);
+		} finally {
+			errManager.removePrefix();
+		}
+	}
+
+	/**
+	 * The switch that analyzed a mode and the messages it reported.
+	 */
+	private static final class Result {
+		final AadlProcessingSwitch processor;
+
+		final List<QueuingAnalysisErrorReporter.Message> messages;
+
+		Result(final AadlProcessingSwitch processor, final List<QueuingAnalysisErrorReporter.Message> messages) {
+			this.processor = processor;
+			this.messages = messages;
+		}
+	}
+}
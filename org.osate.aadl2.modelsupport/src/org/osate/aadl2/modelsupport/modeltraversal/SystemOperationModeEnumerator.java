@@ -0,0 +1,370 @@
+/*
+ * <copyright>
+ * Copyright  2009 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ * </copyright>
+package org.osate.aadl2.modelsupport.modeltraversal;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.eclipse.emf.common.util.EList;
+import org.osate.aadl2.instance.ComponentInstance;
+import org.osate.aadl2.instance.InstanceFactory;
+import org.osate.aadl2.instance.ModeInstance;
+import org.osate.aadl2.instance.SystemInstance;
+import org.osate.aadl2.instance.SystemOperationMode;
+
+/**
+ * Enumerates the system operation modes of an instance model on demand. Each
+ * system operation mode is represented as a bit set over the mode instances of
+ * the modal components, so no <code>SystemOperationMode</code> objects are
+ * created unless {@link #createSystemOperationMode(BitSet)} is called. The
+ * enumeration can be limited to a maximum number of system operation modes.
+ */
+public class SystemOperationModeEnumerator implements Iterator<BitSet> {
+	/** The mode instances by their bit index */
+	private final List<ModeInstance> modes = new ArrayList<ModeInstance>();
+
+	/** The bit index of each mode instance */
+	private final Map<ModeInstance, Integer> modeIndex = new HashMap<ModeInstance, Integer>();
+
+	/** The number of modal components */
+	private final int size;
+
+	/**
+	 * For each modal component and each of its modes the bits that are set if
+	 * the component is in that mode: the mode itself and the derived modes of
+	 * its subcomponents.
+	 */
+	private final BitSet[][] choices;
+
+	/**
+	 * For each modal component the modes in which it exists, null if it
+	 * exists in all modes.
+	 */
+	private final BitSet[] inModes;
+
+	/**
+	 * For each modal component the index of its containing component if that
+	 * is a modal component, -1 otherwise.
+	 */
+	private final int[] parent;
+
+	/**
+	 * The partial mode vectors, states[i] holds the modes selected for the
+	 * components before component i. states[size] is the complete vector.
+	 */
+	private final BitSet[] states;
+
+	/** The selected mode of each component, -1 if it is skipped or has no modes */
+	private final int[] selected;
+
+	/** Which components do not exist in the current mode vector */
+	private final BitSet skipped;
+
+	/** The maximum number of mode vectors, 0 for no limit */
+	private final int limit;
+
+	/** The number of mode vectors returned so far */
+	private int count = 0;
+
+	/** Is the current mode vector ready to be returned? */
+	private boolean ready;
+
+	/** Have all mode vectors been enumerated? */
+	private boolean done = false;
+
+	/**
+	 * Create an enumerator for all modal components of a system instance.
+	 * 
+	 * @param root the system instance
+	 * @param limit the maximum number of system operation modes, 0 for no
+	 *            limit
+	 */
+	public SystemOperationModeEnumerator(final SystemInstance root, final int limit) {
+		this(getModalComponents(root), limit);
+	}
+
+	/**
+	 * Create an enumerator for the given modal components.
+	 * 
+	 * @param instances the modal component instances in prefix order
+	 * @param limit the maximum number of system operation modes, 0 for no
+	 *            limit
+	 */
+	public SystemOperationModeEnumerator(final ComponentInstance[] instances, final int limit) {
+		final Map<ComponentInstance, Integer> componentIndex = new HashMap<ComponentInstance, Integer>();
+
+		this.limit = limit;
+		size = instances.length;
+		choices = new BitSet[size][];
+		inModes = new BitSet[size];
+		parent = new int[size];
+		states = new BitSet[size + 1];
+		selected = new int[size];
+		skipped = new BitSet(size);
+		for (int i = 0; i < size; i++) {
+			componentIndex.put(instances[i], i);
+		}
+		for (int i = 0; i < size; i++) {
+			final ComponentInstance ci = instances[i];
+			final List<ModeInstance> ciModes = new ArrayList<ModeInstance>();
+
+			for (ModeInstance mi : ci.getModeInstances()) {
+				// the outermost modal component only selects its own modes
+				if (i > 0 || !mi.isDerived()) {
+					ciModes.add(mi);
+					getIndex(mi);
+				}
+			}
+			choices[i] = new BitSet[ciModes.size()];
+			for (int m = 0; m < ciModes.size(); m++) {
+				final ModeInstance mi = ciModes.get(m);
+				final BitSet bits = new BitSet();
+
+				bits.set(getIndex(mi));
+				for (ComponentInstance child : ci.getComponentInstances()) {
+					for (ModeInstance childMode : child.getModeInstances()) {
+						if (childMode.isDerived() && childMode.getParents().contains(mi)) {
+							bits.set(getIndex(childMode));
+						}
+					}
+				}
+				choices[i][m] = bits;
+			}
+			final EList<ModeInstance> ciInModes = ci.getInModes();
+			if (i > 0 && !ciInModes.isEmpty()) {
+				inModes[i] = new BitSet();
+				for (ModeInstance mi : ciInModes) {
+					inModes[i].set(getIndex(mi));
+				}
+			}
+			final Integer p = componentIndex.get(ci.eContainer());
+			parent[i] = (p == null) ? -1 : p.intValue();
+		}
+		for (int i = 0; i <= size; i++) {
+			states[i] = new BitSet(modes.size());
+		}
+		descend(0);
+		ready = true;
+	}
+
+	/*
+	 * Collect the component instances with modes that are not derived in
+	 * prefix order.
+	 */
+	private static ComponentInstance[] getModalComponents(final SystemInstance root) {
+		final List<ComponentInstance> result = new ArrayList<ComponentInstance>();
+		final LinkedList<ComponentInstance> todo = new LinkedList<ComponentInstance>();
+
+		todo.add(root);
+		while (!todo.isEmpty()) {
+			final ComponentInstance ci = todo.removeFirst();
+			final List<ModeInstance> ciModes = ci.getModeInstances();
+
+			if (!ciModes.isEmpty() && !ciModes.get(0).isDerived()) {
+				result.add(ci);
+			}
+			todo.addAll(0, ci.getComponentInstances());
+		}
+		return result.toArray(new ComponentInstance[result.size()]);
+	}
+
+	private int getIndex(final ModeInstance mi) {
+		Integer index = modeIndex.get(mi);
+
+		if (index == null) {
+			index = modes.size();
+			modes.add(mi);
+			modeIndex.put(mi, index);
+		}
+		return index.intValue();
+	}
+
+	/*
+	 * Select the first mode of all components starting at the given one.
+	 */
+	private void descend(final int from) {
+		for (int i = from; i < size; i++) {
+			final BitSet next = states[i + 1];
+
+			next.clear();
+			next.or(states[i]);
+			if (exists(i)) {
+				skipped.clear(i);
+				if (choices[i].length > 0) {
+					selected[i] = 0;
+					next.or(choices[i][0]);
+				} else {
+					selected[i] = -1;
+				}
+			} else {
+				skipped.set(i);
+				selected[i] = -1;
+			}
+		}
+	}
+
+	/*
+	 * A component exists if its parent is not skipped and it exists in the
+	 * currently selected modes of its parent.
+	 */
+	private boolean exists(final int i) {
+		if (parent[i] >= 0 && skipped.get(parent[i])) {
+			return false;
+		}
+		return inModes[i] == null || inModes[i].intersects(states[i]);
+	}
+
+	/*
+	 * Select the next mode vector.
+	 */
+	private void advance() {
+		int i = size - 1;
+
+		while (i >= 0 && (selected[i] < 0 || selected[i] + 1 >= choices[i].length)) {
+			i--;
+		}
+		if (i < 0) {
+			done = true;
+			return;
+		}
+		selected[i]++;
+		states[i + 1].clear();
+		states[i + 1].or(states[i]);
+		states[i + 1].or(choices[i][selected[i]]);
+		descend(i + 1);
+	}
+
+	public boolean hasNext() {
+		if (!ready && !done) {
+			advance();
+			ready = true;
+		}
+		return !done && (limit <= 0 || count < limit);
+	}
+
+	/**
+	 * Get the next mode vector. The returned bit set is not modified by the
+	 * enumerator.
+	 * 
+	 * @return the bit set of the mode instances in the next system operation
+	 *         mode
+	 */
+	public BitSet next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		ready = false;
+		count++;
+		return (BitSet) states[size].clone();
+	}
+
+	/**
+	 * Check if the enumeration has been stopped at the limit although there
+	 * are more system operation modes.
+	 * 
+	 * @return <code>true</code> if there are more system operation modes
+	 */
+	public boolean isTruncated() {
+		if (!ready && !done) {
+			advance();
+			ready = true;
+		}
+		return !done && limit > 0 && count >= limit;
+	}
+
+	/**
+	 * Check if any mode vectors are enumerated at all, i.e., if there are
+	 * modal components.
+	 * 
+	 * @return <code>true</code> if there are modal components
+	 */
+	public boolean hasModalComponents() {
+		return size > 0;
+	}
+
+	/**
+	 * Check if a mode instance is part of a mode vector.
+	 * 
+	 * @param modeVector the mode vector
+	 * @param mi the mode instance
+	 * @return <code>true</code> if the mode instance is in the vector
+	 */
+	public boolean contains(final BitSet modeVector, final ModeInstance mi) {
+		final Integer index = modeIndex.get(mi);
+
+		return index != null && modeVector.get(index.intValue());
+	}
+
+	/**
+	 * Get the mode instances in a mode vector.
+	 * 
+	 * @param modeVector the mode vector
+	 * @return the mode instances ordered by component
+	 */
+	public List<ModeInstance> getModeInstances(final BitSet modeVector) {
+		final List<ModeInstance> result = new ArrayList<ModeInstance>(modeVector.cardinality());
+
+		for (int i = modeVector.nextSetBit(0); i >= 0; i = modeVector.nextSetBit(i + 1)) {
+			result.add(modes.get(i));
+		}
+		return result;
+	}
+
+	/**
+	 * Create a system operation mode object for a mode vector. The object is
+	 * not added to the instance model.
+	 * 
+	 * @param modeVector the mode vector
+	 * @return the new system operation mode
+	 */
+	public SystemOperationMode createSystemOperationMode(final BitSet modeVector) {
+		final SystemOperationMode som = InstanceFactory.eINSTANCE.createSystemOperationMode();
+
+		som.getCurrentModes().addAll(getModeInstances(modeVector));
+		som.setName(som.toString());
+		return som;
+	}
+
+	/**
+	 * Remove is not supported.
+	 */
+	public void remove() {
+		throw new UnsupportedOperationException("remove is not supported");
+	}
+}
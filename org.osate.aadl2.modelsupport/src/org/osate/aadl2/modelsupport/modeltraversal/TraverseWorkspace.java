@@ -2,12 +2,10 @@ package org.osate.aadl2.modelsupport.modeltraversal;
 
 import java.util.HashSet;
 
-import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.ResourcesPlugin;
-import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.emf.common.util.BasicEList;
 import org.eclipse.emf.common.util.EList;
 import org.osate.aadl2.AadlPackage;
@@ -16,6 +14,7 @@ import org.osate.aadl2.ModelUnit;
 import org.osate.aadl2.PropertySet;
 import org.osate.aadl2.modelsupport.resources.OsateResourceUtil;
 import org.osate.aadl2.modelsupport.util.AadlUtil;
+import org.osate.internal.workspace.AadlFileIndex;
 import org.osate.workspace.WorkspacePlugin;
 
 public class TraverseWorkspace {
@@ -88,43 +87,40 @@ public class TraverseWorkspace {
 	}
 
 
-	private static HashSet<IFile> getFiles(IResource[] resources, HashSet<IFile> result, String extension) {
-		try {
-			for (int i = 0; i < resources.length; i++) {
-				if (resources[i] instanceof IFile) {
-					IFile file = (IFile) resources[i];
-					String ext = file.getFileExtension();
-					if (ext != null){
-						if( (extension.equalsIgnoreCase(WorkspacePlugin.SOURCE_FILE_EXT) && (ext.equalsIgnoreCase(WorkspacePlugin.SOURCE_FILE_EXT))
-								|| (extension.equalsIgnoreCase(WorkspacePlugin.SOURCE_FILE_EXT2)&&ext.equalsIgnoreCase(WorkspacePlugin.SOURCE_FILE_EXT2)))){
-							result.add( (IFile) resources[i]);
-						}
-						// looking for old style instance file names (i.e., extension aaxl2
-						if (extension.equalsIgnoreCase(WorkspacePlugin.MODEL_FILE_EXT) && ext.equalsIgnoreCase(WorkspacePlugin.MODEL_FILE_EXT) &&
-								file.getName().endsWith(WorkspacePlugin.INSTANCE_MODEL_POSTFIX)){
-							result.add( (IFile) resources[i]);
-						}
-						// looking for new style file name extension (aail2) and finding old style instance file names.
-						if (extension.equalsIgnoreCase(WorkspacePlugin.INSTANCE_FILE_EXT) && ext.equalsIgnoreCase(WorkspacePlugin.MODEL_FILE_EXT) &&
-								file.getName().endsWith(WorkspacePlugin.INSTANCE_MODEL_POSTFIX)){
-							result.add( (IFile) resources[i]);
-						}
-						// looking for and finding new style instance file names
-						if (extension.equalsIgnoreCase(WorkspacePlugin.INSTANCE_FILE_EXT) && ext.equalsIgnoreCase(WorkspacePlugin.INSTANCE_FILE_EXT) ){
-							result.add( (IFile) resources[i]);
-						}
-					}
-				} else if (resources[i] instanceof IContainer) {
-					IContainer cont = (IContainer) resources[i];
-					if (!cont.getName().startsWith(".")){
-						getFiles(cont.members(), result,extension);
-					}
+	private static HashSet<IFile> getFiles(IProject[] projects, HashSet<IFile> result, String extension) {
+		AadlFileIndex index = AadlFileIndex.getDefault();
+		for (int i = 0; i < projects.length; i++) {
+			if (projects[i] == null) {
+				continue;
+			}
+			for (IFile file : index.getFiles(projects[i], extension)) {
+				if (isInHiddenFolder(file)) {
+					continue;
+				}
+				// for the model file extension (aaxl2) only old style instance file names are wanted,
+				// unless the instance file extension is the same
+				if (extension.equalsIgnoreCase(WorkspacePlugin.MODEL_FILE_EXT)
+						&& !extension.equalsIgnoreCase(WorkspacePlugin.INSTANCE_FILE_EXT)
+						&& !file.getName().endsWith(WorkspacePlugin.INSTANCE_MODEL_POSTFIX)) {
+					continue;
 				}
+				result.add(file);
 			}
-		} catch (CoreException e) {
-			WorkspacePlugin.log(e);
 		}
 		return result;
 	}
 
+	/*
+	 * Files in folders whose name starts with a "." are not part of the model
+	 */
+	private static boolean isInHiddenFolder(IFile file) {
+		IPath path = file.getProjectRelativePath();
+		for (int i = 0, max = path.segmentCount() - 1; i < max; i++) {
+			if (path.segment(i).startsWith(".")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 }
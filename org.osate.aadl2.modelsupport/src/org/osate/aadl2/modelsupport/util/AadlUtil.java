@@ -141,6 +141,7 @@ import org.osate.aadl2.instance.ConnectionInstanceEnd;
 import org.osate.aadl2.instance.FeatureInstance;
 import org.osate.aadl2.instance.InstanceObject;
 import org.osate.aadl2.instance.SystemInstance;
+import org.osate.aadl2.instance.util.ConnectionInstanceIndex;
 import org.osate.aadl2.instance.util.InstanceUtil;
 import org.osate.aadl2.modelsupport.modeltraversal.SimpleSubclassCounter;
 import org.osate.aadl2.modelsupport.modeltraversal.TraverseWorkspace;
@@ -1767,6 +1768,10 @@ public final class AadlUtil {
 	 * @return ConnectionInstance or null if not found
 	 */
 	public static ConnectionInstance findConnectionInstance(InstanceObject src, InstanceObject dst) {
+		SystemInstance si = src.getSystemInstance();
+		if (si != null) {
+			return ConnectionInstanceIndex.getIndex(si).findConnectionInstance(src, dst);
+		}
 		Iterable<ConnectionInstance> it = src.allEnclosingConnectionInstances();
 		for (ConnectionInstance conni : it) {
 			if (src == conni.getSource() && dst == conni.getDestination()) {
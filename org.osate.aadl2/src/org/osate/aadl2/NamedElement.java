@@ -289,7 +289,10 @@ public interface NamedElement extends Element {
 	 * based on modes.
 	 * 
 	 * @param property The property whose value is to be retieved.
-	 * @return The property value. This will never be <code>null</code>.
+	 * @return The property value. This will never be <code>null</code>. If
+	 *         property values are cached on the instance model it is shared
+	 *         with other callers and must not be modified, see
+	 *         {@link org.osate.aadl2.properties.PropertyValueCache}.
 	 * @throws IllegalStateException Thrown if the lookup encounters a cycle of
 	 *             property reference dependencies.
 	 * @throws InvalidModelException Thrown if the property value cannot be
@@ -36,6 +36,7 @@
 package org.osate.aadl2.impl;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.ListIterator;
 import java.util.Map;
 
@@ -55,6 +56,8 @@ import org.eclipse.uml2.common.util.CacheAdapter;
 import org.eclipse.uml2.common.util.DerivedUnionEObjectEList;
 import org.osate.aadl2.Aadl2Package;
 import org.osate.aadl2.AnnexSubclause;
+import org.osate.aadl2.BehavioredImplementation;
+import org.osate.aadl2.CallSpecification;
 import org.osate.aadl2.Classifier;
 import org.osate.aadl2.ClassifierFeature;
 import org.osate.aadl2.Element;
@@ -64,6 +67,8 @@ import org.osate.aadl2.Property;
 import org.osate.aadl2.PropertyAssociation;
 import org.osate.aadl2.Prototype;
 import org.osate.aadl2.PrototypeBinding;
+import org.osate.aadl2.SubprogramImplementation;
+import org.osate.aadl2.ThreadImplementation;
 import org.osate.aadl2.Type;
 import org.osate.aadl2.operations.ClassifierOperations;
 import org.osate.aadl2.operations.TypeOperations;
@@ -1020,16 +1025,35 @@ public abstract class ClassifierImpl extends NamespaceImpl implements
 		return false;
 	}
 
+	/**
+	 * The adapter that caches the flattened members of this classifier, set
+	 * once it has been attached.
+	 */
+	volatile ExtendedMembers extendedMembers;
+
+	private static final ExtendedMembers.Kind<PropertyAssociation> ALL_PROPERTY_ASSOCIATIONS = new ExtendedMembers.Kind<PropertyAssociation>() {
+		@Override
+		EList<PropertyAssociation> compute(Classifier classifier) {
+			final EList<PropertyAssociation> result = new BasicEList<PropertyAssociation>();
+			final EList<Classifier> classifiers = classifier
+					.getSelfPlusAllExtended();
+			for (final ListIterator<Classifier> i = classifiers
+					.listIterator(classifiers.size()); i.hasPrevious();) {
+				final Classifier current = i.previous();
+				result.addAll(current.getOwnedPropertyAssociations());
+			}
+			return result;
+		}
+	};
+
+	/**
+	 * Get the property associations of this classifier and its ancestors,
+	 * starting with the farthest ancestor. The list is computed once and
+	 * cached, each call returns a new copy of it.
+	 */
 	// XXX: [AADL 1 -> AADL 2] Added to make instantiation work.
 	public EList<PropertyAssociation> getAllPropertyAssociations() {
-		final EList<PropertyAssociation> result = new BasicEList<PropertyAssociation>();
-		final EList<Classifier> classifiers = getSelfPlusAllExtended();
-		for (final ListIterator<Classifier> i = classifiers
-				.listIterator(classifiers.size()); i.hasPrevious();) {
-			final Classifier current = i.previous();
-			result.addAll(current.getOwnedPropertyAssociations());
-		}
-		return result;
+		return ExtendedMembers.get(this, ALL_PROPERTY_ASSOCIATIONS);
 	}
 
 	/* (non-Javadoc)
@@ -1055,19 +1079,54 @@ public abstract class ClassifierImpl extends NamespaceImpl implements
 		return result;
 	}
 
+	/**
+	 * Index of the owned named elements of a classifier and its ancestors by
+	 * their lower case name. An owned element hides an inherited element with
+	 * the same name.
+	 */
+	private static final ExtendedMembers.Value<Map<String, NamedElement>> NAMED_ELEMENTS = new ExtendedMembers.Value<Map<String, NamedElement>>() {
+		@Override
+		Map<String, NamedElement> compute(Classifier classifier) {
+			final Map<String, NamedElement> result = new HashMap<String, NamedElement>();
+			Classifier cl = classifier;
+			while (!Aadl2Util.isNull(cl)) {
+				for (Element e : cl.getOwnedElements()) {
+					if (e instanceof NamedElement) {
+						addNamedElement(result, Aadl2Util.getName((NamedElement) e), (NamedElement) e);
+					}
+				}
+				if (cl instanceof ThreadImplementation || cl instanceof SubprogramImplementation) {
+					for (CallSpecification cs : ((BehavioredImplementation) cl).getCallSpecifications()) {
+						addNamedElement(result, cs.getName(), cs);
+					}
+				}
+				cl = cl.getExtended();
+				if (cl == classifier) {
+					break;
+				}
+			}
+			return result;
+		}
+
+		private void addNamedElement(Map<String, NamedElement> result, String name, NamedElement ne) {
+			if (name != null) {
+				final String key = name.toLowerCase();
+				if (!result.containsKey(key)) {
+					result.put(key, ne);
+				}
+			}
+		}
+	};
+
 	@Override
 	/**
 	 * find in owned members of classifier and then in extends
 	 */
 	public NamedElement findNamedElement(String name) {
-		Classifier cl = this;
-		while (!Aadl2Util.isNull(cl)) {
-			NamedElement res = Aadl2Util.findOwnedNamedElement(cl, name);
-			if (res != null)
-				return res;
-			cl = cl.getExtended();
+		if (name == null) {
+			return null;
 		}
-		return null;
+		return ExtendedMembers.get(this, NAMED_ELEMENTS).get(name.toLowerCase());
 	}
 
 } // ClassifierImpl
@@ -37,8 +37,10 @@ package org.osate.aadl2.impl;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Set;
 
 import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.common.notify.NotificationChain;
@@ -81,7 +83,6 @@ import org.osate.aadl2.Prototype;
 import org.osate.aadl2.PrototypeBinding;
 import org.osate.aadl2.Realization;
 import org.osate.aadl2.Subcomponent;
-import org.osate.aadl2.operations.ComponentImplementationOperations;
 import org.osate.aadl2.properties.InvalidModelException;
 import org.osate.aadl2.properties.PropertyAcc;
 import org.osate.aadl2.util.Aadl2Util;
@@ -1470,36 +1471,35 @@ public abstract class ComponentImplementationImpl extends
 			return n.substring(idx + 1);
 	}
 
+	private static final ExtendedMembers.Kind<Connection> ALL_CONNECTIONS = new ExtendedMembers.Kind<Connection>() {
+		@Override
+		EList<Connection> compute(Classifier classifier) {
+			final EList<Classifier> ancestors = classifier
+					.getSelfPlusAllExtended();
+			final Set<Connection> result = new LinkedHashSet<Connection>();
+			// Process from farthest ancestor to self
+			for (ListIterator<Classifier> li = ancestors
+					.listIterator(ancestors.size()); li.hasPrevious();) {
+				final ComponentImplementation current = (ComponentImplementation) li
+						.previous();
+				ExtendedMembers.addRefining(result,
+						current.getOwnedConnections());
+			}
+			return new BasicEList<Connection>(result);
+		}
+	};
+
 	/**
 	 * get list of all connection objects of a component implementation,
 	 * including ancestor features In case of refined connections the refined
-	 * connection is returned in the list.
+	 * connection is returned in the list. The list is computed once and
+	 * cached, each call returns a new copy of it.
 	 * 
 	 * @return List of connection objects
 	 */
 	// XXX: [AADL 1 -> AADL 2] Added to make instantiation work.
 	public EList<Connection> getAllConnections() {
-		final EList<Classifier> ancestors = getSelfPlusAllExtended();
-		final BasicEList<Connection> returnlist = new BasicEList<Connection>();
-		// Process from farthest ancestor to self
-		for (ListIterator<Classifier> li = ancestors.listIterator(ancestors
-				.size()); li.hasPrevious();) {
-			final ComponentImplementation current = (ComponentImplementation) li
-					.previous();
-			final EList<Connection> currentItems = current
-					.getOwnedConnections();
-			if (currentItems != null) {
-				for (Iterator<Connection> i = currentItems.iterator(); i
-						.hasNext();) {
-					final Connection fe = i.next();
-					final Connection rfe = fe.getRefined();
-					if (rfe != null)
-						returnlist.remove(rfe);
-					returnlist.add(fe);
-				}
-			}
-		}
-		return returnlist;
+		return ExtendedMembers.get(this, ALL_CONNECTIONS);
 	}
 
 	/**
@@ -1559,8 +1559,33 @@ public abstract class ComponentImplementationImpl extends
 		return returnlist;
 	}*/
 
+	private static final ExtendedMembers.Kind<Subcomponent> ALL_SUBCOMPONENTS = new ExtendedMembers.Kind<Subcomponent>() {
+		@Override
+		EList<Subcomponent> compute(Classifier classifier) {
+			final EList<Classifier> ancestors = classifier
+					.getSelfPlusAllExtended();
+			final Set<Subcomponent> result = new LinkedHashSet<Subcomponent>();
+			// Process from farthest ancestor to self
+			for (ListIterator<Classifier> li = ancestors
+					.listIterator(ancestors.size()); li.hasPrevious();) {
+				final ComponentImplementation current = (ComponentImplementation) li
+						.previous();
+				ExtendedMembers.addRefining(result,
+						current.getOwnedSubcomponents());
+			}
+			return new BasicEList<Subcomponent>(result);
+		}
+	};
+
+	/**
+	 * get list of all subcomponents of a component impl, including ancestor
+	 * subcomponents. The list is computed once and cached, each call returns
+	 * a new copy of it.
+	 * 
+	 * @return List of subcomponents
+	 */
 	public EList<Subcomponent> getAllSubcomponents() {
-		return ComponentImplementationOperations.getAllSubcomponents(this);
+		return ExtendedMembers.get(this, ALL_SUBCOMPONENTS);
 	}
 
 	/**
@@ -1578,31 +1603,40 @@ public abstract class ComponentImplementationImpl extends
 			return ECollections.emptyEList();
 	}
 
+	private static final ExtendedMembers.Kind<Mode> ALL_MODES = new ExtendedMembers.Kind<Mode>() {
+		@Override
+		EList<Mode> compute(Classifier classifier) {
+			EList<Classifier> ancestors = classifier.getSelfPlusAllExtended();
+			final BasicEList<Mode> returnlist = new BasicEList<Mode>();
+			for (Iterator<Classifier> it = ancestors.iterator(); it.hasNext();) {
+				final ComponentImplementation current = (ComponentImplementation) it
+						.next();
+				returnlist.addAll(current.getOwnedModes());
+			}
+			ComponentType type = ((ComponentImplementation) classifier)
+					.getType();
+			if (Aadl2Util.isNull(type))
+				return returnlist;
+			ancestors = type.getSelfPlusAllExtended();
+			for (Iterator<Classifier> it = ancestors.iterator(); it.hasNext();) {
+				final ComponentType current = (ComponentType) it.next();
+				returnlist.addAll(current.getOwnedModes());
+			}
+			return returnlist;
+		}
+	};
+
 	/**
 	 * Returns all the mode objects of a given implementation, including
-	 * ancestor.
+	 * ancestor. The list is computed once and cached, each call returns a new
+	 * copy of it.
 	 * 
 	 * @return EList of all mode objects
 	 */
 	// XXX: [AADL 1 -> AADL 2] Added to make instantiation and property lookup
 	// work.
 	public EList<Mode> getAllModes() {
-		EList<Classifier> ancestors = getSelfPlusAllExtended();
-		final BasicEList<Mode> returnlist = new BasicEList<Mode>();
-		for (Iterator<Classifier> it = ancestors.iterator(); it.hasNext();) {
-			final ComponentImplementation current = (ComponentImplementation) it
-					.next();
-			returnlist.addAll(current.getOwnedModes());
-		}
-		ComponentType type = getType();
-		if (Aadl2Util.isNull(type))
-			return returnlist;
-		ancestors = getType().getSelfPlusAllExtended();
-		for (Iterator<Classifier> it = ancestors.iterator(); it.hasNext();) {
-			final ComponentType current = (ComponentType) it.next();
-			returnlist.addAll(current.getOwnedModes());
-		}
-		return returnlist;
+		return ExtendedMembers.get(this, ALL_MODES);
 	}
 
 	/**
@@ -1681,36 +1715,35 @@ public abstract class ComponentImplementationImpl extends
 		return returnlist;
 	}
 
+	private static final ExtendedMembers.Kind<EndToEndFlow> ALL_END_TO_END_FLOWS = new ExtendedMembers.Kind<EndToEndFlow>() {
+		@Override
+		EList<EndToEndFlow> compute(Classifier classifier) {
+			final EList<Classifier> ancestors = classifier
+					.getSelfPlusAllExtended();
+			final Set<EndToEndFlow> result = new LinkedHashSet<EndToEndFlow>();
+			// Process from farthest ancestor to self
+			for (ListIterator<Classifier> li = ancestors
+					.listIterator(ancestors.size()); li.hasPrevious();) {
+				final ComponentImplementation current = (ComponentImplementation) li
+						.previous();
+				ExtendedMembers.addRefining(result,
+						current.getOwnedEndToEndFlows());
+			}
+			return new BasicEList<EndToEndFlow>(result);
+		}
+	};
+
 	/**
 	 * get list of all end to end flows of a component impl, including ancestor
 	 * features In case of refined end to end flows the refined end to end flow
-	 * is returned in the list.
+	 * is returned in the list. The list is computed once and cached, each
+	 * call returns a new copy of it.
 	 * 
 	 * @return Lis of end to end flows
 	 */
 	// XXX: [AADL 1 -> AADL 2] Added to make instantiation work.
 	public EList<EndToEndFlow> getAllEndToEndFlows() {
-		final EList<Classifier> ancestors = getSelfPlusAllExtended();
-		final BasicEList<EndToEndFlow> returnlist = new BasicEList<EndToEndFlow>();
-		// Process from farthest ancestor to self
-		for (ListIterator<Classifier> li = ancestors.listIterator(ancestors
-				.size()); li.hasPrevious();) {
-			final ComponentImplementation current = (ComponentImplementation) li
-					.previous();
-			final EList<EndToEndFlow> currentItems = current
-					.getOwnedEndToEndFlows();
-			if (currentItems != null) {
-				for (Iterator<EndToEndFlow> i = currentItems.iterator(); i
-						.hasNext();) {
-					final EndToEndFlow fe = i.next();
-					final EndToEndFlow rfe = fe.getRefined();
-					if (rfe != null)
-						returnlist.remove(rfe);
-					returnlist.add(fe);
-				}
-			}
-		}
-		return returnlist;
+		return ExtendedMembers.get(this, ALL_END_TO_END_FLOWS);
 	}
 
 	// XXX: [AADL 1 -> AADL 2] Added to make instantiation work.
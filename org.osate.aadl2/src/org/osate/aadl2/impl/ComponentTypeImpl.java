@@ -37,7 +37,9 @@ package org.osate.aadl2.impl;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.ListIterator;
+import java.util.Set;
 
 import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.common.notify.NotificationChain;
@@ -814,33 +816,32 @@ public abstract class ComponentTypeImpl extends ComponentClassifierImpl
 				|| eIsSet(Aadl2Package.COMPONENT_TYPE__OWNED_EXTENSION);
 	}
 
+	private static final ExtendedMembers.Kind<Feature> ALL_FEATURES = new ExtendedMembers.Kind<Feature>() {
+		@Override
+		EList<Feature> compute(Classifier classifier) {
+			final EList<Classifier> ancestors = classifier
+					.getSelfPlusAllExtended();
+			final Set<Feature> result = new LinkedHashSet<Feature>();
+			// Process from farthest ancestor to self
+			for (ListIterator<Classifier> li = ancestors
+					.listIterator(ancestors.size()); li.hasPrevious();) {
+				final ComponentType current = (ComponentType) li.previous();
+				ExtendedMembers.addRefining(result, current.getOwnedFeatures());
+			}
+			return new BasicEList<Feature>(result);
+		}
+	};
+
 	/**
 	 * get list of all features of a component type, including ancestor features
-	 * In case of refined features the refined feature is returned.
+	 * In case of refined features the refined feature is returned. The list
+	 * is computed once and cached, each call returns a new copy of it.
 	 * 
 	 * @return List of feature objects
 	 */
 	// XXX: [AADL 1 -> AADL 2] Added to make instantiation work.
 	public EList<Feature> getAllFeatures() {
-		final EList<Classifier> ancestors = getSelfPlusAllExtended();
-		final BasicEList<Feature> returnlist = new BasicEList<Feature>();
-		// Process from farthest ancestor to self
-		for (ListIterator<Classifier> li = ancestors.listIterator(ancestors
-				.size()); li.hasPrevious();) {
-			final ComponentType current = (ComponentType) li.previous();
-			final EList<Feature> currentFeatures = current.getOwnedFeatures();
-			if (currentFeatures != null) {
-				for (Iterator<Feature> i = currentFeatures.iterator(); i
-						.hasNext();) {
-					final Feature fe = i.next();
-					final Feature rfe = fe.getRefined();
-					if (rfe != null)
-						returnlist.remove(rfe);
-					returnlist.add(fe);
-				}
-			}
-		}
-		return returnlist;
+		return ExtendedMembers.get(this, ALL_FEATURES);
 	}
 
 	/**
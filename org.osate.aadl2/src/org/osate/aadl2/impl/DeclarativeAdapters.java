@@ -0,0 +1,158 @@
+/*
+ * <copyright>
+ * Copyright  2004 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ *
+ * </copyright>
+ */
+package org.osate.aadl2.impl;
+
+import java.util.List;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.osate.aadl2.Classifier;
+import org.osate.aadl2.Property;
+import org.osate.aadl2.PropertyAssociation;
+import org.osate.aadl2.UnitsType;
+import org.osate.aadl2.instance.SystemInstance;
+
+/**
+ * Attaches the adapters that memoize values computed from declarative
+ * models: {@link ExtendedMembers}, {@link PropertyApplicability},
+ * {@link EvaluationPlan} and {@link UnitConversions}.
+ * The adapters are attached when a value is first needed. The adapter list
+ * of an EMF object is not thread safe, so code that reads the declarative
+ * models from several threads must attach all adapters before the threads
+ * start, see {@link #prepare(SystemInstance)}. The threads then only find the
+ * existing adapters.
+ */
+public final class DeclarativeAdapters {
+
+	/**
+	 * Guards attaching the adapters, so that two threads never modify the
+	 * same adapter list. Content adapters are added to the contained objects
+	 * as well, so one lock is used for all targets.
+	 */
+	private static final Object LOCK = new Object();
+
+	/**
+	 * Creates an adapter of one type.
+	 */
+	static abstract class Factory<A extends Adapter> {
+		/**
+		 * @return a new adapter
+		 */
+		abstract A create();
+	}
+
+	private DeclarativeAdapters() {
+	}
+
+	/**
+	 * Get the adapter of the given type, attaching a new one if there is
+	 * none.
+	 * 
+	 * @param target the adapted object
+	 * @param type the adapter type, as accepted by
+	 *            {@link Adapter#isAdapterForType(Object)}
+	 * @param factory creates the adapter
+	 * @return the adapter attached to the target
+	 */
+	static <A extends Adapter> A getAdapter(final Notifier target, final Class<A> type, final Factory<A> factory) {
+		A adapter = type.cast(EcoreUtil.getExistingAdapter(target, type));
+		if (adapter == null) {
+			synchronized (LOCK) {
+				adapter = type.cast(EcoreUtil.getExistingAdapter(target, type));
+				if (adapter == null) {
+					adapter = factory.create();
+					target.eAdapters().add(adapter);
+				}
+			}
+		}
+		return adapter;
+	}
+
+	/**
+	 * Attach the adapters to all objects of a declarative model.
+	 * 
+	 * @param resource the resource that contains the declarative model
+	 */
+	public static void attachAll(final Resource resource) {
+		for (final TreeIterator<EObject> iter = resource.getAllContents(); iter.hasNext();) {
+			final EObject object = iter.next();
+			if (object instanceof Classifier) {
+				ExtendedMembers.attach((Classifier) object);
+			} else if (object instanceof Property) {
+				PropertyApplicability.attach((Property) object);
+			} else if (object instanceof PropertyAssociation) {
+				EvaluationPlan.attach((PropertyAssociation) object);
+			} else if (object instanceof UnitsType) {
+				UnitConversions.attach((UnitsType) object);
+			}
+		}
+	}
+
+	/**
+	 * Prepare the declarative models of an instance model for being read by
+	 * several threads: resolve all references in them and attach the
+	 * adapters. Lazy linking and proxy resolution load resources and modify
+	 * the declarative model, which is not thread safe. Resources loaded while
+	 * resolving are prepared as well. Instance models in the resource set are
+	 * left alone.
+	 * 
+	 * @param root the system instance
+	 */
+	public static void prepare(final SystemInstance root) {
+		final Resource instanceResource = root.eResource();
+		final Resource declResource = root.getSystemImplementation().eResource();
+		final ResourceSet rs = (declResource == null) ? null : declResource.getResourceSet();
+		if (rs == null) {
+			return;
+		}
+		final List<Resource> resources = rs.getResources();
+		for (int i = 0; i < resources.size(); i++) {
+			final Resource res = resources.get(i);
+			if (res == instanceResource || !res.isLoaded()) {
+				continue;
+			}
+			if (!res.getContents().isEmpty() && res.getContents().get(0) instanceof SystemInstance) {
+				continue;
+			}
+			EcoreUtil.resolveAll(res);
+			attachAll(res);
+		}
+	}
+}
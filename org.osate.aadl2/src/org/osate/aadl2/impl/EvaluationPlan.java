@@ -0,0 +1,206 @@
+/*
+ * <copyright>
+ * Copyright  2004 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ *
+ * </copyright>
+ */
+package org.osate.aadl2.impl;
+
+import java.util.List;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.osate.aadl2.BooleanLiteral;
+import org.osate.aadl2.ClassifierValue;
+import org.osate.aadl2.ListValue;
+import org.osate.aadl2.ModalPropertyValue;
+import org.osate.aadl2.NamedValue;
+import org.osate.aadl2.NumberValue;
+import org.osate.aadl2.Operation;
+import org.osate.aadl2.PropertyAssociation;
+import org.osate.aadl2.PropertyExpression;
+import org.osate.aadl2.RangeValue;
+import org.osate.aadl2.RecordValue;
+import org.osate.aadl2.StringLiteral;
+import org.osate.aadl2.instance.SystemInstance;
+import org.osate.aadl2.properties.EvaluatedProperty;
+import org.osate.aadl2.properties.EvaluationContext;
+import org.osate.aadl2.properties.InvalidModelException;
+
+/**
+ * The compiled form of the values of a property association in a
+ * declarative model. Values that evaluate to the same result in every
+ * evaluation context, e.g., literals, ranges of literals, arithmetic on
+ * literals, lists and enumeration values, are evaluated once and the
+ * result is reused. Other values, e.g., references, are evaluated for each
+ * context.
+ * <p>
+ * The plan is attached to the property association as an adapter, see
+ * {@link DeclarativeAdapters}, and is discarded when the property
+ * association or its values change. Property
+ * associations in instance models are evaluated without a plan because
+ * they are rarely evaluated more than once.
+ */
+final class EvaluationPlan extends EContentAdapter {
+
+	/**
+	 * One step per modal property value: either the folded
+	 * {@link EvaluatedProperty} or the {@link ModalPropertyValue} to evaluate.
+	 * <code>null</code> if the plan must be compiled.
+	 */
+	private volatile Object[] steps = null;
+
+	private EvaluationPlan() {
+	}
+
+	/**
+	 * Evaluate a property association, using its plan if there is one.
+	 * 
+	 * @param pa the property association
+	 * @param ctx the evaluation context
+	 * @return the evaluated values, a new object for each call
+	 */
+	static EvaluatedProperty evaluate(final PropertyAssociation pa, final EvaluationContext ctx)
+			throws InvalidModelException {
+		final EvaluationPlan plan = getPlan(pa);
+		if (plan == null) {
+			final EvaluatedProperty result = new EvaluatedProperty();
+			for (ModalPropertyValue mpv : pa.getOwnedValues()) {
+				result.add(mpv.evaluate(ctx));
+			}
+			return result;
+		}
+		Object[] s = plan.steps;
+		if (s == null) {
+			s = compile(pa, ctx);
+			plan.steps = s;
+		}
+		final EvaluatedProperty result = new EvaluatedProperty();
+		for (Object step : s) {
+			if (step instanceof EvaluatedProperty) {
+				result.add((EvaluatedProperty) step);
+			} else {
+				result.add(((ModalPropertyValue) step).evaluate(ctx));
+			}
+		}
+		return result;
+	}
+
+	private static final DeclarativeAdapters.Factory<EvaluationPlan> FACTORY = new DeclarativeAdapters.Factory<EvaluationPlan>() {
+		@Override
+		EvaluationPlan create() {
+			return new EvaluationPlan();
+		}
+	};
+
+	/**
+	 * Attach a plan to a property association of a declarative model if it
+	 * has none.
+	 * 
+	 * @see DeclarativeAdapters#attachAll(org.eclipse.emf.ecore.resource.Resource)
+	 */
+	static void attach(final PropertyAssociation pa) {
+		getPlan(pa);
+	}
+
+	private static EvaluationPlan getPlan(final PropertyAssociation pa) {
+		final EvaluationPlan plan = (EvaluationPlan) EcoreUtil.getExistingAdapter(pa, EvaluationPlan.class);
+		if (plan != null) {
+			return plan;
+		}
+		if (EcoreUtil.getRootContainer(pa) instanceof SystemInstance) {
+			return null;
+		}
+		return DeclarativeAdapters.getAdapter(pa, EvaluationPlan.class, FACTORY);
+	}
+
+	/*
+	 * Fold the constant values. Evaluation errors are not cached.
+	 */
+	private static Object[] compile(final PropertyAssociation pa, final EvaluationContext ctx)
+			throws InvalidModelException {
+		final List<ModalPropertyValue> mpvs = pa.getOwnedValues();
+		final Object[] result = new Object[mpvs.size()];
+		for (int i = 0; i < result.length; i++) {
+			final ModalPropertyValue mpv = mpvs.get(i);
+			result[i] = isConstant(mpv.getOwnedValue(), false) ? mpv.evaluate(ctx) : mpv;
+		}
+		return result;
+	}
+
+	/**
+	 * Check if a value evaluates to the same result in every context.
+	 * Named values are constant at the top level, because they evaluate to
+	 * themselves, but not inside ranges and operations, where they are
+	 * resolved to the value of a property constant.
+	 */
+	private static boolean isConstant(final PropertyExpression pe, final boolean nested) {
+		if (pe instanceof NumberValue || pe instanceof BooleanLiteral || pe instanceof StringLiteral) {
+			return true;
+		}
+		if (pe instanceof NamedValue) {
+			return !nested;
+		}
+		if (pe instanceof ListValue || pe instanceof RecordValue || pe instanceof ClassifierValue) {
+			// evaluate to themselves
+			return !nested;
+		}
+		if (pe instanceof RangeValue) {
+			final RangeValue rv = (RangeValue) pe;
+			return isConstant(rv.getMinimum(), true) && isConstant(rv.getMaximum(), true)
+					&& (rv.getDelta() == null || isConstant(rv.getDelta(), true));
+		}
+		if (pe instanceof Operation) {
+			for (PropertyExpression operand : ((Operation) pe).getOwnedPropertyExpressions()) {
+				if (!isConstant(operand, true)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean isAdapterForType(final Object type) {
+		return type == EvaluationPlan.class;
+	}
+
+	@Override
+	public void notifyChanged(final Notification notification) {
+		super.notifyChanged(notification);
+		if (!notification.isTouch()) {
+			steps = null;
+		}
+	}
+}
@@ -0,0 +1,325 @@
+/*
+ * <copyright>
+ * Copyright  2004 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ *
+ * </copyright>
+ */
+package org.osate.aadl2.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.util.BasicEList;
+import org.eclipse.emf.common.util.ECollections;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.osate.aadl2.Classifier;
+import org.osate.aadl2.ComponentImplementation;
+import org.osate.aadl2.RefinableElement;
+import org.osate.aadl2.SubprogramCallSequence;
+
+/**
+ * Memoizes values that are computed from the members of a classifier along
+ * its extension chain, e.g., all connections of a component implementation
+ * including the inherited ones. The adapter is attached to each classifier
+ * in the extension chain and to the members directly owned by the
+ * classifier, including the calls in call sequences, and it counts the
+ * changes to them. A cached value is used as
+ * long as the extension chain consists of the same classifiers and none of
+ * them has changed. For component implementations the extension chain of
+ * the component type is tracked as well.
+ * <p>
+ * Changes further down in the containment tree, e.g., to the property
+ * associations of a feature, are not tracked.
+ * <p>
+ * The cached lists are unmodifiable, callers get a copy of them. The adapter
+ * of a classifier is attached once, see {@link DeclarativeAdapters}, and then
+ * kept in {@link ClassifierImpl#extendedMembers}, so reading a cached value
+ * takes no lock.
+ */
+final class ExtendedMembers extends EContentAdapter {
+
+	/**
+	 * Computes a value from the members of a classifier. Instances are used
+	 * as cache keys and should be singletons. The computed value must not be
+	 * modified afterwards.
+	 */
+	static abstract class Value<V> {
+		/**
+		 * @param classifier the classifier
+		 * @return the new value
+		 */
+		abstract V compute(Classifier classifier);
+	}
+
+	/**
+	 * Computes the flattened members of one kind.
+	 */
+	static abstract class Kind<T> extends Value<EList<T>> {
+	}
+
+	/** Incremented on each change to the classifier. */
+	private volatile int stamp = 0;
+
+	private final ConcurrentMap<Value<?>, Entry> entries = new ConcurrentHashMap<Value<?>, Entry>();
+
+	private ExtendedMembers() {
+	}
+
+	/**
+	 * Get the flattened members of a classifier, computing them if necessary.
+	 * 
+	 * @param classifier the classifier
+	 * @param kind the kind of members
+	 * @return a new list of the members that the caller may modify
+	 */
+	static <T> EList<T> get(final Classifier classifier, final Kind<T> kind) {
+		return new BasicEList<T>(get(classifier, (Value<EList<T>>) kind));
+	}
+
+	/**
+	 * Get a value computed from the members of a classifier, computing it if
+	 * necessary.
+	 * 
+	 * @param classifier the classifier
+	 * @param value the value to get
+	 * @return the value
+	 */
+	@SuppressWarnings("unchecked")
+	static <V> V get(final Classifier classifier, final Value<V> value) {
+		final ExtendedMembers own = getAdapter(classifier);
+		final Entry entry = own.entries.get(value);
+		if (entry != null && entry.isValid(classifier)) {
+			return (V) entry.value;
+		}
+		// record the stamps before computing the members, so that concurrent
+		// changes invalidate the new entry
+		final List<Classifier> dependencies = new ArrayList<Classifier>();
+		collectDependencies(classifier, dependencies);
+		final int size = dependencies.size();
+		final ExtendedMembers[] adapters = new ExtendedMembers[size];
+		final int[] stamps = new int[size];
+		for (int i = 0; i < size; i++) {
+			adapters[i] = getAdapter(dependencies.get(i));
+			stamps[i] = adapters[i].stamp;
+		}
+		V result = value.compute(classifier);
+		if (value instanceof Kind<?>) {
+			result = (V) ECollections.unmodifiableEList((EList<?>) result);
+		}
+		own.entries.put(value, new Entry(dependencies.toArray(new Classifier[size]), adapters, stamps, result));
+		return result;
+	}
+
+	/**
+	 * Add elements to a set of flattened members, replacing the elements they
+	 * refine. Elements must be added from the farthest ancestor to the
+	 * classifier itself. A linked hash set keeps the order of a list without
+	 * the linear search for the refined element.
+	 * 
+	 * @param members the flattened members
+	 * @param elements the owned elements of one classifier
+	 */
+	static <T extends RefinableElement> void addRefining(final Set<T> members, final List<T> elements) {
+		for (final T element : elements) {
+			final RefinableElement refined = element.getRefinedElement();
+			if (refined != null) {
+				members.remove(refined);
+			}
+			members.add(element);
+		}
+	}
+
+	private static final DeclarativeAdapters.Factory<ExtendedMembers> FACTORY = new DeclarativeAdapters.Factory<ExtendedMembers>() {
+		@Override
+		ExtendedMembers create() {
+			return new ExtendedMembers();
+		}
+	};
+
+	/**
+	 * Attach the adapter to a classifier if it has none.
+	 * 
+	 * @see DeclarativeAdapters#attachAll(org.eclipse.emf.ecore.resource.Resource)
+	 */
+	static void attach(final Classifier classifier) {
+		getAdapter(classifier);
+	}
+
+	/*
+	 * Attaching the adapter is synchronized by DeclarativeAdapters. Once
+	 * attached, the adapter is read from the volatile field without a lock.
+	 */
+	private static ExtendedMembers getAdapter(final Classifier classifier) {
+		final ClassifierImpl impl = classifier instanceof ClassifierImpl ? (ClassifierImpl) classifier : null;
+		ExtendedMembers adapter = impl != null ? impl.extendedMembers : null;
+		if (adapter == null) {
+			adapter = DeclarativeAdapters.getAdapter(classifier, ExtendedMembers.class, FACTORY);
+			if (impl != null) {
+				impl.extendedMembers = adapter;
+			}
+		}
+		return adapter;
+	}
+
+	/*
+	 * The classifiers the members depend on: the extension chain and, for a
+	 * component implementation, the extension chain of its type. The chain is
+	 * walked like Classifier.getSelfPlusAllExtended().
+	 */
+	private static void collectDependencies(final Classifier classifier, final List<Classifier> result) {
+		collectChain(classifier, result);
+		if (classifier instanceof ComponentImplementation) {
+			final Classifier type = ((ComponentImplementation) classifier).getType();
+			if (type != null) {
+				collectChain(type, result);
+			}
+		}
+	}
+
+	private static void collectChain(final Classifier classifier, final List<Classifier> result) {
+		Classifier current = classifier;
+		do {
+			result.add(current);
+			current = current.getExtended();
+		} while (current != null && current != classifier);
+	}
+
+	@Override
+	public boolean isAdapterForType(final Object type) {
+		return type == ExtendedMembers.class;
+	}
+
+	/*
+	 * Adapt the classifier and its direct contents only. The calls in call
+	 * sequences are adapted as well because they are found by name.
+	 */
+	private static boolean isContainer(final Object object) {
+		return object instanceof Classifier || object instanceof SubprogramCallSequence;
+	}
+
+	@Override
+	protected void setTarget(final EObject target) {
+		if (isContainer(target)) {
+			super.setTarget(target);
+		} else {
+			basicSetTarget(target);
+		}
+	}
+
+	@Override
+	protected void unsetTarget(final EObject target) {
+		if (isContainer(target)) {
+			super.unsetTarget(target);
+		} else {
+			basicUnsetTarget(target);
+		}
+	}
+
+	@Override
+	protected void selfAdapt(final Notification msg) {
+		if (isContainer(msg.getNotifier())) {
+			super.selfAdapt(msg);
+		}
+	}
+
+	@Override
+	public void notifyChanged(final Notification msg) {
+		super.notifyChanged(msg);
+		if (!msg.isTouch() || msg.getEventType() == Notification.REMOVING_ADAPTER && msg.getOldValue() == this) {
+			stamp++;
+			entries.clear();
+		}
+		if (msg.getEventType() == Notification.REMOVING_ADAPTER && msg.getOldValue() == this
+				&& msg.getNotifier() instanceof ClassifierImpl) {
+			final ClassifierImpl impl = (ClassifierImpl) msg.getNotifier();
+			if (impl.extendedMembers == this) {
+				impl.extendedMembers = null;
+			}
+		}
+	}
+
+	private static final class Entry {
+		private final Classifier[] dependencies;
+
+		private final ExtendedMembers[] adapters;
+
+		private final int[] stamps;
+
+		private final Object value;
+
+		Entry(final Classifier[] dependencies, final ExtendedMembers[] adapters, final int[] stamps,
+				final Object value) {
+			this.dependencies = dependencies;
+			this.adapters = adapters;
+			this.stamps = stamps;
+			this.value = value;
+		}
+
+		/*
+		 * Walk the dependencies again without allocating anything and compare
+		 * them to the recorded ones.
+		 */
+		boolean isValid(final Classifier classifier) {
+			int i = matchChain(classifier, 0);
+			if (i < 0) {
+				return false;
+			}
+			if (classifier instanceof ComponentImplementation) {
+				final Classifier type = ((ComponentImplementation) classifier).getType();
+				if (type != null) {
+					i = matchChain(type, i);
+					if (i < 0) {
+						return false;
+					}
+				}
+			}
+			return i == dependencies.length;
+		}
+
+		private int matchChain(final Classifier classifier, int i) {
+			Classifier current = classifier;
+			do {
+				if (i >= dependencies.length || dependencies[i] != current || adapters[i].stamp != stamps[i]) {
+					return -1;
+				}
+				i++;
+				current = current.getExtended();
+			} while (current != null && current != classifier);
+			return i;
+		}
+	}
+}
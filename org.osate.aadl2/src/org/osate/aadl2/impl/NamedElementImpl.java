@@ -54,10 +54,8 @@ import org.eclipse.emf.ecore.util.EObjectContainmentEList;
 import org.eclipse.emf.ecore.util.InternalEList;
 import org.osate.aadl2.Aadl2Factory;
 import org.osate.aadl2.Aadl2Package;
-import org.osate.aadl2.ClassifierValue;
 import org.osate.aadl2.ContainedNamedElement;
 import org.osate.aadl2.ListValue;
-import org.osate.aadl2.MetaclassReference;
 import org.osate.aadl2.ModalPropertyValue;
 import org.osate.aadl2.Mode;
 import org.osate.aadl2.NamedElement;
@@ -65,7 +63,6 @@ import org.osate.aadl2.Namespace;
 import org.osate.aadl2.Property;
 import org.osate.aadl2.PropertyAssociation;
 import org.osate.aadl2.PropertyExpression;
-import org.osate.aadl2.PropertyOwner;
 import org.osate.aadl2.PropertyType;
 import org.osate.aadl2.PropertyValue;
 import org.osate.aadl2.instance.InstanceObject;
@@ -566,26 +563,7 @@ public abstract class NamedElementImpl extends ElementImpl implements
 	}
 
 	public boolean acceptsProperty(Property property) {
-
-		for (PropertyOwner appliesTo : property.getAppliesTos()) {
-			// for (MetaclassReference metaclassReference :
-			// property.getAppliesToMetaclasses())
-			try {
-				if (appliesTo instanceof MetaclassReference
-						&& ((MetaclassReference) appliesTo).getMetaclass()
-								.isSuperTypeOf(eClass())) {
-					return true;
-				}
-				if (appliesTo instanceof ClassifierValue) {
-					ClassifierValue cv = (ClassifierValue) appliesTo;
-					return true;
-				}
-			} catch (Exception e) {
-				e.printStackTrace();
-				return false;
-			}
-		}
-		return false;
+		return PropertyApplicability.appliesTo(property, eClass());
 	}
 
 	public void getPropertyValueInternal(final Property pn,
@@ -0,0 +1,249 @@
+/*
+ * <copyright>
+ * Copyright  2004 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ *
+ * </copyright>
+ */
+package org.osate.aadl2.impl;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.osate.aadl2.Aadl2Package;
+import org.osate.aadl2.ClassifierValue;
+import org.osate.aadl2.ComponentCategory;
+import org.osate.aadl2.MetaclassReference;
+import org.osate.aadl2.Property;
+import org.osate.aadl2.PropertyOwner;
+
+/**
+ * Memoizes which model elements a property applies to according to the
+ * metaclasses in its applies to clause. The results are kept in tables
+ * indexed by the classifier ID of the metaclass of the holder, and by
+ * component category for component instances, so that checking if a
+ * property applies to a holder is an array lookup after the first check.
+ * The adapter is attached to the property, see {@link DeclarativeAdapters},
+ * and the tables are cleared when the property changes.
+ * <p>
+ * Applies to clauses that name classifiers depend on the classifier of the
+ * holder and are checked separately, see
+ * {@link ClassifierImpl#checkAppliesToClassifier(Property)}.
+ */
+public final class PropertyApplicability extends EContentAdapter {
+
+	private static final byte UNKNOWN = 0;
+
+	private static final byte APPLIES = 1;
+
+	private static final byte DOES_NOT_APPLY = 2;
+
+	/** Indexed by the classifier IDs of the classes in the AADL2 package */
+	private volatile byte[] metaclasses = newMetaclassTable();
+
+	/** Indexed by the component category ordinals */
+	private volatile byte[] categories = newCategoryTable();
+
+	/** Does the property apply to all named elements? */
+	private volatile byte all = UNKNOWN;
+
+	private PropertyApplicability() {
+	}
+
+	/**
+	 * Check if the metaclass references in the applies to clause of a
+	 * property include the given metaclass. A property applies to every
+	 * element if it has a classifier in its applies to clause.
+	 * 
+	 * @param property the property
+	 * @param eClass the metaclass of the property holder
+	 * @return whether the property applies to instances of the metaclass
+	 * @see NamedElementImpl#acceptsProperty(Property)
+	 */
+	public static boolean appliesTo(final Property property, final EClass eClass) {
+		if (eClass.getEPackage() != Aadl2Package.eINSTANCE) {
+			return computeAppliesTo(property, eClass);
+		}
+		final byte[] table = getAdapter(property).metaclasses;
+		final int id = eClass.getClassifierID();
+		byte result = table[id];
+		if (result == UNKNOWN) {
+			result = computeAppliesTo(property, eClass) ? APPLIES : DOES_NOT_APPLY;
+			table[id] = result;
+		}
+		return result == APPLIES;
+	}
+
+	/**
+	 * Check if the metaclass references in the applies to clause of a
+	 * property include the metaclass of the given component category, or
+	 * <code>all</code>.
+	 * 
+	 * @param property the property
+	 * @param category the category of the component instance
+	 * @return whether the property applies to component instances of the
+	 *         category
+	 * @see org.osate.aadl2.instance.impl.ComponentInstanceImpl#acceptsProperty(Property)
+	 */
+	public static boolean appliesTo(final Property property, final ComponentCategory category) {
+		final byte[] table = getAdapter(property).categories;
+		final int index = category.ordinal();
+		byte result = table[index];
+		if (result == UNKNOWN) {
+			result = computeAppliesTo(property, category) ? APPLIES : DOES_NOT_APPLY;
+			table[index] = result;
+		}
+		return result == APPLIES;
+	}
+
+	/**
+	 * Check if the applies to clause of a property is <code>all</code>.
+	 * 
+	 * @param property the property
+	 * @return whether the property applies to all named elements
+	 */
+	public static boolean appliesToAll(final Property property) {
+		final PropertyApplicability adapter = getAdapter(property);
+		byte result = adapter.all;
+		if (result == UNKNOWN) {
+			result = computeAppliesToAll(property) ? APPLIES : DOES_NOT_APPLY;
+			adapter.all = result;
+		}
+		return result == APPLIES;
+	}
+
+	private static final DeclarativeAdapters.Factory<PropertyApplicability> FACTORY = new DeclarativeAdapters.Factory<PropertyApplicability>() {
+		@Override
+		PropertyApplicability create() {
+			return new PropertyApplicability();
+		}
+	};
+
+	/**
+	 * Attach the adapter to a property if it has none.
+	 * 
+	 * @see DeclarativeAdapters#attachAll(org.eclipse.emf.ecore.resource.Resource)
+	 */
+	static void attach(final Property property) {
+		getAdapter(property);
+	}
+
+	private static PropertyApplicability getAdapter(final Property property) {
+		return DeclarativeAdapters.getAdapter(property, PropertyApplicability.class, FACTORY);
+	}
+
+	private static byte[] newMetaclassTable() {
+		return new byte[Aadl2Package.eINSTANCE.getEClassifiers().size()];
+	}
+
+	private static byte[] newCategoryTable() {
+		return new byte[ComponentCategory.VALUES.size()];
+	}
+
+	private static boolean computeAppliesTo(final Property property, final EClass eClass) {
+		for (PropertyOwner appliesTo : property.getAppliesTos()) {
+			try {
+				if (appliesTo instanceof MetaclassReference
+						&& ((MetaclassReference) appliesTo).getMetaclass().isSuperTypeOf(eClass)) {
+					return true;
+				}
+				if (appliesTo instanceof ClassifierValue) {
+					return true;
+				}
+			} catch (Exception e) {
+				e.printStackTrace();
+				return false;
+			}
+		}
+		return false;
+	}
+
+	private static boolean computeAppliesTo(final Property property, final ComponentCategory category) {
+		for (final PropertyOwner propOwner : property.getAppliesTos()) {
+			if (propOwner instanceof MetaclassReference) {
+				final MetaclassReference mcr = (MetaclassReference) propOwner;
+				if (mcr.getMetaclassNames().size() > 0 && mcr.getMetaclassNames().get(0).equals("all")) {
+					return true;
+				}
+
+				String catLitteral = mcr.getMetaclass().getName().toLowerCase();
+
+				/*
+				 * JD: fixes for bug #126
+				 * When getting the literal value of the category from the meta model,
+				 * we get the literal "virtualprocessor" or "virtualbus" because
+				 * it is splitted into two words. On the other hand, the ComponentCategory
+				 * class use a space between the two.
+				 */
+				if (catLitteral.equals("virtualprocessor")) {
+					catLitteral = "virtual processor";
+				} else if (catLitteral.equals("virtualbus")) {
+					catLitteral = "virtual bus";
+				} else if (catLitteral.equals("subprogramgroup")) {
+					catLitteral = "subprogram group";
+				} else if (catLitteral.equals("threadgroup")) {
+					catLitteral = "thread group";
+				}
+
+				if (category.equals(ComponentCategory.get(catLitteral))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean computeAppliesToAll(final Property property) {
+		for (final PropertyOwner propOwner : property.getAppliesTos()) {
+			if (propOwner instanceof MetaclassReference) {
+				final MetaclassReference mcr = (MetaclassReference) propOwner;
+				if (mcr.getMetaclassNames().size() > 0 && mcr.getMetaclassNames().get(0).equals("all")) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean isAdapterForType(final Object type) {
+		return type == PropertyApplicability.class;
+	}
+
+	@Override
+	public void notifyChanged(final Notification notification) {
+		super.notifyChanged(notification);
+		if (!notification.isTouch()) {
+			metaclasses = newMetaclassTable();
+			categories = newCategoryTable();
+			all = UNKNOWN;
+		}
+	}
+}
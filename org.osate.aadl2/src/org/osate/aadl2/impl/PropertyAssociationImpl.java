@@ -508,13 +508,15 @@ public class PropertyAssociationImpl extends ElementImpl implements
 				&& !getOwnedValues().get(0).getInModes().isEmpty();
 	}
 
+	/**
+	 * Evaluate the values of this property association. Values that do not
+	 * depend on the evaluation context are evaluated only once.
+	 * 
+	 * @see EvaluationPlan
+	 */
 	public EvaluatedProperty evaluate(EvaluationContext ctx)
 			throws InvalidModelException {
-		EvaluatedProperty result = new EvaluatedProperty();
-		for (ModalPropertyValue mpv : ownedValues) {
-			result.add(mpv.evaluate(ctx));
-		}
-		return result;
+		return EvaluationPlan.evaluate(this, ctx);
 	}
 
 	/* (non-Javadoc)
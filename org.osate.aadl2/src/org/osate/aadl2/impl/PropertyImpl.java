@@ -35,6 +35,7 @@
  */
 package org.osate.aadl2.impl;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
@@ -509,7 +510,7 @@ public class PropertyImpl extends BasicPropertyImpl implements Property {
 
 	public List<EvaluatedProperty> evaluate(EvaluationContext ctx) {
 		List<PropertyAssociation> pas = getPropertyValue(ctx).getAssociations();
-		List<EvaluatedProperty> vals = new LinkedList<EvaluatedProperty>();
+		List<EvaluatedProperty> vals = new ArrayList<EvaluatedProperty>(pas.size());
 
 		for (PropertyAssociation pa : pas) {
 			//			OsateDebug.osateDebug("pa" + pa);
@@ -527,7 +528,7 @@ public class PropertyImpl extends BasicPropertyImpl implements Property {
 			throws IllegalStateException, InvalidModelException,
 			PropertyDoesNotApplyToHolderException, IllegalArgumentException {
 		// Error if the property is not acceptable
-		final PropertyAcc pas = new PropertyAcc(this);
+		final PropertyAcc pas = new PropertyAcc(this, ctx.getContainedIndex());
 		getPropertyValueInternal(ctx, pas);
 		return pas;
 	}
@@ -575,7 +576,7 @@ public class PropertyImpl extends BasicPropertyImpl implements Property {
 			io = (InstanceObject) io.eContainer();
 			if (io != null) {
 				getPropertyValueInternal(
-						new EvaluationContext(io, ctx.getClassifierCache()),
+						new EvaluationContext(io, ctx.getClassifierCache(), ctx.getContainedIndex()),
 						paa);
 			}
 		}
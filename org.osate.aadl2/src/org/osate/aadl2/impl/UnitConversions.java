@@ -0,0 +1,195 @@
+/*
+ * <copyright>
+ * Copyright  2004 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ *
+ * </copyright>
+ */
+package org.osate.aadl2.impl;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.osate.aadl2.EnumerationLiteral;
+import org.osate.aadl2.UnitLiteral;
+import org.osate.aadl2.UnitsType;
+
+/**
+ * Conversion tables of a units type: the literals by name, ignoring case,
+ * and the factors between each pair of literals. The tables are built when
+ * they are first used and the adapter attached to the units type, see
+ * {@link DeclarativeAdapters}, discards them when the units type, its
+ * literals or their factors change. Scaling a
+ * value to another unit of the same units type is then a table lookup and a
+ * multiplication.
+ */
+final class UnitConversions extends EContentAdapter {
+
+	private volatile Tables tables = null;
+
+	private UnitConversions() {
+	}
+
+	/**
+	 * Find a unit literal by name, ignoring case.
+	 * 
+	 * @see UnitsType#findLiteral(String)
+	 */
+	static UnitLiteral findLiteral(final UnitsType unitsType, final String name) {
+		return (name == null) ? null : getTables(unitsType).literals.get(name.toLowerCase());
+	}
+
+	/**
+	 * Get the factor to convert from a unit to the base unit of its units
+	 * type.
+	 * 
+	 * @see UnitLiteral#getAbsoluteFactor()
+	 */
+	static double getAbsoluteFactor(final UnitLiteral unit) {
+		final EObject container = unit.eContainer();
+		if (container instanceof UnitsType) {
+			final Tables t = getTables((UnitsType) container);
+			final Integer i = t.index.get(unit);
+			if (i != null && !Double.isNaN(t.absolute[i])) {
+				return t.absolute[i];
+			}
+		}
+		return UnitLiteralImpl.computeAbsoluteFactor(unit);
+	}
+
+	/**
+	 * Get the factor to convert from one unit to another unit of the same
+	 * units type.
+	 * 
+	 * @see UnitLiteral#getAbsoluteFactor(UnitLiteral)
+	 */
+	static double getAbsoluteFactor(final UnitLiteral unit, final UnitLiteral target) {
+		final EObject container = unit.eContainer();
+		if (target != null && container instanceof UnitsType && target.eContainer() == container) {
+			final Tables t = getTables((UnitsType) container);
+			final Integer i = t.index.get(unit);
+			final Integer j = t.index.get(target);
+			if (i != null && j != null && !Double.isNaN(t.factors[i][j])) {
+				return t.factors[i][j];
+			}
+		}
+		return UnitLiteralImpl.computeAbsoluteFactor(unit, target);
+	}
+
+	private static final DeclarativeAdapters.Factory<UnitConversions> FACTORY = new DeclarativeAdapters.Factory<UnitConversions>() {
+		@Override
+		UnitConversions create() {
+			return new UnitConversions();
+		}
+	};
+
+	/**
+	 * Attach the adapter to a units type if it has none.
+	 * 
+	 * @see DeclarativeAdapters#attachAll(org.eclipse.emf.ecore.resource.Resource)
+	 */
+	static void attach(final UnitsType unitsType) {
+		DeclarativeAdapters.getAdapter(unitsType, UnitConversions.class, FACTORY);
+	}
+
+	private static Tables getTables(final UnitsType unitsType) {
+		final UnitConversions adapter = DeclarativeAdapters.getAdapter(unitsType, UnitConversions.class, FACTORY);
+		Tables t = adapter.tables;
+		if (t == null) {
+			t = new Tables(unitsType);
+			adapter.tables = t;
+		}
+		return t;
+	}
+
+	@Override
+	public boolean isAdapterForType(final Object type) {
+		return type == UnitConversions.class;
+	}
+
+	@Override
+	public void notifyChanged(final Notification notification) {
+		super.notifyChanged(notification);
+		if (!notification.isTouch()) {
+			tables = null;
+		}
+	}
+
+	/**
+	 * The tables of one units type. Factors that cannot be computed, e.g.,
+	 * because the model is incomplete, are NaN and are computed on each
+	 * call, so that the error is reported to the caller.
+	 */
+	private static final class Tables {
+		final Map<String, UnitLiteral> literals = new HashMap<String, UnitLiteral>();
+
+		final Map<UnitLiteral, Integer> index = new IdentityHashMap<UnitLiteral, Integer>();
+
+		final double[] absolute;
+
+		final double[][] factors;
+
+		Tables(final UnitsType unitsType) {
+			final List<EnumerationLiteral> owned = unitsType.getOwnedLiterals();
+			final int size = owned.size();
+			final UnitLiteral[] units = new UnitLiteral[size];
+			for (int i = 0; i < size; i++) {
+				final UnitLiteral unit = (UnitLiteral) owned.get(i);
+				units[i] = unit;
+				index.put(unit, i);
+				final String name = unit.getName();
+				if (name != null && !literals.containsKey(name.toLowerCase())) {
+					literals.put(name.toLowerCase(), unit);
+				}
+			}
+			absolute = new double[size];
+			factors = new double[size][size];
+			for (int i = 0; i < size; i++) {
+				try {
+					absolute[i] = UnitLiteralImpl.computeAbsoluteFactor(units[i]);
+				} catch (RuntimeException e) {
+					absolute[i] = Double.NaN;
+				}
+				for (int j = 0; j < size; j++) {
+					try {
+						factors[i][j] = UnitLiteralImpl.computeAbsoluteFactor(units[i], units[j]);
+					} catch (RuntimeException e) {
+						factors[i][j] = Double.NaN;
+					}
+				}
+			}
+		}
+	}
+}
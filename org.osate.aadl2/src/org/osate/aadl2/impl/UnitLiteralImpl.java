@@ -283,8 +283,29 @@ public class UnitLiteralImpl extends EnumerationLiteralImpl implements
 	 * @see org.osate.aadl2.UnitLiteral#getAbsoluteFactor()
 	 */
 	public final double getAbsoluteFactor() {
+		return UnitConversions.getAbsoluteFactor(this);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.osate.aadl2.UnitLiteral#getAbsoluteFactor(edu.cmu.sei.aadl
+	 * .aadl2.UnitLiteral)
+	 */
+	public final double getAbsoluteFactor(UnitLiteral target) {
+		return UnitConversions.getAbsoluteFactor(this, target);
+	}
+
+	/**
+	 * Compute the factor to convert from a unit to the base unit by walking
+	 * the base unit chain.
+	 * 
+	 * @see UnitConversions
+	 */
+	static double computeAbsoluteFactor(final UnitLiteral unit) {
 		double factor = 1.0;
-		UnitLiteral current = this;
+		UnitLiteral current = unit;
 		while (current.getBaseUnit() != null) {
 			double val = (current.getFactor() instanceof IntegerLiteral ? (double) ((IntegerLiteral) current
 					.getFactor()).getValue() : ((RealLiteral) current
@@ -295,18 +316,18 @@ public class UnitLiteralImpl extends EnumerationLiteralImpl implements
 		return factor;
 	}
 
-	/*
-	 * (non-Javadoc)
+	/**
+	 * Compute the factor to convert from a unit to another unit by walking
+	 * the base unit chain in both directions. Returns 1.0 if the units are
+	 * not related.
 	 * 
-	 * @see
-	 * org.osate.aadl2.UnitLiteral#getAbsoluteFactor(edu.cmu.sei.aadl
-	 * .aadl2.UnitLiteral)
+	 * @see UnitConversions
 	 */
-	public final double getAbsoluteFactor(UnitLiteral target) {
+	static double computeAbsoluteFactor(final UnitLiteral unit, final UnitLiteral target) {
 		double factor = 1.0;
-		if (this == target)
+		if (unit == target)
 			return factor;
-		UnitLiteral current = this;
+		UnitLiteral current = unit;
 		while (current.getBaseUnit() != null) {
 			double val = (current.getFactor() instanceof IntegerLiteral ? (double) ((IntegerLiteral) current
 					.getFactor()).getValue() : ((RealLiteral) current
@@ -325,7 +346,7 @@ public class UnitLiteralImpl extends EnumerationLiteralImpl implements
 					.getFactor()).getValue());
 			factor /= val;
 			current = current.getBaseUnit();
-			if (current == this)
+			if (current == unit)
 				return factor;
 		}
 		return 1.0;
@@ -187,12 +187,15 @@ public class UnitsTypeImpl extends EnumerationTypeImpl implements UnitsType {
 		return super.isSetOwnedMembers() || isSetOwnedLiterals();
 	}
 
-	/* (non-Javadoc)
-	 * @see org.osate.aadl2.impl.EnumerationTypeImpl#findLiteral(java.lang.String)
+	/**
+	 * Find a unit literal by name, ignoring case. The literals are looked up
+	 * in a map that is kept with the conversion factors of this units type.
+	 * 
+	 * @see UnitConversions
 	 */
 	@Override
 	public UnitLiteral findLiteral(String literalName) {
-		return (UnitLiteral) super.findLiteral(literalName);
+		return UnitConversions.findLiteral(this, literalName);
 	}
 
 } // UnitsTypeImpl
@@ -405,6 +405,16 @@ public interface ComponentInstance extends ConnectionInstanceEnd,
 	// XXX: [AADL 1 -> AADL 2] Added to make instantiation work.
 	void setCurrentMode(ModeInstance mode);
 
+	/**
+	 * Get the mode this component is projected into. If a
+	 * {@link org.osate.aadl2.instance.util.ModeContext} with a system
+	 * operation mode of this instance model is bound to the current thread,
+	 * the mode is taken from the context instead.
+	 * @return The current mode, or <code>null</code> if the component is not
+	 * projected into any mode.
+	 */
+	ModeInstance getCurrentMode();
+
 	/**
 	 * find the flowspec instance of this component instance
 	 * @param flowspec flowspec whose instance is to be found
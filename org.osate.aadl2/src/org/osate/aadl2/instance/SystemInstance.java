@@ -142,7 +142,9 @@ public interface SystemInstance extends ComponentInstance {
 
 	/**
 	 * Get the current system operation mode of the system, or <code>null</code>
-	 * if it has not been set.
+	 * if it has not been set. A {@link org.osate.aadl2.instance.util.ModeContext}
+	 * bound to the calling thread takes precedence over the mode set with
+	 * {@link #setCurrentSystemOperationMode(SystemOperationMode)}.
 	 */
 	SystemOperationMode getCurrentSystemOperationMode();
 
@@ -208,4 +210,15 @@ public interface SystemInstance extends ComponentInstance {
 	 */
 	EList<ConnectionInstance> getAllConnectionInstances();
 
+	/**
+	 * Find an instance object by its path, e.g., <code>sub[2].port</code>.
+	 * The path may include the name of the system instance. Paths are
+	 * resolved through an index that is kept with the system instance.
+	 * 
+	 * @param path the instance object path
+	 * @return the instance object, or null if there is none with the path
+	 * @see org.osate.aadl2.instance.util.InstancePathIndex
+	 */
+	InstanceObject findInstanceObject(String path);
+
 } // SystemInstance
@@ -35,7 +35,7 @@
  */
 package org.osate.aadl2.instance.impl;
 
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
@@ -62,13 +62,12 @@ import org.osate.aadl2.ContainmentPathElement;
 import org.osate.aadl2.EndToEndFlow;
 import org.osate.aadl2.Feature;
 import org.osate.aadl2.FlowSpecification;
-import org.osate.aadl2.MetaclassReference;
 import org.osate.aadl2.Mode;
 import org.osate.aadl2.ModeTransition;
 import org.osate.aadl2.NamedElement;
 import org.osate.aadl2.Property;
-import org.osate.aadl2.PropertyOwner;
 import org.osate.aadl2.Subcomponent;
+import org.osate.aadl2.impl.PropertyApplicability;
 import org.osate.aadl2.instance.ComponentInstance;
 import org.osate.aadl2.instance.ConnectionInstance;
 import org.osate.aadl2.instance.ConnectionReference;
@@ -79,7 +78,10 @@ import org.osate.aadl2.instance.InstanceObject;
 import org.osate.aadl2.instance.InstancePackage;
 import org.osate.aadl2.instance.ModeInstance;
 import org.osate.aadl2.instance.ModeTransitionInstance;
+import org.osate.aadl2.instance.SystemInstance;
 import org.osate.aadl2.instance.SystemOperationMode;
+import org.osate.aadl2.instance.util.ConnectionInstanceIndex;
+import org.osate.aadl2.instance.util.ModeContext;
 import org.osate.aadl2.util.Aadl2Util;
 import org.osate.aadl2.util.OsateDebug;
 
@@ -178,6 +180,12 @@ public class ComponentInstanceImpl extends ConnectionInstanceEndImpl implements
 	 */
 	protected EList<ModeInstance> inModes;
 
+	/**
+	 * The system operation modes in which this component instance is active,
+	 * computed on demand for the current SOM index of the system instance.
+	 */
+	private volatile ActiveModes activeModes = null;
+
 	/**
 	 * The cached value of the '{@link #getFlowSpecifications() <em>Flow Specification</em>}' containment reference list.
 	 * <!-- begin-user-doc -->
@@ -359,12 +367,19 @@ public class ComponentInstanceImpl extends ConnectionInstanceEndImpl implements
 	/**
 	 * <!-- begin-user-doc -->
 	 * <!-- end-user-doc -->
-	 * @generated
+	 * @generated NOT
 	 */
 	public EList<Long> getIndices() {
 		if (indices == null) {
 			indices = new EDataTypeEList<Long>(Long.class, this,
-					InstancePackage.COMPONENT_INSTANCE__INDEX);
+					InstancePackage.COMPONENT_INSTANCE__INDEX) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void didChange() {
+					invalidatePathName();
+				}
+			};
 		}
 		return indices;
 	}
@@ -446,13 +461,24 @@ public class ComponentInstanceImpl extends ConnectionInstanceEndImpl implements
 	/**
 	 * <!-- begin-user-doc -->
 	 * <!-- end-user-doc -->
-	 * @generated
+	 * @generated NOT
 	 */
 	public EList<ModeInstance> getInModes() {
 		if (inModes == null) {
 			inModes = new EObjectResolvingEList<ModeInstance>(
 					ModeInstance.class, this,
-					InstancePackage.COMPONENT_INSTANCE__IN_MODE);
+					InstancePackage.COMPONENT_INSTANCE__IN_MODE) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void didChange() {
+					final SystemInstance si = getSystemInstance();
+					if (si instanceof SystemInstanceImpl) {
+						((SystemInstanceImpl) si)
+								.invalidateSystemOperationModeIndex();
+					}
+				}
+			};
 		}
 		return inModes;
 	}
@@ -765,51 +791,8 @@ public class ComponentInstanceImpl extends ConnectionInstanceEndImpl implements
 	}
 
 	public boolean acceptsProperty(Property property) {
-		//OsateDebug.osateDebug("[CompnentInstanceImpl] property=" + property);
-
-		for (final PropertyOwner propOwner : property.getAppliesTos()) {
-
-			if (propOwner instanceof MetaclassReference) {
-				//OsateDebug.osateDebug("[CompnentInstanceImpl]   property owner=" + propOwner);
-				if ((((MetaclassReference) propOwner).getMetaclassNames()
-						.size() > 0)
-						&& ((MetaclassReference) propOwner).getMetaclassNames()
-								.get(0).equals("all")) {
-					return true;
-				}
-
-				String catLitteral = ((MetaclassReference) propOwner)
-						.getMetaclass().getName().toLowerCase();
-
-				/*
-				 * JD: fixes for bug #126
-				 * The following line has been added to fix bug #126
-				 * When getting the literal value of the category from the meta model,
-				 * we get the literal "virtualprocessor" or "virtualbus" because
-				 * it is splitted into two words. On the other hand, the ComponentCategory
-				 * class use a space between the two. For these reason, we
-				 * force the category litteral when finding virtualprocessor
-				 * or virtualbus.
-				 */
-				if (catLitteral.equals("virtualprocessor")) {
-					catLitteral = "virtual processor";
-				} else if (catLitteral.equals("virtualbus")) {
-					catLitteral = "virtual bus";
-				} else if (catLitteral.equals("subprogramgroup")) {
-					catLitteral = "subprogram group";
-				} else if (catLitteral.equals("threadgroup")) {
-					catLitteral = "thread group";
-				}
-
-				final ComponentCategory categ = ComponentCategory
-						.get(catLitteral);
-
-				if (getCategory().equals(categ)) {
-					return true;
-				}
-				//OsateDebug.osateDebug("   catLitteral =" + catLitteral);
-
-			}
+		if (PropertyApplicability.appliesTo(property, getCategory())) {
+			return true;
 		}
 
 		final ComponentClassifier cc = getComponentClassifier();
@@ -898,6 +881,15 @@ public class ComponentInstanceImpl extends ConnectionInstanceEndImpl implements
 		currentMode = newMode;
 	}
 
+	public ModeInstance getCurrentMode() {
+		final ModeContext context = ModeContext.getCurrent();
+		if (context != null && context.getSystemOperationMode() != null
+				&& context.getSystemInstance() == getSystemInstance()) {
+			return context.getCurrentMode(this);
+		}
+		return currentMode;
+	}
+
 	/**
 	 * find the flowspec instance of this component instance
 	 * @param flowspec flowspec whose instance is to be found
@@ -924,18 +916,8 @@ public class ComponentInstanceImpl extends ConnectionInstanceEndImpl implements
 			return null;
 		} else {
 			// Get all SOMs that contain one of the mode instances in inModes
-			final List<SystemOperationMode> processedModes = new ArrayList<SystemOperationMode>();
-
-			for (SystemOperationMode som : getSystemInstance()
-					.getSystemOperationModes()) {
-				for (ModeInstance mi : som.getCurrentModes()) {
-					if (inModes.contains(mi)) {
-						processedModes.add(som);
-						break;
-					}
-				}
-			}
-			return processedModes;
+			final SystemOperationModeIndex index = getSystemOperationModeIndex();
+			return index.toList(index.getSystemOperationModesWithAny(inModes));
 		}
 	}
 
@@ -947,8 +929,8 @@ public class ComponentInstanceImpl extends ConnectionInstanceEndImpl implements
 	public EList<ConnectionInstance> findConnectionInstance(Connection conn) {
 		EList<ConnectionInstance> result = new BasicEList<ConnectionInstance>();
 
-		for (ConnectionInstance conni : getSystemInstance()
-				.allConnectionInstances()) {
+		for (ConnectionInstance conni : ConnectionInstanceIndex.getIndex(
+				getSystemInstance()).getConnectionInstancesOfRefinements(conn)) {
 			for (ConnectionReference connRef : conni.getConnectionReferences()) {
 				if (isSameOrRefined(connRef.getConnection(), conn)
 						&& ((this == connRef.getContext()) || connRef
@@ -1028,7 +1010,44 @@ public class ComponentInstanceImpl extends ConnectionInstanceEndImpl implements
 		}
 	}
 
+	/**
+	 * Get the system operation modes in which this component instance is
+	 * active, i.e., the SOMs that contain one of its modes and in which its
+	 * containing component instance is active. The bit set must not be
+	 * modified.
+	 * 
+	 * @param index the SOM index of the system instance
+	 * @return the bit set of the SOMs in which this component is active
+	 */
+	public BitSet getActiveSystemOperationModes(SystemOperationModeIndex index) {
+		ActiveModes active = activeModes;
+		if (active == null || active.index != index) {
+			BitSet bits = getInModes().isEmpty() ? null : index
+					.getSystemOperationModesWithAny(getInModes());
+			final ComponentInstance parent = getContainingComponentInstance();
+			if (parent instanceof ComponentInstanceImpl) {
+				final BitSet parentBits = ((ComponentInstanceImpl) parent)
+						.getActiveSystemOperationModes(index);
+				if (bits == null) {
+					bits = parentBits;
+				} else {
+					bits.and(parentBits);
+				}
+			} else if (bits == null) {
+				bits = index.getAll();
+			}
+			active = new ActiveModes(index, bits);
+			activeModes = active;
+		}
+		return active.bits;
+	}
+
 	public boolean isActive(SystemOperationMode som) {
+		final SystemOperationModeIndex index = getSystemOperationModeIndex();
+		final int n = (index == null) ? -1 : index.getNumber(som);
+		if (n >= 0) {
+			return getActiveSystemOperationModes(index).get(n);
+		}
 		if (getInModes().isEmpty()) {
 			return getContainingComponentInstance().isActive(som);
 		}
@@ -1048,16 +1067,16 @@ public class ComponentInstanceImpl extends ConnectionInstanceEndImpl implements
 	}
 
 	/* (non-Javadoc)
-	 * @see org.osate.aadl2.instance.impl.InstanceObjectImpl#getPathName()
+	 * @see org.osate.aadl2.instance.impl.InstanceObjectImpl#computePathName()
 	 */
 	@Override
-	public String getPathName() {
-		String array = "";
+	protected String computePathName() {
+		final StringBuilder result = new StringBuilder(String.valueOf(getName()));
 		for (Long i : getIndices()) {
 			if (i > 0)
-				array += "[" + i + "]";
+				result.append('[').append(i).append(']');
 		}
-		return getName() + array;
+		return result.toString();
 	}
 
 	/* (non-Javadoc)
@@ -1109,4 +1128,19 @@ public class ComponentInstanceImpl extends ConnectionInstanceEndImpl implements
 		return false;
 	}
 
+	/*
+	 * The active SOMs together with the index they refer to, so that both are
+	 * published atomically.
+	 */
+	private static final class ActiveModes {
+		final SystemOperationModeIndex index;
+
+		final BitSet bits;
+
+		ActiveModes(SystemOperationModeIndex index, BitSet bits) {
+			this.index = index;
+			this.bits = bits;
+		}
+	}
+
 } //ComponentInstanceImpl
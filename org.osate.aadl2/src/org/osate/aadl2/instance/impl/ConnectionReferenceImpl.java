@@ -45,10 +45,9 @@ import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.InternalEObject;
 import org.eclipse.emf.ecore.impl.ENotificationImpl;
 import org.osate.aadl2.Connection;
-import org.osate.aadl2.MetaclassReference;
 import org.osate.aadl2.NamedElement;
 import org.osate.aadl2.Property;
-import org.osate.aadl2.PropertyOwner;
+import org.osate.aadl2.impl.PropertyApplicability;
 import org.osate.aadl2.instance.ComponentInstance;
 import org.osate.aadl2.instance.ConnectionInstance;
 import org.osate.aadl2.instance.ConnectionInstanceEnd;
@@ -410,6 +409,14 @@ public class ConnectionReferenceImpl extends InstanceObjectImpl implements
 		return getConnection().getName();
 	}
 
+	/**
+	 * The name is taken from the connection, so it is not cached.
+	 */
+	@Override
+	public String getPathName() {
+		return getName();
+	}
+
 	/* (non-Javadoc)
 	 * @see org.osate.aadl2.impl.NamedElementImpl#setName(java.lang.String)
 	 */
@@ -424,24 +431,9 @@ public class ConnectionReferenceImpl extends InstanceObjectImpl implements
 	@Override
 	public boolean acceptsProperty(Property property) {
 		final boolean result;
-		for (final PropertyOwner propOwner : property.getAppliesTos()) {
-			//OsateDebug.osateDebug("[ConnectionReferenceImpl]   property owner=" + propOwner);
-
-			if (propOwner instanceof MetaclassReference) {
-				if ((((MetaclassReference) propOwner).getMetaclassNames()
-						.size() > 0)
-						&& ((MetaclassReference) propOwner).getMetaclassNames()
-								.get(0).equals("all")) {
-					//		OsateDebug.osateDebug("[ConnectionReferenceImpl]   accept property");
-
-					return true;
-				}
-
-			}
+		if (PropertyApplicability.appliesToAll(property)) {
+			return true;
 		}
-		//		OsateDebug.osateDebug("[ConnectionReferenceImpl] acceptsProperty" + property);
-		//	OsateDebug.osateDebug("[ConnectionReferenceImpl] getConnection()=" + getConnection());
-
 		result = getConnection().acceptsProperty(property);
 		//OsateDebug.osateDebug("[ConnectionReferenceImpl] result=" + result);
 		return result;
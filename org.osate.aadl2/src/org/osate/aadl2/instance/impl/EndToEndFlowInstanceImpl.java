@@ -35,7 +35,6 @@
  */
 package org.osate.aadl2.instance.impl;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -347,17 +346,8 @@ public class EndToEndFlowInstanceImpl extends FlowElementInstanceImpl implements
 			//			/* inModes is a list of ModeInstances.  We want all the SOMs that contain
 			//			 * these mode instances.
 			//			 */
-			List<SystemOperationMode> processedModes = new ArrayList<SystemOperationMode>();
-			for (SystemOperationMode som : getSystemInstance()
-					.getSystemOperationModes()) {
-				for (ModeInstance mi : som.getCurrentModes()) {
-					if (inModes.contains(mi)) {
-						processedModes.add(som);
-						break;
-					}
-				}
-			}
-			return processedModes;
+			final SystemOperationModeIndex index = getSystemOperationModeIndex();
+			return index.toList(index.getSystemOperationModesWithAny(inModes));
 			//			return inModes;
 		}
 	}
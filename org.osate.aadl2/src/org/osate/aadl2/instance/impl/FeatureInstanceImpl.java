@@ -266,11 +266,12 @@ public class FeatureInstanceImpl extends ConnectionInstanceEndImpl implements
 	/**
 	 * <!-- begin-user-doc -->
 	 * <!-- end-user-doc -->
-	 * @generated
+	 * @generated NOT
 	 */
 	public void setIndex(long newIndex) {
 		long oldIndex = index;
 		index = newIndex;
+		invalidatePathName();
 		if (eNotificationRequired())
 			eNotify(new ENotificationImpl(this, Notification.SET,
 					InstancePackage.FEATURE_INSTANCE__INDEX, oldIndex, index));
@@ -681,10 +682,10 @@ public class FeatureInstanceImpl extends ConnectionInstanceEndImpl implements
 	}
 
 	/* (non-Javadoc)
-	 * @see org.osate.aadl2.instance.impl.InstanceObjectImpl#getPathName()
+	 * @see org.osate.aadl2.instance.impl.InstanceObjectImpl#computePathName()
 	 */
 	@Override
-	public String getPathName() {
+	protected String computePathName() {
 		String array = "";
 		if (getIndex() > 0) {
 			array = "[" + getIndex() + "]";
@@ -536,8 +536,9 @@ public class FlowSpecificationInstanceImpl extends FlowElementInstanceImpl
 		if (getInModes().isEmpty()) {
 			return getContainingComponentInstance().isActive(som);
 		}
+		final SystemOperationModeImpl somImpl = (SystemOperationModeImpl) som;
 		for (ModeInstance m : getInModes()) {
-			if (som.getCurrentModes().contains(m)) {
+			if (somImpl.containsModeInstance(m)) {
 				return getContainingComponentInstance().isActive(som);
 			}
 		}
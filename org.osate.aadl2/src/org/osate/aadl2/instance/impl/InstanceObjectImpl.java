@@ -60,6 +60,8 @@ import org.osate.aadl2.instance.SystemInstance;
 import org.osate.aadl2.instance.SystemOperationMode;
 import org.osate.aadl2.properties.InvalidModelException;
 import org.osate.aadl2.properties.PropertyAcc;
+import org.osate.aadl2.properties.PropertyDoesNotApplyToHolderException;
+import org.osate.aadl2.properties.PropertyValueCache;
 import org.osate.aadl2.util.OsateDebug;
 
 /**
@@ -72,6 +74,23 @@ import org.osate.aadl2.util.OsateDebug;
  */
 public abstract class InstanceObjectImpl extends NamedElementImpl implements
 		InstanceObject {
+	/**
+	 * The path name of this object, computed on demand.
+	 * 
+	 * @see #getPathName()
+	 */
+	private volatile String pathName = null;
+
+	/**
+	 * The cached instance object path.
+	 */
+	private volatile CachedPath instanceObjectPath = null;
+
+	/**
+	 * The cached component instance path.
+	 */
+	private volatile CachedPath componentInstancePath = null;
+
 	/*
 	 * <!-- begin-user-doc --> <!-- end-user-doc -->
 	 * 
@@ -129,6 +148,18 @@ public abstract class InstanceObjectImpl extends NamedElementImpl implements
 		return (SystemInstance) eobj;
 	}
 
+	/**
+	 * Get the system operation mode index of the enclosing system instance.
+	 * 
+	 * @return the SOM index, or null if this object is not contained in a
+	 *         system instance
+	 */
+	public SystemOperationModeIndex getSystemOperationModeIndex() {
+		final SystemInstance si = getSystemInstance();
+		return (si instanceof SystemInstanceImpl) ? ((SystemInstanceImpl) si)
+				.getSystemOperationModeIndex() : null;
+	}
+
 	/*
 	 * construct a string path from the systeminstance as root
 	 * 
@@ -142,13 +173,52 @@ public abstract class InstanceObjectImpl extends NamedElementImpl implements
 				.getInstanceObjectPath();
 		final String localname = getPathName();
 
-		return path.length() == 0 ? localname : path + "." + localname;
+		CachedPath cached = instanceObjectPath;
+		if (cached == null || !cached.isFor(path, localname)) {
+			cached = new CachedPath(path, localname);
+			instanceObjectPath = cached;
+		}
+		return cached.path;
 	}
 
+	/**
+	 * Get the name of this object within its container. The result is cached
+	 * until the name of the object changes.
+	 * 
+	 * @see #computePathName()
+	 */
 	public String getPathName() {
+		String result = pathName;
+		if (result == null) {
+			result = computePathName();
+			pathName = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Compute the name of this object within its container.
+	 * 
+	 * @return the path name
+	 */
+	protected String computePathName() {
 		return getName();
 	}
 
+	/**
+	 * Drop the cached path name, must be called when a value used by
+	 * {@link #computePathName()} changes.
+	 */
+	protected void invalidatePathName() {
+		pathName = null;
+	}
+
+	@Override
+	public void setName(String newName) {
+		super.setName(newName);
+		invalidatePathName();
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -162,7 +232,38 @@ public abstract class InstanceObjectImpl extends NamedElementImpl implements
 				.getComponentInstancePath();
 		final String localname = getPathName();
 
-		return path.length() == 0 ? localname : path + "." + localname;
+		CachedPath cached = componentInstancePath;
+		if (cached == null || !cached.isFor(path, localname)) {
+			cached = new CachedPath(path, localname);
+			componentInstancePath = cached;
+		}
+		return cached.path;
+	}
+
+	/**
+	 * Look up the property value. If property value caching is enabled on
+	 * the system instance the result is taken from or added to the cache.
+	 * A cached result is shared by all callers and must not be modified.
+	 *
+	 * @see PropertyValueCache
+	 */
+	@Override
+	public PropertyAcc getPropertyValue(final Property property)
+			throws IllegalStateException, InvalidModelException,
+			PropertyDoesNotApplyToHolderException, IllegalArgumentException {
+		final SystemInstance si = getSystemInstance();
+		final PropertyValueCache cache = (si == null) ? null
+				: PropertyValueCache.getCache(si);
+		if (cache == null || property == null) {
+			return super.getPropertyValue(property);
+		}
+		final SystemOperationMode som = si.getCurrentSystemOperationMode();
+		PropertyAcc pas = cache.get(this, property, som);
+		if (pas == null) {
+			pas = super.getPropertyValue(property);
+			cache.put(this, property, som, pas);
+		}
+		return pas;
 	}
 
 	public final void getPropertyValueInternal(final Property property,
@@ -403,4 +504,29 @@ public abstract class InstanceObjectImpl extends NamedElementImpl implements
 	public boolean matchesIndex(List<ArrayRange> ranges) {
 		return false;
 	}
+
+	/*
+	 * A path together with the container path and path name it was built
+	 * from. The container's path is cached as well, so an unchanged path is
+	 * recognized by identity.
+	 */
+	private static final class CachedPath {
+		final String containerPath;
+
+		final String pathName;
+
+		final String path;
+
+		CachedPath(String containerPath, String pathName) {
+			this.containerPath = containerPath;
+			this.pathName = pathName;
+			path = containerPath.length() == 0 ? pathName : containerPath
+					+ "." + pathName;
+		}
+
+		boolean isFor(String containerPath, String pathName) {
+			return this.containerPath == containerPath
+					&& this.pathName == pathName;
+		}
+	}
 } // InstanceObjectImpl
@@ -35,12 +35,13 @@
  */
 package org.osate.aadl2.instance.impl;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 import org.eclipse.emf.common.notify.Notification;
@@ -59,14 +60,15 @@ import org.osate.aadl2.Connection;
 import org.osate.aadl2.SystemImplementation;
 import org.osate.aadl2.instance.ComponentInstance;
 import org.osate.aadl2.instance.ConnectionInstance;
-import org.osate.aadl2.instance.ConnectionInstanceEnd;
-import org.osate.aadl2.instance.ConnectionKind;
-import org.osate.aadl2.instance.ConnectionReference;
 import org.osate.aadl2.instance.FeatureInstance;
+import org.osate.aadl2.instance.InstanceObject;
 import org.osate.aadl2.instance.InstancePackage;
 import org.osate.aadl2.instance.ModeInstance;
 import org.osate.aadl2.instance.SystemInstance;
 import org.osate.aadl2.instance.SystemOperationMode;
+import org.osate.aadl2.instance.util.ConnectionInstanceIndex;
+import org.osate.aadl2.instance.util.InstancePathIndex;
+import org.osate.aadl2.instance.util.ModeContext;
 
 /**
  * <!-- begin-user-doc --> An implementation of the model object '
@@ -111,6 +113,19 @@ public class SystemInstanceImpl extends ComponentInstanceImpl implements
 	 */
 	private SystemOperationMode currentSOM = null;
 
+	/**
+	 * Dense numbering of the mode instances used for the mode bit sets of the
+	 * system operation modes. Numbers are assigned on demand and never reused.
+	 */
+	private final Map<ModeInstance, Integer> modeNumbers = new IdentityHashMap<ModeInstance, Integer>();
+
+	/**
+	 * Numbering of the system operation modes, created on demand.
+	 * 
+	 * @see #getSystemOperationModeIndex()
+	 */
+	private volatile SystemOperationModeIndex somIndex = null;
+
 	/**
 	 * <!-- begin-user-doc --> <!-- end-user-doc -->
 	 * @generated
@@ -130,13 +145,20 @@ public class SystemInstanceImpl extends ComponentInstanceImpl implements
 
 	/**
 	 * <!-- begin-user-doc --> <!-- end-user-doc -->
-	 * @generated
+	 * @generated NOT
 	 */
 	public EList<SystemOperationMode> getSystemOperationModes() {
 		if (systemOperationModes == null) {
 			systemOperationModes = new EObjectContainmentEList<SystemOperationMode>(
 					SystemOperationMode.class, this,
-					InstancePackage.SYSTEM_INSTANCE__SYSTEM_OPERATION_MODE);
+					InstancePackage.SYSTEM_INSTANCE__SYSTEM_OPERATION_MODE) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void didChange() {
+					invalidateSystemOperationModeIndex();
+				}
+			};
 		}
 		return systemOperationModes;
 	}
@@ -294,12 +316,56 @@ public class SystemInstanceImpl extends ComponentInstanceImpl implements
 	 */
 	public List<SystemOperationMode> getSystemOperationModesFor(
 			List<ModeInstance> mis) {
-		final List<SystemOperationMode> output = new ArrayList<SystemOperationMode>();
-		for (SystemOperationMode som : getSystemOperationModes()) {
-			if (som.getCurrentModes().containsAll(mis))
-				output.add(som);
+		final SystemOperationModeIndex index = getSystemOperationModeIndex();
+		return Collections.unmodifiableList(index.toList(index
+				.getSystemOperationModesWithAll(mis)));
+	}
+
+	/**
+	 * Get the number of a mode instance in the numbering used for the mode
+	 * bit sets of the system operation modes.
+	 * 
+	 * @param mi the mode instance
+	 * @param create whether to assign a number if the mode instance has none
+	 * @return the number of the mode instance, or -1 if it has no number and
+	 *         <code>create</code> is false
+	 */
+	public int getModeInstanceNumber(ModeInstance mi, boolean create) {
+		synchronized (modeNumbers) {
+			Integer n = modeNumbers.get(mi);
+			if (n == null) {
+				if (!create) {
+					return -1;
+				}
+				n = modeNumbers.size();
+				modeNumbers.put(mi, n);
+			}
+			return n;
+		}
+	}
+
+	@Override
+	public SystemOperationModeIndex getSystemOperationModeIndex() {
+		SystemOperationModeIndex index = somIndex;
+		if (index == null) {
+			synchronized (modeNumbers) {
+				index = somIndex;
+				if (index == null) {
+					index = new SystemOperationModeIndex(this);
+					somIndex = index;
+				}
+			}
 		}
-		return Collections.unmodifiableList(output);
+		return index;
+	}
+
+	/**
+	 * Drop the system operation mode index and the mode bit sets of the
+	 * instance objects that depend on it. Called when the system operation
+	 * modes or the modes of a component instance change.
+	 */
+	public void invalidateSystemOperationModeIndex() {
+		somIndex = null;
 	}
 
 	public void setCurrentSystemOperationMode(SystemOperationMode som) {
@@ -314,7 +380,8 @@ public class SystemInstanceImpl extends ComponentInstanceImpl implements
 	}
 
 	public SystemOperationMode getCurrentSystemOperationMode() {
-		return currentSOM;
+		final SystemOperationMode som = ModeContext.getCurrentSystemOperationMode(this);
+		return som != null ? som : currentSOM;
 	}
 
 	/**
@@ -346,23 +413,8 @@ public class SystemInstanceImpl extends ComponentInstanceImpl implements
 	 */
 	public ConnectionInstance findConnectionInstance(FeatureInstance srcFI,
 			FeatureInstance dstFI) {
-		EList<ConnectionInstance> subcl = getAllConnectionInstances();
-		for (Iterator<ConnectionInstance> it = subcl.iterator(); it.hasNext();) {
-			ConnectionInstance conni = it.next();
-
-			if (conni.getKind() == ConnectionKind.PORT_CONNECTION) {
-				ConnectionInstanceEnd srci = conni.getSource();
-				if (srci instanceof FeatureInstance) {
-					ConnectionInstanceEnd dsti = conni.getDestination();
-					if (dsti instanceof FeatureInstance) {
-						if (leadsOutof(conni, (FeatureInstance) srci, srcFI))
-							if (leadsOutof(conni, (FeatureInstance) dsti, dstFI))
-								return conni;
-					}
-				}
-			}
-		}
-		return null;
+		return ConnectionInstanceIndex.getIndex(this)
+				.findPortConnectionInstance(srcFI, dstFI);
 	}
 
 	/*
@@ -374,48 +426,8 @@ public class SystemInstanceImpl extends ComponentInstanceImpl implements
 	 */
 	public List<ConnectionInstance> findConnectionInstances(Connection first,
 			Connection second) {
-		List<ConnectionInstance> result = new LinkedList<ConnectionInstance>();
-
-		for (ConnectionInstance conni : getAllConnectionInstances()) {
-			boolean foundFirst = (first == second);
-
-			for (ConnectionReference connRef : conni.getConnectionReferences()) {
-				Connection conn = connRef.getConnection();
-
-				if (!foundFirst) {
-					foundFirst = (conn == first);
-				} else {
-					if (conn == second) {
-						result.add(conni);
-						break;
-					}
-				}
-			}
-		}
-		return result;
-	}
-
-	/**
-	 * Does the connection instance lead out of the flow specific feature
-	 * instance The connection may start in a subcomponent
-	 * 
-	 * @param conni ConnectionInstance
-	 * @param cfi FeatureInstance the source feature instance
-	 * @param ffi The feature instance involved in the flow
-	 * @return true if connection goes through the ffi
-	 */
-	private boolean leadsOutof(ConnectionInstance conni, FeatureInstance cfi,
-			FeatureInstance ffi) {
-		if (cfi == ffi)
-			return true;
-		ComponentInstance flowci = ffi.getContainingComponentInstance();
-		ComponentInstance connci = cfi.getContainingComponentInstance();
-		while (connci != null) {
-			if (flowci == connci)
-				return true;
-			connci = connci.getContainingComponentInstance();
-		}
-		return false;
+		return new LinkedList<ConnectionInstance>(ConnectionInstanceIndex
+				.getIndex(this).findConnectionInstances(first, second));
 	}
 
 	public final List<SystemOperationMode> getExistsInModes() {
@@ -431,20 +443,19 @@ public class SystemInstanceImpl extends ComponentInstanceImpl implements
 	 */
 	public List<SystemOperationMode> getSystemOperationModesFor(
 			final ModeInstance mi) {
-		final List<SystemOperationMode> output = new ArrayList<SystemOperationMode>();
-		for (final Iterator<SystemOperationMode> i = getSystemOperationModes()
-				.iterator(); i.hasNext();) {
-			final SystemOperationMode som = i.next();
-			if (som.getCurrentModes().contains(mi))
-				output.add(som);
-		}
-		return Collections.unmodifiableList(output);
+		final SystemOperationModeIndex index = getSystemOperationModeIndex();
+		return Collections.unmodifiableList(index.toList(index
+				.getSystemOperationModes(mi)));
 	}
 
 	public final List<SystemImplementation> getInstantiatedObjects() {
 		return Collections.singletonList(getSystemImplementation());
 	}
 
+	public InstanceObject findInstanceObject(String path) {
+		return InstancePathIndex.getIndex(this).get(path);
+	}
+
 	private SystemOperationMode initialMode = null;
 
 	public final SystemOperationMode getInitialSystemOperationMode() {
@@ -35,6 +35,7 @@
  */
 package org.osate.aadl2.instance.impl;
 
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Iterator;
 
@@ -77,6 +78,12 @@ public class SystemOperationModeImpl extends ModeImpl implements
 
 	private Boolean isInitial = null;
 
+	/**
+	 * The current modes as a bit set over the mode instance numbering of the
+	 * containing system instance, computed on demand.
+	 */
+	private volatile BitSet currentModeBits = null;
+
 	/**
 	 * <!-- begin-user-doc -->
 	 * <!-- end-user-doc -->
@@ -99,17 +106,65 @@ public class SystemOperationModeImpl extends ModeImpl implements
 	/**
 	 * <!-- begin-user-doc -->
 	 * <!-- end-user-doc -->
-	 * @generated
+	 * @generated NOT
 	 */
 	public EList<ModeInstance> getCurrentModes() {
 		if (currentModes == null) {
 			currentModes = new EObjectResolvingEList<ModeInstance>(
 					ModeInstance.class, this,
-					InstancePackage.SYSTEM_OPERATION_MODE__CURRENT_MODE);
+					InstancePackage.SYSTEM_OPERATION_MODE__CURRENT_MODE) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void didChange() {
+					currentModeBits = null;
+					if (eContainer() instanceof SystemInstanceImpl) {
+						((SystemInstanceImpl) eContainer())
+								.invalidateSystemOperationModeIndex();
+					}
+				}
+			};
 		}
 		return currentModes;
 	}
 
+	/**
+	 * Get the current modes as a bit set indexed by the mode instance numbers
+	 * of the containing system instance. The bit set must not be modified.
+	 * 
+	 * @return the mode bits, or null if this SOM is not contained in a system
+	 *         instance
+	 * @see SystemInstanceImpl#getModeInstanceNumber(ModeInstance, boolean)
+	 */
+	public BitSet getCurrentModeBits() {
+		BitSet bits = currentModeBits;
+		if (bits == null && eContainer() instanceof SystemInstanceImpl) {
+			final SystemInstanceImpl si = (SystemInstanceImpl) eContainer();
+			bits = new BitSet();
+			for (ModeInstance mi : getCurrentModes()) {
+				bits.set(si.getModeInstanceNumber(mi, true));
+			}
+			currentModeBits = bits;
+		}
+		return bits;
+	}
+
+	/**
+	 * Check if a mode instance is one of the current modes of this SOM.
+	 * 
+	 * @param mi the mode instance
+	 * @return whether the mode instance is a current mode
+	 */
+	public boolean containsModeInstance(ModeInstance mi) {
+		final BitSet bits = getCurrentModeBits();
+		if (bits == null) {
+			return getCurrentModes().contains(mi);
+		}
+		final int n = ((SystemInstanceImpl) eContainer())
+				.getModeInstanceNumber(mi, false);
+		return n >= 0 && bits.get(n);
+	}
+
 	/**
 	 * <!-- begin-user-doc -->
 	 * <!-- end-user-doc -->
@@ -0,0 +1,218 @@
+/*
+ * <copyright>
+ * Copyright  2004 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ *
+ * </copyright>
+ */
+package org.osate.aadl2.instance.impl;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.osate.aadl2.instance.ModeInstance;
+import org.osate.aadl2.instance.SystemOperationMode;
+
+/**
+ * Numbering of the system operation modes of a system instance. Sets of
+ * system operation modes are represented as bit sets over this numbering, so
+ * that mode membership tests become bit tests and mode filtering becomes a
+ * bitwise AND.
+ * <p>
+ * The index is obtained from
+ * {@link SystemInstanceImpl#getSystemOperationModeIndex()} and is dropped by
+ * the system instance when its system operation modes or the modes of a
+ * component instance change. The bit sets returned by the index are copies
+ * that can be modified by the caller.
+ */
+public final class SystemOperationModeIndex {
+
+	private final SystemInstanceImpl systemInstance;
+
+	private final List<SystemOperationMode> soms;
+
+	private final Map<SystemOperationMode, Integer> numbers;
+
+	/*
+	 * SOMs that contain a mode instance, indexed by the number of the mode
+	 * instance
+	 */
+	private final List<BitSet> somsByMode = new ArrayList<BitSet>();
+
+	private final BitSet all;
+
+	SystemOperationModeIndex(final SystemInstanceImpl si) {
+		systemInstance = si;
+		soms = new ArrayList<SystemOperationMode>(si.getSystemOperationModes());
+		numbers = new IdentityHashMap<SystemOperationMode, Integer>(soms.size());
+		all = new BitSet(soms.size());
+		all.set(0, soms.size());
+		for (int i = 0; i < soms.size(); i++) {
+			final SystemOperationModeImpl som = (SystemOperationModeImpl) soms.get(i);
+			numbers.put(som, i);
+			final BitSet modes = som.getCurrentModeBits();
+			for (int m = modes.nextSetBit(0); m >= 0; m = modes.nextSetBit(m + 1)) {
+				while (somsByMode.size() <= m) {
+					somsByMode.add(null);
+				}
+				BitSet bits = somsByMode.get(m);
+				if (bits == null) {
+					bits = new BitSet(soms.size());
+					somsByMode.set(m, bits);
+				}
+				bits.set(i);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of system operation modes
+	 */
+	public int size() {
+		return soms.size();
+	}
+
+	/**
+	 * Get the number of a system operation mode.
+	 * 
+	 * @param som the system operation mode
+	 * @return the position of the SOM in the system instance, or -1 if the SOM
+	 *         does not belong to the system instance
+	 */
+	public int getNumber(final SystemOperationMode som) {
+		final Integer n = numbers.get(som);
+		return n == null ? -1 : n;
+	}
+
+	/**
+	 * @param n the number of a system operation mode
+	 * @return the system operation mode with the given number
+	 */
+	public SystemOperationMode get(final int n) {
+		return soms.get(n);
+	}
+
+	/**
+	 * @return the set of all system operation modes
+	 */
+	public BitSet getAll() {
+		return (BitSet) all.clone();
+	}
+
+	/**
+	 * Get the system operation modes that contain a mode instance.
+	 * 
+	 * @param mi the mode instance
+	 * @return the SOMs that contain the mode instance
+	 */
+	public BitSet getSystemOperationModes(final ModeInstance mi) {
+		final BitSet bits = lookup(mi);
+		return bits == null ? new BitSet(soms.size()) : (BitSet) bits.clone();
+	}
+
+	/**
+	 * Get the system operation modes that contain at least one of the given
+	 * mode instances.
+	 * 
+	 * @param mis the mode instances
+	 * @return the SOMs that contain one of the mode instances
+	 */
+	public BitSet getSystemOperationModesWithAny(final Collection<? extends ModeInstance> mis) {
+		final BitSet result = new BitSet(soms.size());
+		for (ModeInstance mi : mis) {
+			final BitSet bits = lookup(mi);
+			if (bits != null) {
+				result.or(bits);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Get the system operation modes that contain all of the given mode
+	 * instances.
+	 * 
+	 * @param mis the mode instances
+	 * @return the SOMs that contain all mode instances
+	 */
+	public BitSet getSystemOperationModesWithAll(final Collection<? extends ModeInstance> mis) {
+		final BitSet result = getAll();
+		for (ModeInstance mi : mis) {
+			final BitSet bits = lookup(mi);
+			if (bits == null) {
+				result.clear();
+				break;
+			}
+			result.and(bits);
+		}
+		return result;
+	}
+
+	/**
+	 * Convert a collection of system operation modes to a bit set. SOMs that
+	 * do not belong to the system instance are ignored.
+	 * 
+	 * @param somList the system operation modes
+	 * @return the bit set of the SOMs
+	 */
+	public BitSet toBits(final Collection<? extends SystemOperationMode> somList) {
+		final BitSet result = new BitSet(soms.size());
+		for (SystemOperationMode som : somList) {
+			final Integer n = numbers.get(som);
+			if (n != null) {
+				result.set(n);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Convert a bit set of system operation modes to a list.
+	 * 
+	 * @param bits the bit set
+	 * @return the SOMs in the order of the system instance
+	 */
+	public List<SystemOperationMode> toList(final BitSet bits) {
+		final List<SystemOperationMode> result = new ArrayList<SystemOperationMode>(bits.cardinality());
+		for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+			result.add(soms.get(i));
+		}
+		return result;
+	}
+
+	private BitSet lookup(final ModeInstance mi) {
+		final int m = systemInstance.getModeInstanceNumber(mi, false);
+		return (m < 0 || m >= somsByMode.size()) ? null : somsByMode.get(m);
+	}
+}
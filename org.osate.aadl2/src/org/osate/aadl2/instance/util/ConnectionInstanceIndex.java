@@ -0,0 +1,470 @@
+/*
+ * <copyright>
+ * Copyright  2004 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ *
+ * </copyright>
+ */
+package org.osate.aadl2.instance.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.osate.aadl2.Connection;
+import org.osate.aadl2.instance.ComponentInstance;
+import org.osate.aadl2.instance.ConnectionInstance;
+import org.osate.aadl2.instance.ConnectionInstanceEnd;
+import org.osate.aadl2.instance.ConnectionKind;
+import org.osate.aadl2.instance.ConnectionReference;
+import org.osate.aadl2.instance.FeatureInstance;
+import org.osate.aadl2.instance.InstanceObject;
+import org.osate.aadl2.instance.InstancePackage;
+import org.osate.aadl2.instance.SystemInstance;
+
+/**
+ * Index of the connection instances of a system instance by their source
+ * end, destination end and the connections they are made of. The index
+ * backs the connection instance queries of system and component instances
+ * so that they only look at the connection instances that can match.
+ * <p>
+ * The index is attached to the system instance as an adapter when it is
+ * first used. It is rebuilt on demand after instance objects have been
+ * added or removed, or the ends, kind or connection references of a
+ * connection instance have changed. Attaching the index adds it to every
+ * instance object of the instance model, so it must be attached
+ * before several threads read the model, see
+ * <code>org.osate.aadl2.modelsupport.modeltraversal.ParallelSOMProcessor</code>.
+ */
+public class ConnectionInstanceIndex extends EContentAdapter {
+
+	/*
+	 * position of each connection instance in getAllConnectionInstances()
+	 */
+	private final Map<ConnectionInstance, Integer> positions = new IdentityHashMap<ConnectionInstance, Integer>();
+
+	private final Map<ConnectionInstanceEnd, List<ConnectionInstance>> bySource = new IdentityHashMap<ConnectionInstanceEnd, List<ConnectionInstance>>();
+
+	private final Map<ConnectionInstanceEnd, List<ConnectionInstance>> byDestination = new IdentityHashMap<ConnectionInstanceEnd, List<ConnectionInstance>>();
+
+	/*
+	 * connection instances by the connections of their connection references
+	 * and the connections these refine
+	 */
+	private final Map<Connection, List<ConnectionInstance>> byConnection = new IdentityHashMap<Connection, List<ConnectionInstance>>();
+
+	/*
+	 * port connection instances between features by the components that
+	 * contain the source or destination feature directly or indirectly
+	 */
+	private final Map<ComponentInstance, List<ConnectionInstance>> bySourceComponent = new IdentityHashMap<ComponentInstance, List<ConnectionInstance>>();
+
+	private final Map<ComponentInstance, List<ConnectionInstance>> byDestinationComponent = new IdentityHashMap<ComponentInstance, List<ConnectionInstance>>();
+
+	private boolean valid = false;
+
+	private ConnectionInstanceIndex() {
+	}
+
+	/**
+	 * Get the connection instance index of the given system instance,
+	 * creating it if necessary. Synchronized on the system instance.
+	 * 
+	 * @param si the system instance
+	 * @return the index attached to the system instance
+	 */
+	public static ConnectionInstanceIndex getIndex(SystemInstance si) {
+		synchronized (si) {
+			ConnectionInstanceIndex index = (ConnectionInstanceIndex) EcoreUtil
+					.getExistingAdapter(si, ConnectionInstanceIndex.class);
+			if (index == null) {
+				index = new ConnectionInstanceIndex();
+				si.eAdapters().add(index);
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Remove the connection instance index from the given system instance.
+	 * 
+	 * @param si the system instance
+	 */
+	public static void remove(SystemInstance si) {
+		synchronized (si) {
+			ConnectionInstanceIndex index = (ConnectionInstanceIndex) EcoreUtil
+					.getExistingAdapter(si, ConnectionInstanceIndex.class);
+			if (index != null) {
+				si.eAdapters().remove(index);
+				index.clear();
+			}
+		}
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == ConnectionInstanceIndex.class;
+	}
+
+	/**
+	 * Get the connection instances that start at the given end.
+	 * 
+	 * @param src the source end
+	 * @return the connection instances in model order
+	 */
+	public synchronized List<ConnectionInstance> getConnectionInstancesFrom(
+			ConnectionInstanceEnd src) {
+		validate();
+		return unmodifiable(bySource.get(src));
+	}
+
+	/**
+	 * Get the connection instances that end at the given end.
+	 * 
+	 * @param dst the destination end
+	 * @return the connection instances in model order
+	 */
+	public synchronized List<ConnectionInstance> getConnectionInstancesTo(
+			ConnectionInstanceEnd dst) {
+		validate();
+		return unmodifiable(byDestination.get(dst));
+	}
+
+	/**
+	 * Get the connection instances that are made of the given connection or
+	 * a refinement of it.
+	 * 
+	 * @param conn the connection
+	 * @return the connection instances in model order
+	 */
+	public synchronized List<ConnectionInstance> getConnectionInstancesOf(
+			Connection conn) {
+		validate();
+		return unmodifiable(byConnection.get(conn));
+	}
+
+	/**
+	 * Find the port connection instance between two features. A connection
+	 * instance matches if its source feature is the given source feature or
+	 * belongs to the component of the source feature or one of its
+	 * subcomponents, and the same holds for the destination.
+	 * 
+	 * @param srcFI the source feature instance
+	 * @param dstFI the destination feature instance
+	 * @return the first matching connection instance, or null
+	 */
+	public synchronized ConnectionInstance findPortConnectionInstance(
+			FeatureInstance srcFI, FeatureInstance dstFI) {
+		validate();
+		final List<ConnectionInstance> fromSrc = bySourceComponent.get(srcFI
+				.getContainingComponentInstance());
+		final List<ConnectionInstance> toDst = byDestinationComponent
+				.get(dstFI.getContainingComponentInstance());
+		if (fromSrc == null || toDst == null) {
+			return null;
+		}
+		if (fromSrc.size() <= toDst.size()) {
+			for (ConnectionInstance conni : fromSrc) {
+				if (leadsOutof((FeatureInstance) conni.getDestination(), dstFI)) {
+					return conni;
+				}
+			}
+		} else {
+			for (ConnectionInstance conni : toDst) {
+				if (leadsOutof((FeatureInstance) conni.getSource(), srcFI)) {
+					return conni;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Find the connection instance between two instance objects that is
+	 * declared in the component of the source or one of its containers. If
+	 * there is more than one, the one declared in the innermost component is
+	 * returned.
+	 * 
+	 * @param src the source end
+	 * @param dst the destination end
+	 * @return the connection instance, or null
+	 */
+	public synchronized ConnectionInstance findConnectionInstance(
+			InstanceObject src, InstanceObject dst) {
+		validate();
+		final List<ConnectionInstance> candidates = bySource.get(src);
+		if (candidates == null) {
+			return null;
+		}
+		ConnectionInstance result = null;
+		int resultDepth = Integer.MAX_VALUE;
+		for (ConnectionInstance conni : candidates) {
+			if (conni.getDestination() == dst) {
+				final int depth = enclosingDepth(src, conni);
+				if (depth >= 0 && depth < resultDepth) {
+					result = conni;
+					resultDepth = depth;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Get the connection instances that pass through connection
+	 * <code>first</code> and later through connection <code>second</code>.
+	 * If both are the same, the connection instances that pass through the
+	 * connection are returned.
+	 * 
+	 * @param first the first connection
+	 * @param second the second connection
+	 * @return the connection instances in model order
+	 */
+	public synchronized List<ConnectionInstance> findConnectionInstances(
+			Connection first, Connection second) {
+		validate();
+		final List<ConnectionInstance> result = new ArrayList<ConnectionInstance>();
+		final List<ConnectionInstance> candidates = byConnection.get(second);
+		if (candidates != null) {
+			for (ConnectionInstance conni : candidates) {
+				boolean foundFirst = (first == second);
+
+				for (ConnectionReference connRef : conni
+						.getConnectionReferences()) {
+					final Connection conn = connRef.getConnection();
+
+					if (!foundFirst) {
+						foundFirst = (conn == first);
+					} else if (conn == second) {
+						result.add(conni);
+						break;
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Get the connection instances that are made of a connection that is the
+	 * same as the given connection or a refinement of it, or is refined by
+	 * it.
+	 * 
+	 * @param conn the connection
+	 * @return the candidate connection instances in model order
+	 */
+	public synchronized List<ConnectionInstance> getConnectionInstancesOfRefinements(
+			Connection conn) {
+		validate();
+		final Map<ConnectionInstance, Integer> found = new IdentityHashMap<ConnectionInstance, Integer>();
+		for (Connection c = conn; c != null; c = c.getRefined()) {
+			final List<ConnectionInstance> connis = byConnection.get(c);
+			if (connis != null) {
+				for (ConnectionInstance conni : connis) {
+					found.put(conni, positions.get(conni));
+				}
+			}
+		}
+		return sorted(found);
+	}
+
+	/**
+	 * Drop the index. It is rebuilt on the next query.
+	 */
+	public synchronized void clear() {
+		positions.clear();
+		bySource.clear();
+		byDestination.clear();
+		byConnection.clear();
+		bySourceComponent.clear();
+		byDestinationComponent.clear();
+		valid = false;
+	}
+
+	private void validate() {
+		if (valid) {
+			return;
+		}
+		final SystemInstance si = (SystemInstance) getTarget();
+		clear();
+		int pos = 0;
+		for (ConnectionInstance conni : si.getAllConnectionInstances()) {
+			if (positions.containsKey(conni)) {
+				continue;
+			}
+			positions.put(conni, pos++);
+			put(bySource, conni.getSource(), conni);
+			put(byDestination, conni.getDestination(), conni);
+			for (ConnectionReference connRef : conni.getConnectionReferences()) {
+				for (Connection c = connRef.getConnection(); c != null; c = c
+						.getRefined()) {
+					final List<ConnectionInstance> connis = byConnection.get(c);
+					if (connis == null || connis.get(connis.size() - 1) != conni) {
+						put(byConnection, c, conni);
+					}
+				}
+			}
+			if (conni.getKind() == ConnectionKind.PORT_CONNECTION
+					&& conni.getSource() instanceof FeatureInstance
+					&& conni.getDestination() instanceof FeatureInstance) {
+				for (ComponentInstance ci = conni.getSource()
+						.getContainingComponentInstance(); ci != null; ci = ci
+						.getContainingComponentInstance()) {
+					put(bySourceComponent, ci, conni);
+				}
+				for (ComponentInstance ci = conni.getDestination()
+						.getContainingComponentInstance(); ci != null; ci = ci
+						.getContainingComponentInstance()) {
+					put(byDestinationComponent, ci, conni);
+				}
+			}
+		}
+		valid = true;
+	}
+
+	private static <K> void put(Map<K, List<ConnectionInstance>> map, K key,
+			ConnectionInstance conni) {
+		if (key == null) {
+			return;
+		}
+		List<ConnectionInstance> connis = map.get(key);
+		if (connis == null) {
+			connis = new ArrayList<ConnectionInstance>(2);
+			map.put(key, connis);
+		}
+		connis.add(conni);
+	}
+
+	private static List<ConnectionInstance> unmodifiable(
+			List<ConnectionInstance> connis) {
+		if (connis == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(connis);
+	}
+
+	private static List<ConnectionInstance> sorted(
+			final Map<ConnectionInstance, Integer> found) {
+		final List<ConnectionInstance> result = new ArrayList<ConnectionInstance>(
+				found.keySet());
+		if (result.size() > 1) {
+			Collections.sort(result, new Comparator<ConnectionInstance>() {
+				public int compare(ConnectionInstance c1, ConnectionInstance c2) {
+					return found.get(c1) - found.get(c2);
+				}
+			});
+		}
+		return result;
+	}
+
+	/*
+	 * Is the feature instance the flow feature or does it belong to the
+	 * component of the flow feature or one of its subcomponents?
+	 */
+	private static boolean leadsOutof(FeatureInstance cfi, FeatureInstance ffi) {
+		if (cfi == ffi)
+			return true;
+		ComponentInstance flowci = ffi.getContainingComponentInstance();
+		ComponentInstance connci = cfi.getContainingComponentInstance();
+		while (connci != null) {
+			if (flowci == connci)
+				return true;
+			connci = connci.getContainingComponentInstance();
+		}
+		return false;
+	}
+
+	/*
+	 * Distance from the component of the instance object to the component
+	 * that contains the connection instance, or -1 if the connection
+	 * instance is not declared in an enclosing component.
+	 */
+	private static int enclosingDepth(InstanceObject io,
+			ConnectionInstance conni) {
+		final Object container = conni.eContainer();
+		ComponentInstance head = io instanceof ComponentInstance ? (ComponentInstance) io
+				: io.getContainingComponentInstance();
+		int depth = 0;
+		while (head != null) {
+			if (head == container) {
+				return depth;
+			}
+			head = head.getContainingComponentInstance();
+			depth += 1;
+		}
+		return -1;
+	}
+
+	/**
+	 * Only instance objects are adapted, the index does not depend on the
+	 * property associations and other contents of the instance model.
+	 */
+	@Override
+	protected void addAdapter(Notifier notifier) {
+		if (notifier instanceof InstanceObject) {
+			super.addAdapter(notifier);
+		}
+	}
+
+	/**
+	 * Drop the index when instance objects are added or removed, or the
+	 * ends, kind or connection references of a connection instance change.
+	 */
+	@Override
+	public void notifyChanged(Notification notification) {
+		super.notifyChanged(notification);
+		if (notification.isTouch()
+				|| notification.getEventType() == Notification.REMOVING_ADAPTER
+				|| notification.getEventType() == Notification.RESOLVE
+				|| !(notification.getNotifier() instanceof InstanceObject)) {
+			return;
+		}
+		final Object feature = notification.getFeature();
+		if (feature == InstancePackage.Literals.CONNECTION_INSTANCE__SOURCE
+				|| feature == InstancePackage.Literals.CONNECTION_INSTANCE__DESTINATION
+				|| feature == InstancePackage.Literals.CONNECTION_INSTANCE__KIND
+				|| feature == InstancePackage.Literals.CONNECTION_INSTANCE__CONNECTION_REFERENCE
+				|| feature == InstancePackage.Literals.CONNECTION_REFERENCE__CONNECTION
+				|| (feature instanceof EReference
+						&& ((EReference) feature).isContainment() && InstancePackage.Literals.INSTANCE_OBJECT
+						.isSuperTypeOf(((EReference) feature)
+								.getEReferenceType()))) {
+			clear();
+		}
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * <copyright>
+ * Copyright  2004 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ *
+ * </copyright>
+ */
+package org.osate.aadl2.instance.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.osate.aadl2.Aadl2Package;
+import org.osate.aadl2.instance.InstanceObject;
+import org.osate.aadl2.instance.InstancePackage;
+import org.osate.aadl2.instance.SystemInstance;
+
+/**
+ * Index of the instance objects of a system instance by their instance
+ * object path, e.g., <code>top_i_Instance.sub[2].port</code>. Array indices
+ * are part of the path. Paths are compared ignoring case, as AADL names.
+ * <p>
+ * The index is attached to the system instance as an adapter when it is
+ * first used and is rebuilt on demand after instance objects have been
+ * added, removed or renamed. The adapter is only attached to instance
+ * objects, so changes to property associations, e.g., when property values
+ * are cached, do not affect it. As it is added to every instance object, it
+ * must be attached before several threads read the model, see
+ * <code>org.osate.aadl2.modelsupport.modeltraversal.ParallelSOMProcessor</code>.
+ * 
+ * @see SystemInstance#findInstanceObject(String)
+ */
+public class InstancePathIndex extends EContentAdapter {
+
+	private final Map<String, InstanceObject> objects = new HashMap<String, InstanceObject>();
+
+	private boolean valid = false;
+
+	private InstancePathIndex() {
+	}
+
+	/**
+	 * Get the path index of the given system instance, creating it if
+	 * necessary. Synchronized on the system instance.
+	 * 
+	 * @param si the system instance
+	 * @return the path index attached to the system instance
+	 */
+	public static InstancePathIndex getIndex(SystemInstance si) {
+		synchronized (si) {
+			InstancePathIndex index = (InstancePathIndex) EcoreUtil
+					.getExistingAdapter(si, InstancePathIndex.class);
+			if (index == null) {
+				index = new InstancePathIndex();
+				si.eAdapters().add(index);
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Remove the path index from the given system instance.
+	 * 
+	 * @param si the system instance
+	 */
+	public static void remove(SystemInstance si) {
+		synchronized (si) {
+			InstancePathIndex index = (InstancePathIndex) EcoreUtil
+					.getExistingAdapter(si, InstancePathIndex.class);
+			if (index != null) {
+				si.eAdapters().remove(index);
+				index.clear();
+			}
+		}
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == InstancePathIndex.class;
+	}
+
+	/**
+	 * Find an instance object by its path. The path may start with the name
+	 * of the system instance, as returned by
+	 * {@link InstanceObject#getInstanceObjectPath()}, or be relative to the
+	 * system instance, as returned by
+	 * {@link InstanceObject#getComponentInstancePath()}.
+	 * 
+	 * @param path the path of the instance object
+	 * @return the instance object or null if there is none with the path
+	 */
+	public synchronized InstanceObject get(String path) {
+		final SystemInstance si = (SystemInstance) getTarget();
+		if (si == null || si.getName() == null || path == null) {
+			return null;
+		}
+		if (!valid) {
+			build(si);
+		}
+		final String key = path.toLowerCase();
+		InstanceObject io = objects.get(key);
+		if (io == null) {
+			io = objects.get(si.getName().toLowerCase() + "." + key);
+		}
+		return io;
+	}
+
+	/**
+	 * Drop the index. It is rebuilt on the next lookup.
+	 */
+	public synchronized void clear() {
+		objects.clear();
+		valid = false;
+	}
+
+	/**
+	 * @return the number of indexed instance objects
+	 */
+	public synchronized int size() {
+		return objects.size();
+	}
+
+	private void build(SystemInstance si) {
+		objects.clear();
+		objects.put(si.getName().toLowerCase(), si);
+		final TreeIterator<EObject> iter = si.eAllContents();
+		while (iter.hasNext()) {
+			final EObject eo = iter.next();
+			if (eo instanceof InstanceObject) {
+				final InstanceObject io = (InstanceObject) eo;
+				if (io.getName() != null) {
+					final String key = io.getInstanceObjectPath().toLowerCase();
+					if (!objects.containsKey(key)) {
+						objects.put(key, io);
+					}
+				}
+			} else {
+				// property associations and their values
+				iter.prune();
+			}
+		}
+		valid = true;
+	}
+
+	/**
+	 * Only the instance objects are adapted, not their property associations
+	 * and values.
+	 */
+	@Override
+	protected void addAdapter(Notifier notifier) {
+		if (notifier instanceof InstanceObject) {
+			super.addAdapter(notifier);
+		}
+	}
+
+	/**
+	 * Drop the index when instance objects are added, removed or renamed,
+	 * or their array index changes.
+	 */
+	@Override
+	public void notifyChanged(Notification notification) {
+		super.notifyChanged(notification);
+		if (notification.isTouch() || !(notification.getNotifier() instanceof InstanceObject)) {
+			return;
+		}
+		final Object feature = notification.getFeature();
+		if (feature == Aadl2Package.Literals.NAMED_ELEMENT__NAME
+				|| feature == InstancePackage.Literals.COMPONENT_INSTANCE__INDEX
+				|| feature == InstancePackage.Literals.FEATURE_INSTANCE__INDEX
+				|| (feature instanceof EReference && ((EReference) feature).isContainment() && InstancePackage.Literals.INSTANCE_OBJECT
+						.isSuperTypeOf(((EReference) feature).getEReferenceType()))) {
+			clear();
+		}
+	}
+}
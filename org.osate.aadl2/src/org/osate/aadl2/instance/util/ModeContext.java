@@ -0,0 +1,172 @@
+/*
+ * <copyright>
+ * Copyright  2004 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ *
+ * </copyright>
+ */
+package org.osate.aadl2.instance.util;
+
+import org.osate.aadl2.instance.ComponentInstance;
+import org.osate.aadl2.instance.InstanceObject;
+import org.osate.aadl2.instance.ModeInstance;
+import org.osate.aadl2.instance.SystemInstance;
+import org.osate.aadl2.instance.SystemOperationMode;
+import org.osate.aadl2.instance.impl.SystemOperationModeImpl;
+
+/**
+ * The system operation mode an analysis is working in. Unlike
+ * {@link SystemInstance#setCurrentSystemOperationMode(SystemOperationMode)}
+ * a mode context does not modify the instance model, so analyses can work in
+ * different system operation modes of the same system instance at the same
+ * time, each on its own thread.
+ * <p>
+ * Analyses should pass the mode context explicitly and use its methods to
+ * check if instance objects are active. A mode context can also be bound to
+ * the current thread with {@link #run(Runnable)}. While it is bound,
+ * {@link SystemInstance#getCurrentSystemOperationMode()} returns the system
+ * operation mode of the context on that thread, so that modal property
+ * lookups see the mode of the context, and
+ * {@link ComponentInstance#getCurrentMode()} returns
+ * {@link #getCurrentMode(ComponentInstance)}. Other threads are not affected.
+ * 
+ * @see org.osate.aadl2.modelsupport.modeltraversal.SOMIterator
+ */
+public final class ModeContext {
+
+	private static final ThreadLocal<ModeContext> current = new ThreadLocal<ModeContext>();
+
+	private final SystemInstance root;
+
+	private final SystemOperationMode som;
+
+	/**
+	 * Create a mode context.
+	 * 
+	 * @param root the system instance
+	 * @param som the system operation mode, <code>null</code> for no
+	 *            particular mode
+	 */
+	public ModeContext(final SystemInstance root, final SystemOperationMode som) {
+		this.root = root;
+		this.som = som;
+	}
+
+	/**
+	 * Get the mode context bound to the current thread.
+	 * 
+	 * @return the mode context or <code>null</code> if none is bound
+	 */
+	public static ModeContext getCurrent() {
+		return current.get();
+	}
+
+	/**
+	 * Get the system operation mode of the given system instance on the
+	 * current thread.
+	 * 
+	 * @param si the system instance
+	 * @return the system operation mode of the mode context bound to the
+	 *         current thread if it belongs to the system instance, otherwise
+	 *         <code>null</code>
+	 */
+	public static SystemOperationMode getCurrentSystemOperationMode(final SystemInstance si) {
+		final ModeContext ctx = current.get();
+		return (ctx != null && ctx.root == si) ? ctx.som : null;
+	}
+
+	public SystemInstance getSystemInstance() {
+		return root;
+	}
+
+	public SystemOperationMode getSystemOperationMode() {
+		return som;
+	}
+
+	/**
+	 * Check if an instance object is active in the system operation mode of
+	 * this context. All objects are active if there is no system operation
+	 * mode.
+	 * 
+	 * @param io the instance object
+	 * @return whether the instance object is active
+	 */
+	public boolean isActive(final InstanceObject io) {
+		return som == null || io.isActive(som);
+	}
+
+	/**
+	 * Get the current mode of a component instance in the system operation
+	 * mode of this context. This is the mode that
+	 * {@link SystemInstance#setCurrentSystemOperationMode(SystemOperationMode)}
+	 * would set on the component instance.
+	 * 
+	 * @param ci the component instance
+	 * @return the current mode or <code>null</code> if the component instance
+	 *         is not modal or there is no system operation mode
+	 */
+	public ModeInstance getCurrentMode(final ComponentInstance ci) {
+		if (som == null) {
+			return null;
+		}
+		for (final ModeInstance mi : ci.getModeInstances()) {
+			if (som instanceof SystemOperationModeImpl ? ((SystemOperationModeImpl) som).containsModeInstance(mi)
+					: som.getCurrentModes().contains(mi)) {
+				return mi;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Run the given runnable with this mode context bound to the current
+	 * thread. The previously bound context is restored afterwards.
+	 * 
+	 * @param runnable the code to run
+	 */
+	public void run(final Runnable runnable) {
+		final ModeContext previous = current.get();
+		current.set(this);
+		try {
+			runnable.run();
+		} finally {
+			if (previous == null) {
+				current.remove();
+			} else {
+				current.set(previous);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return som == null ? "no mode" : som.getName();
+	}
+}
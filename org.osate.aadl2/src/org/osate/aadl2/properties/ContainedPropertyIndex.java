@@ -0,0 +1,104 @@
+/*
+ * <copyright>
+ * Copyright  2010 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ * </copyright>
+ */
+package org.osate.aadl2.properties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.osate.aadl2.ContainedNamedElement;
+import org.osate.aadl2.ContainmentPathElement;
+import org.osate.aadl2.NamedElement;
+import org.osate.aadl2.PropertyAssociation;
+
+/**
+ * Index of the contained property associations of containers whose applies
+ * to path has length 1, by the target of the path. An index is created for
+ * one instantiation and passed to property lookups in the
+ * {@link EvaluationContext}. Changes to the declarative model are not
+ * tracked, so an index must not be used after the declarative model has
+ * been edited. It can be used by several threads at the same time.
+ * 
+ * @see PropertyAcc#addLocalContained(NamedElement, NamedElement)
+ */
+public class ContainedPropertyIndex {
+
+	private final ConcurrentHashMap<NamedElement, Map<NamedElement, List<PropertyAssociation>>> index = new ConcurrentHashMap<NamedElement, Map<NamedElement, List<PropertyAssociation>>>();
+
+	/**
+	 * Get the contained property associations of a container that apply to
+	 * a single target.
+	 * 
+	 * @param container the container of the property associations
+	 * @param target the target of the applies to paths
+	 * @return the property associations in declaration order
+	 */
+	public List<PropertyAssociation> get(final NamedElement container, final NamedElement target) {
+		final List<PropertyAssociation> pas = getContainerIndex(container).get(target);
+		return (pas == null) ? Collections.<PropertyAssociation> emptyList() : pas;
+	}
+
+	private Map<NamedElement, List<PropertyAssociation>> getContainerIndex(final NamedElement container) {
+		Map<NamedElement, List<PropertyAssociation>> targets = index.get(container);
+
+		if (targets == null) {
+			targets = new HashMap<NamedElement, List<PropertyAssociation>>();
+			for (PropertyAssociation pa : container.getOwnedPropertyAssociations()) {
+				for (ContainedNamedElement cne : pa.getAppliesTos()) {
+					List<ContainmentPathElement> cpes = cne.getContainmentPathElements();
+					if (cpes.size() == 1) {
+						NamedElement target = cpes.get(0).getNamedElement();
+						List<PropertyAssociation> pas = targets.get(target);
+
+						if (pas == null) {
+							pas = new ArrayList<PropertyAssociation>(1);
+							targets.put(target, pas);
+						}
+						if (pas.isEmpty() || pas.get(pas.size() - 1) != pa) {
+							pas.add(pa);
+						}
+					}
+				}
+			}
+			final Map<NamedElement, List<PropertyAssociation>> existing = index.putIfAbsent(container, targets);
+			if (existing != null) {
+				targets = existing;
+			}
+		}
+		return targets;
+	}
+}
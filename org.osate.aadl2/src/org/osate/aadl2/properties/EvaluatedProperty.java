@@ -33,8 +33,8 @@
  */
 package org.osate.aadl2.properties;
 
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.osate.aadl2.Aadl2Factory;
@@ -95,7 +95,7 @@ public class EvaluatedProperty {
 	private List<MpvProxy> mpvList;
 	
 	public EvaluatedProperty() {
-		mpvList = new LinkedList<MpvProxy> ();
+		mpvList = new ArrayList<MpvProxy>(2);
 	}
 	
 //	public EvaluatedProperty(ModalPropertyValue mpv) {
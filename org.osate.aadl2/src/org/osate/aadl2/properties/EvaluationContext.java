@@ -51,6 +51,8 @@ public class EvaluationContext {
 
 	private PropertyAssociation scProp;
 
+	private ContainedPropertyIndex containedIndex;
+
 	public EvaluationContext(InstanceObject io,
 			HashMap<InstanceObject, InstanceUtil.InstantiatedClassifier> classifierCache) {
 		this.io = io;
@@ -63,6 +65,24 @@ public class EvaluationContext {
 		this.scProp = scProp;
 	}
 
+	/**
+	 * Create a context whose lookups use the given index of contained
+	 * property associations.
+	 */
+	public EvaluationContext(InstanceObject io,
+			HashMap<InstanceObject, InstanceUtil.InstantiatedClassifier> classifierCache,
+			ContainedPropertyIndex containedIndex) {
+		this(io, classifierCache);
+		this.containedIndex = containedIndex;
+	}
+
+	public EvaluationContext(InstanceObject io,
+			HashMap<InstanceObject, InstanceUtil.InstantiatedClassifier> classifierCache, PropertyAssociation scProp,
+			ContainedPropertyIndex containedIndex) {
+		this(io, classifierCache, scProp);
+		this.containedIndex = containedIndex;
+	}
+
 	/**
 	 * @return the io
 	 */
@@ -81,4 +101,12 @@ public class EvaluationContext {
 		return scProp;
 	}
 
+	/**
+	 * @return the index of contained property associations, or null if
+	 *         lookups search the declarative model
+	 */
+	public ContainedPropertyIndex getContainedIndex() {
+		return containedIndex;
+	}
+
 }
@@ -52,9 +52,28 @@ public class PropertyAcc {
 	private final Property property;
 	private final List<PropertyAssociation> assocs = new LinkedList<PropertyAssociation>();
 
+	/*
+	 * Index of the contained property associations, null to search the
+	 * property associations of the container
+	 */
+	private final ContainedPropertyIndex containedIndex;
+
 	public PropertyAcc (final Property property) 
+	{
+		this(property, null);
+	}
+
+	/**
+	 * Create an accumulator that uses the given index for
+	 * {@link #addLocalContained(NamedElement, NamedElement)}.
+	 * 
+	 * @param property the property that is looked up
+	 * @param containedIndex the index, may be null
+	 */
+	public PropertyAcc (final Property property, final ContainedPropertyIndex containedIndex) 
 	{
 		this.property = property;
+		this.containedIndex = containedIndex;
 	}
 
 	public boolean add(PropertyAssociation pa) {
@@ -104,6 +123,18 @@ public class PropertyAcc {
 	 */
 	public boolean addLocalContained(NamedElement target, NamedElement container) 
 	{
+		if (containedIndex != null) 
+		{
+			for (PropertyAssociation pa : containedIndex.get(container, target)) 
+			{
+				if (pa.getProperty().equals(property)) 
+				{
+					assocs.add(pa);
+					return !property.isList();
+				}
+			}
+			return false;
+		}
 		for (PropertyAssociation pa : container.getOwnedPropertyAssociations()) 
 		{
 			
@@ -0,0 +1,232 @@
+/*
+ * <copyright>
+ * Copyright  2009 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ * </copyright>
+ */
+package org.osate.aadl2.properties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.osate.aadl2.Property;
+import org.osate.aadl2.instance.InstanceObject;
+import org.osate.aadl2.instance.SystemInstance;
+import org.osate.aadl2.instance.SystemOperationMode;
+
+/**
+ * Opt-in cache for the results of property lookups on instance objects.
+ * The cache is attached to a system instance as an adapter and remembers
+ * the accumulated property associations per instance object, property and
+ * current system operation mode. Any change to the instance model clears
+ * the cache. Changes to the declarative model are not tracked; the cache
+ * should be disabled or cleared if the declarative model is edited while
+ * the instance model is in use.
+ * <p>
+ * The cache is enabled by <code>org.osate.ui.actions.AbstractAnalysis</code>
+ * while an analysis that opts in runs on an instance model and is removed
+ * when an instance model is instantiated again.
+ * <p>
+ * The {@link PropertyAcc} returned for a cached lookup is the same object
+ * for every caller. Callers must not add to it or change the list of
+ * property associations it returns.
+ * 
+ * @see #enable(SystemInstance)
+ */
+public class PropertyValueCache extends EContentAdapter {
+
+	private final Map<Key, PropertyAcc> values = new HashMap<Key, PropertyAcc>();
+
+	private long hits = 0;
+
+	private long misses = 0;
+
+	private PropertyValueCache() {
+	}
+
+	/**
+	 * Turn on property value caching for the given system instance.
+	 * 
+	 * @param si the system instance
+	 * @return the cache attached to the system instance
+	 */
+	public static PropertyValueCache enable(SystemInstance si) {
+		PropertyValueCache cache = getCache(si);
+		if (cache == null) {
+			cache = new PropertyValueCache();
+			si.eAdapters().add(cache);
+		}
+		return cache;
+	}
+
+	/**
+	 * Turn off property value caching for the given system instance and
+	 * release the cached values.
+	 * 
+	 * @param si the system instance
+	 */
+	public static void disable(SystemInstance si) {
+		PropertyValueCache cache = getCache(si);
+		if (cache != null) {
+			si.eAdapters().remove(cache);
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Get the cache of the given system instance.
+	 * 
+	 * @param si the system instance
+	 * @return the cache or null if caching is not enabled
+	 */
+	public static PropertyValueCache getCache(SystemInstance si) {
+		return (PropertyValueCache) EcoreUtil.getExistingAdapter(si,
+				PropertyValueCache.class);
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == PropertyValueCache.class;
+	}
+
+	/**
+	 * Get a cached lookup result.
+	 * 
+	 * @param io the instance object on which the property was looked up
+	 * @param property the property
+	 * @param som the current system operation mode, may be null
+	 * @return the cached result or null if there is none
+	 */
+	public synchronized PropertyAcc get(InstanceObject io, Property property,
+			SystemOperationMode som) {
+		final PropertyAcc pas = values.get(new Key(io, property, som));
+		if (pas == null) {
+			misses += 1;
+		} else {
+			hits += 1;
+		}
+		return pas;
+	}
+
+	/**
+	 * Remember a lookup result.
+	 * 
+	 * @param io the instance object on which the property was looked up
+	 * @param property the property
+	 * @param som the current system operation mode, may be null
+	 * @param pas the lookup result
+	 */
+	public synchronized void put(InstanceObject io, Property property,
+			SystemOperationMode som, PropertyAcc pas) {
+		values.put(new Key(io, property, som), pas);
+	}
+
+	/**
+	 * Drop all cached values. The hit and miss counts are kept.
+	 */
+	public synchronized void clear() {
+		values.clear();
+	}
+
+	/**
+	 * @return the number of lookups answered from the cache
+	 */
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * @return the number of lookups not answered from the cache
+	 */
+	public synchronized long getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * @return the number of cached lookup results
+	 */
+	public synchronized int size() {
+		return values.size();
+	}
+
+	/**
+	 * Reset the hit and miss counts.
+	 */
+	public synchronized void resetStatistics() {
+		hits = 0;
+		misses = 0;
+	}
+
+	/**
+	 * Clear the cache whenever the instance model changes.
+	 */
+	@Override
+	public void notifyChanged(Notification notification) {
+		super.notifyChanged(notification);
+		if (!notification.isTouch()
+				&& notification.getEventType() != Notification.REMOVING_ADAPTER
+				&& notification.getEventType() != Notification.RESOLVE) {
+			clear();
+		}
+	}
+
+	private static final class Key {
+		private final InstanceObject io;
+		private final Property property;
+		private final SystemOperationMode som;
+
+		Key(InstanceObject io, Property property, SystemOperationMode som) {
+			this.io = io;
+			this.property = property;
+			this.som = som;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = System.identityHashCode(io);
+			result = 31 * result + System.identityHashCode(property);
+			result = 31 * result + System.identityHashCode(som);
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return io == other.io && property == other.property
+					&& som == other.som;
+		}
+	}
+}
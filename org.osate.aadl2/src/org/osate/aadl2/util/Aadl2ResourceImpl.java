@@ -35,7 +35,17 @@
  */
 package org.osate.aadl2.util;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.TreeIterator;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
 import org.eclipse.emf.ecore.xmi.impl.XMLParserPoolImpl;
 
@@ -50,6 +60,23 @@ public class Aadl2ResourceImpl extends XMIResourceImpl {
 
 	static final XMLParserPoolImpl parserPool = new XMLParserPoolImpl();
 
+	/**
+	 * Save option to write the resource in the EMF binary format instead of
+	 * XMI. The value is a Boolean. If the option is not given, a resource is
+	 * saved in the format it was loaded from, XMI for new resources.
+	 */
+	public static final String OPTION_BINARY = "org.osate.aadl2.binary";
+
+	/*
+	 * The first bytes of the EMF binary format
+	 */
+	private static final byte[] BINARY_SIGNATURE = { (byte) 0x89, 'e', 'm', 'f' };
+
+	/*
+	 * Is the resource stored in the binary format?
+	 */
+	private boolean binary = false;
+
 	/**
 	 * Creates an instance of the resource.
 	 * <!-- begin-user-doc -->
@@ -68,4 +95,98 @@ public class Aadl2ResourceImpl extends XMIResourceImpl {
 	protected boolean useUUIDs() {
 		return true;
 	}
+
+	/**
+	 * @return <code>true</code> if the resource is saved in the EMF binary
+	 *         format
+	 */
+	public boolean isBinary() {
+		return binary;
+	}
+
+	/**
+	 * Select the format used when the resource is saved without the
+	 * {@link #OPTION_BINARY} option.
+	 * 
+	 * @param binary <code>true</code> for the EMF binary format,
+	 *            <code>false</code> for XMI
+	 */
+	public void setBinary(boolean binary) {
+		this.binary = binary;
+	}
+
+	/*
+	 * The binary format doesn't contain the IDs, so we write them after the
+	 * contents in tree order. References into the resource from other
+	 * resources and markers use the IDs.
+	 */
+	@Override
+	public void doSave(OutputStream outputStream, Map<?, ?> options) throws IOException {
+		Object option = (options != null) ? options.get(OPTION_BINARY) : null;
+
+		if (option == null) {
+			option = getDefaultSaveOptions().get(OPTION_BINARY);
+		}
+		if (option != null) {
+			binary = Boolean.TRUE.equals(option);
+		}
+		if (binary) {
+			BinaryResourceImpl.EObjectOutputStream out = new BinaryResourceImpl.EObjectOutputStream(outputStream,
+					options);
+
+			out.saveResource(this);
+			for (TreeIterator<EObject> it = EcoreUtil.getAllProperContents(this, false); it.hasNext();) {
+				String id = getID(it.next());
+
+				out.writeBoolean(id != null);
+				if (id != null) {
+					out.writeString(id);
+				}
+			}
+			out.flush();
+		} else {
+			super.doSave(outputStream, options);
+		}
+	}
+
+	/*
+	 * Detect the format from the first bytes of the stream.
+	 */
+	@Override
+	public void doLoad(InputStream inputStream, Map<?, ?> options) throws IOException {
+		InputStream in = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream);
+		byte[] header = new byte[BINARY_SIGNATURE.length];
+		int count = 0;
+
+		in.mark(header.length);
+		while (count < header.length) {
+			int n = in.read(header, count, header.length - count);
+			if (n < 0) {
+				break;
+			}
+			count += n;
+		}
+		in.reset();
+		binary = true;
+		for (int i = 0; i < header.length; i++) {
+			if (i >= count || header[i] != BINARY_SIGNATURE[i]) {
+				binary = false;
+				break;
+			}
+		}
+		if (binary) {
+			BinaryResourceImpl.EObjectInputStream ein = new BinaryResourceImpl.EObjectInputStream(in, options);
+
+			ein.loadResource(this);
+			for (TreeIterator<EObject> it = EcoreUtil.getAllProperContents(this, false); it.hasNext();) {
+				EObject eObject = it.next();
+
+				if (ein.readBoolean()) {
+					setID(eObject, ein.readString());
+				}
+			}
+		} else {
+			super.doLoad(in, options);
+		}
+	}
 } // Aadl2ResourceImpl
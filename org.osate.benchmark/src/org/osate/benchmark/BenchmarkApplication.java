@@ -0,0 +1,98 @@
+/*
+ * <copyright>
+ * Copyright  2004 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ *
+ * </copyright>
+ */
+package org.osate.benchmark;
+
+import java.util.Map;
+
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.osate.xtext.aadl2.properties.ui.MyPropertiesActivator;
+
+/**
+ * Headless application that runs the JMH benchmarks of this plug-in inside
+ * the running platform, e.g.
+ *
+ * <pre>
+ * osate -nosplash -data /tmp/bench-ws -application org.osate.benchmark.benchmark -p depth=3 InstantiationBenchmark
+ * </pre>
+ *
+ * The application arguments are JMH command line options. The benchmarks
+ * always run in the platform's JVM because the models are loaded through the
+ * workspace and the OSATE resource set, so JMH forks are disabled.
+ * <p>
+ * JMH is embedded in the plug-in and the build runs the JMH annotation
+ * processor, which generates the benchmark harness and
+ * <code>META-INF/BenchmarkList</code>. The <code>benchmark</code> build
+ * profile installs the plug-in into an OSATE installation and runs this
+ * application.
+ */
+public class BenchmarkApplication implements IApplication {
+
+	private static final String BENCHMARK_LIST = "META-INF/BenchmarkList";
+
+	public Object start(final IApplicationContext context) throws Exception {
+		final Map<?, ?> arguments = context.getArguments();
+		String[] args = (String[]) arguments.get(IApplicationContext.APPLICATION_ARGS);
+		if (args == null) {
+			args = new String[0];
+		}
+
+		// registers the Xtext injector and the EMF index used by the lookups
+		MyPropertiesActivator.getInstance();
+
+		if (getClass().getClassLoader().getResource(BENCHMARK_LIST) == null) {
+			throw new IllegalStateException(BENCHMARK_LIST
+					+ " not found, the plug-in was not compiled with the JMH annotation processor");
+		}
+
+		final Thread thread = Thread.currentThread();
+		final ClassLoader contextLoader = thread.getContextClassLoader();
+		thread.setContextClassLoader(getClass().getClassLoader());
+		try {
+			final Options options = new OptionsBuilder().parent(new CommandLineOptions(args)).forks(0).build();
+			new Runner(options).run();
+		} finally {
+			thread.setContextClassLoader(contextLoader);
+		}
+		return IApplication.EXIT_OK;
+	}
+
+	public void stop() {
+	}
+}
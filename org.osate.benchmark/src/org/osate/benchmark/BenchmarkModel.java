@@ -0,0 +1,131 @@
+/*
+ * <copyright>
+ * Copyright  2004 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ *
+ * </copyright>
+ */
+package org.osate.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.osate.aadl2.SystemImplementation;
+import org.osate.aadl2.instance.SystemInstance;
+import org.osate.aadl2.instantiation.InstantiateModel;
+import org.osate.aadl2.modelsupport.errorreporting.AnalysisErrorReporterManager;
+import org.osate.workspace.WorkspacePlugin;
+
+/**
+ * Benchmark state holding a generated declarative model. The size of the
+ * model is controlled by the JMH parameters, e.g.
+ * <code>-p fanOut=8 -p depth=3</code>.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkModel {
+
+	@Param({ "2", "4" })
+	public int fanOut;
+
+	@Param({ "3", "4" })
+	public int depth;
+
+	@Param({ "0", "2" })
+	public int featureGroupDepth;
+
+	@Param({ "1", "4" })
+	public int arraySize;
+
+	@Param({ "false", "true" })
+	public boolean modal;
+
+	/** The root of the generated model. */
+	public SystemImplementation root;
+
+	/** Directory for the instance model files. */
+	private File instanceDir;
+
+	@Setup
+	public void load() throws Exception {
+		root = BenchmarkWorkspace.load(new ModelGenerator(fanOut, depth, featureGroupDepth, arraySize, modal));
+		instanceDir = File.createTempFile("osate-benchmark", "");
+		instanceDir.delete();
+		instanceDir.mkdirs();
+	}
+
+	@TearDown
+	public void cleanUp() {
+		final File[] files = instanceDir.listFiles();
+		if (files != null) {
+			for (File f : files) {
+				f.delete();
+			}
+		}
+		instanceDir.delete();
+	}
+
+	/**
+	 * Create an empty resource for an instance model. The resource is not
+	 * part of the OSATE resource set, so it can be modified without a
+	 * transaction.
+	 *
+	 * @return the resource
+	 */
+	public Resource createInstanceResource() {
+		final File file = new File(instanceDir, root.getTypeName() + "_" + root.getImplementationName()
+				+ WorkspacePlugin.INSTANCE_MODEL_POSTFIX + "." + WorkspacePlugin.INSTANCE_FILE_EXT);
+		return new ResourceSetImpl().createResource(URI.createFileURI(file.getAbsolutePath()));
+	}
+
+	/**
+	 * Instantiate the model and save the instance model.
+	 *
+	 * @return the system instance
+	 * @throws IOException if the instantiation fails
+	 */
+	public SystemInstance instantiate() throws IOException {
+		final InstantiateModel instantiateModel = new InstantiateModel(new NullProgressMonitor(),
+				AnalysisErrorReporterManager.NULL_ERROR_MANANGER);
+		final SystemInstance result = instantiateModel.createSystemInstanceInt(root, createInstanceResource());
+		if (result == null) {
+			throw new IOException(instantiateModel.getInstantiationErrorMessage());
+		}
+		return result;
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * <copyright>
+ * Copyright  2004 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ *
+ * </copyright>
+ */
+package org.osate.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.ui.XtextProjectHelper;
+import org.osate.aadl2.AadlPackage;
+import org.osate.aadl2.NamedElement;
+import org.osate.aadl2.SystemImplementation;
+import org.osate.aadl2.modelsupport.resources.OsateResourceUtil;
+import org.osate.aadl2.modelsupport.resources.PredeclaredProperties;
+import org.osate.core.AadlNature;
+
+/**
+ * Places generated models into an AADL project of the workspace and builds
+ * it, so that the models are loaded and indexed the same way as user models.
+ */
+public final class BenchmarkWorkspace {
+
+	/** Name of the project that holds the generated models. */
+	public static final String PROJECT_NAME = "Benchmark_Models";
+
+	private BenchmarkWorkspace() {
+	}
+
+	/**
+	 * Generate the model, add it to the benchmark project and load it into
+	 * the OSATE resource set.
+	 *
+	 * @param generator the model generator
+	 * @return the root system implementation of the model
+	 * @throws CoreException if the project cannot be created or built
+	 */
+	public static synchronized SystemImplementation load(final ModelGenerator generator) throws CoreException {
+		PredeclaredProperties.initPluginContributedAadl();
+
+		final IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		final IProject project = getProject();
+		final IFile propertySet = project.getFile(ModelGenerator.PROPERTY_SET_NAME + ".aadl");
+		if (!propertySet.exists()) {
+			write(propertySet, ModelGenerator.generatePropertySet());
+		}
+		final IFile file = project.getFile(generator.getPackageName() + ".aadl");
+		write(file, generator.generatePackage());
+		workspace.build(IncrementalProjectBuilder.INCREMENTAL_BUILD, new NullProgressMonitor());
+
+		final Resource res = OsateResourceUtil.getResource(file);
+		EcoreUtil.resolveAll(res);
+		final AadlPackage pkg = (AadlPackage) res.getContents().get(0);
+		final NamedElement root = pkg.getOwnedPublicSection().findNamedElement(ModelGenerator.ROOT_IMPLEMENTATION);
+		if (!(root instanceof SystemImplementation)) {
+			throw new IllegalStateException("Generated model " + generator.getPackageName() + " has no "
+					+ ModelGenerator.ROOT_IMPLEMENTATION);
+		}
+		return (SystemImplementation) root;
+	}
+
+	private static IProject getProject() throws CoreException {
+		final IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(PROJECT_NAME);
+		if (!project.exists()) {
+			project.create(null);
+		}
+		if (!project.isOpen()) {
+			project.open(null);
+		}
+		if (!project.hasNature(XtextProjectHelper.NATURE_ID)) {
+			IProjectDescription desc = project.getDescription();
+			String[] oldNatures = desc.getNatureIds();
+			String[] newNatures = new String[oldNatures.length + 1];
+			System.arraycopy(oldNatures, 0, newNatures, 0, oldNatures.length);
+			newNatures[oldNatures.length] = XtextProjectHelper.NATURE_ID;
+			desc.setNatureIds(newNatures);
+			project.setDescription(desc, null);
+		}
+		AadlNature.addNature(project, null);
+		return project;
+	}
+
+	private static void write(final IFile file, final String text) throws CoreException {
+		final ByteArrayInputStream in;
+		try {
+			in = new ByteArrayInputStream(text.getBytes("UTF-8"));
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+		if (file.exists()) {
+			file.setContents(in, true, false, null);
+		} else {
+			file.create(in, true, null);
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * <copyright>
+ * Copyright  2004 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ *
+ * </copyright>
+ */
+package org.osate.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.osate.aadl2.instance.SystemInstance;
+import org.osate.aadl2.instantiation.CreateConnectionsSwitch;
+import org.osate.aadl2.instantiation.CreateEndToEndFlowsSwitch;
+import org.osate.aadl2.modelsupport.errorreporting.AnalysisErrorReporterManager;
+
+/**
+ * Benchmarks for the instantiation of a declarative model. The complete
+ * instantiation is measured as well as the creation of connection instances
+ * (sequentially and with one thread per processor) and end-to-end flow
+ * instances on their own. For the latter the instance
+ * model is prepared up to the preceding phase before each invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class InstantiationBenchmark {
+
+	/**
+	 * An instance model with component and feature instances and system
+	 * operation modes.
+	 */
+	@State(Scope.Thread)
+	public static class PopulatedModel {
+		public SystemInstance root;
+
+		@Setup(Level.Invocation)
+		public void populate(final BenchmarkModel model) {
+			root = new StagedInstantiation().populate(model.root, model.createInstanceResource());
+		}
+	}
+
+	/**
+	 * An instance model with component, feature and connection instances and
+	 * system operation modes.
+	 */
+	@State(Scope.Thread)
+	public static class ConnectedModel {
+		public SystemInstance root;
+
+		@Setup(Level.Invocation)
+		public void populate(final BenchmarkModel model) {
+			root = new StagedInstantiation().populate(model.root, model.createInstanceResource());
+			new CreateConnectionsSwitch(new NullProgressMonitor(), AnalysisErrorReporterManager.NULL_ERROR_MANANGER,
+					null).processPreOrderAll(root);
+		}
+	}
+
+	@Benchmark
+	public SystemInstance createSystemInstance(final BenchmarkModel model) throws Exception {
+		return model.instantiate();
+	}
+
+	@Benchmark
+	public SystemInstance createConnections(final PopulatedModel populated) {
+		new CreateConnectionsSwitch(new NullProgressMonitor(), AnalysisErrorReporterManager.NULL_ERROR_MANANGER, null)
+				.processPreOrderAll(populated.root);
+		return populated.root;
+	}
+
+	@Benchmark
+	public SystemInstance createConnectionsParallel(final PopulatedModel populated) {
+		new CreateConnectionsSwitch(new NullProgressMonitor(), AnalysisErrorReporterManager.NULL_ERROR_MANANGER, null)
+				.processParallel(populated.root, Runtime.getRuntime().availableProcessors());
+		return populated.root;
+	}
+
+	@Benchmark
+	public SystemInstance createEndToEndFlows(final ConnectedModel connected) {
+		new CreateEndToEndFlowsSwitch(new NullProgressMonitor(), AnalysisErrorReporterManager.NULL_ERROR_MANANGER,
+				null).processPreOrderAll(connected.root);
+		return connected.root;
+	}
+}
@@ -0,0 +1,242 @@
+/*
+ * <copyright>
+ * Copyright  2004 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ *
+ * </copyright>
+ */
+package org.osate.benchmark;
+
+/**
+ * Generates synthetic AADL models for the benchmarks. The model is a tree of
+ * system implementations of the given depth where every implementation has
+ * <code>fanOut</code> subcomponents that are chained by port and feature group
+ * connections, a flow path through the chain, contained property associations
+ * and, optionally, modes. The root implementation declares an end-to-end flow
+ * through its subcomponents.
+ */
+public class ModelGenerator {
+
+	/** Name of the property set used by the generated packages. */
+	public static final String PROPERTY_SET_NAME = "Bench_Properties";
+
+	/** Name of the inherited property declared in the property set. */
+	public static final String WEIGHT = PROPERTY_SET_NAME + "::Weight";
+
+	/** Name of the root system implementation. */
+	public static final String ROOT_IMPLEMENTATION = "Root.impl";
+
+	private final int fanOut;
+
+	private final int depth;
+
+	private final int featureGroupDepth;
+
+	private final int arraySize;
+
+	private final boolean modal;
+
+	private StringBuilder sb;
+
+	/**
+	 * @param fanOut number of subcomponents per implementation, at least 1
+	 * @param depth number of levels below the root, at least 1
+	 * @param featureGroupDepth nesting depth of the connected feature groups,
+	 *            0 for no feature groups
+	 * @param arraySize size of the subcomponent arrays, 1 for no arrays
+	 * @param modal whether the implementations have modes
+	 */
+	public ModelGenerator(final int fanOut, final int depth, final int featureGroupDepth, final int arraySize,
+			final boolean modal) {
+		if (fanOut < 1 || depth < 1 || featureGroupDepth < 0 || arraySize < 1) {
+			throw new IllegalArgumentException("Invalid model size");
+		}
+		this.fanOut = fanOut;
+		this.depth = depth;
+		this.featureGroupDepth = featureGroupDepth;
+		this.arraySize = arraySize;
+		this.modal = modal;
+	}
+
+	/**
+	 * @return the name of the generated package, unique for the model size
+	 */
+	public String getPackageName() {
+		return "Bench_f" + fanOut + "_d" + depth + "_g" + featureGroupDepth + "_a" + arraySize + "_m"
+				+ (modal ? 1 : 0);
+	}
+
+	/**
+	 * @return the text of the property set used by all generated packages
+	 */
+	public static String generatePropertySet() {
+		return "property set " + PROPERTY_SET_NAME + " is\n" + "  Weight: inherit aadlreal applies to (all);\n"
+				+ "end " + PROPERTY_SET_NAME + ";\n";
+	}
+
+	/**
+	 * @return the text of the generated package
+	 */
+	public String generatePackage() {
+		sb = new StringBuilder();
+		sb.append("package ").append(getPackageName()).append("\npublic\n");
+		sb.append("  with ").append(PROPERTY_SET_NAME).append(";\n\n");
+		for (int g = 1; g <= featureGroupDepth; g++) {
+			generateFeatureGroups(g);
+		}
+		for (int level = 0; level < depth; level++) {
+			generateType(level);
+			generateImplementation(level);
+		}
+		generateRoot();
+		sb.append("end ").append(getPackageName()).append(";\n");
+		String result = sb.toString();
+		sb = null;
+		return result;
+	}
+
+	private void generateFeatureGroups(final int g) {
+		sb.append("  feature group FG").append(g).append("\n    features\n");
+		sb.append("      d: in data port;\n");
+		if (g > 1) {
+			sb.append("      g: feature group FG").append(g - 1).append(";\n");
+		}
+		sb.append("  end FG").append(g).append(";\n\n");
+		sb.append("  feature group IFG").append(g).append("\n    inverse of FG").append(g).append("\n");
+		sb.append("  end IFG").append(g).append(";\n\n");
+	}
+
+	private void generateType(final int level) {
+		sb.append("  system Node").append(level).append("\n    features\n");
+		sb.append("      i: in data port;\n");
+		sb.append("      o: out data port;\n");
+		if (modal) {
+			sb.append("      e: in event port;\n");
+		}
+		if (featureGroupDepth > 0) {
+			sb.append("      fgo: feature group FG").append(featureGroupDepth).append(";\n");
+			sb.append("      fgi: feature group IFG").append(featureGroupDepth).append(";\n");
+		}
+		sb.append("    flows\n      f: flow path i -> o;\n");
+		sb.append("    properties\n      ").append(WEIGHT).append(" => 1.0;\n");
+		sb.append("  end Node").append(level).append(";\n\n");
+	}
+
+	private void generateImplementation(final int level) {
+		final String name = "Node" + level + ".impl";
+
+		sb.append("  system implementation ").append(name).append("\n");
+		if (level > 0) {
+			generateSubcomponents("Node" + (level - 1) + ".impl");
+			sb.append("    connections\n");
+			sb.append("      ci: port i -> s0.i;\n");
+			generateChain();
+			sb.append("      co: port s").append(fanOut - 1).append(".o -> o;\n");
+			sb.append("    flows\n      f: flow path i -> ci -> ");
+			generateFlowChain();
+			sb.append(" -> co -> o;\n");
+		}
+		if (modal) {
+			sb.append("    modes\n");
+			sb.append("      m0: initial mode;\n");
+			sb.append("      m1: mode;\n");
+			sb.append("      t0: m0 -[ e ]-> m1;\n");
+			sb.append("      t1: m1 -[ e ]-> m0;\n");
+		}
+		sb.append("    properties\n");
+		if (level > 0) {
+			sb.append("      ").append(WEIGHT).append(" => 2.0 applies to s0;\n");
+			sb.append("      ").append(WEIGHT).append(" => 3.0 applies to s").append(fanOut - 1).append(".o;\n");
+		}
+		if (level > 1) {
+			sb.append("      ").append(WEIGHT).append(" => 4.0 applies to s0.s0;\n");
+		}
+		if (modal) {
+			sb.append("      ").append(WEIGHT).append(" => 5.0 in modes (m1);\n");
+		} else {
+			sb.append("      ").append(WEIGHT).append(" => 5.0;\n");
+		}
+		sb.append("  end ").append(name).append(";\n\n");
+	}
+
+	private void generateRoot() {
+		sb.append("  system Root\n  end Root;\n\n");
+		sb.append("  system implementation ").append(ROOT_IMPLEMENTATION).append("\n");
+		generateSubcomponents("Node" + (depth - 1) + ".impl");
+		if (fanOut > 1) {
+			sb.append("    connections\n");
+			generateChain();
+		}
+		sb.append("    flows\n      etef: end to end flow ");
+		generateFlowChain();
+		sb.append(";\n");
+		sb.append("    properties\n");
+		sb.append("      ").append(WEIGHT).append(" => 6.0 applies to s0;\n");
+		if (depth > 1) {
+			sb.append("      ").append(WEIGHT).append(" => 7.0 applies to s0.s0.i;\n");
+		}
+		sb.append("  end ").append(ROOT_IMPLEMENTATION).append(";\n\n");
+	}
+
+	private void generateSubcomponents(final String classifier) {
+		sb.append("    subcomponents\n");
+		for (int k = 0; k < fanOut; k++) {
+			sb.append("      s").append(k).append(": system ").append(classifier);
+			if (arraySize > 1) {
+				sb.append("[").append(arraySize).append("]");
+			}
+			sb.append(";\n");
+		}
+	}
+
+	/*
+	 * connect the subcomponents s0 to s<fanOut-1> in a chain
+	 */
+	private void generateChain() {
+		for (int k = 1; k < fanOut; k++) {
+			sb.append("      c").append(k).append(": port s").append(k - 1).append(".o -> s").append(k)
+					.append(".i;\n");
+			if (featureGroupDepth > 0) {
+				sb.append("      g").append(k).append(": feature group s").append(k - 1).append(".fgo <-> s")
+						.append(k).append(".fgi;\n");
+			}
+		}
+	}
+
+	/*
+	 * the flow through the chain of subcomponents
+	 */
+	private void generateFlowChain() {
+		sb.append("s0.f");
+		for (int k = 1; k < fanOut; k++) {
+			sb.append(" -> c").append(k).append(" -> s").append(k).append(".f");
+		}
+	}
+}
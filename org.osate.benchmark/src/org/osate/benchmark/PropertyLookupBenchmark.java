@@ -0,0 +1,141 @@
+/*
+ * <copyright>
+ * Copyright  2004 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ *
+ * </copyright>
+ */
+package org.osate.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.xtext.resource.XtextResourceSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.osate.aadl2.AadlPackage;
+import org.osate.aadl2.Classifier;
+import org.osate.aadl2.ComponentImplementation;
+import org.osate.aadl2.ComponentType;
+import org.osate.aadl2.NamedElement;
+import org.osate.aadl2.Property;
+import org.osate.aadl2.instance.ComponentInstance;
+import org.osate.aadl2.instance.SystemInstance;
+import org.osate.aadl2.modelsupport.resources.OsateResourceUtil;
+import org.osate.xtext.aadl2.properties.util.EMFIndexRetrieval;
+
+/**
+ * Benchmarks for property value lookup in declarative and instance models
+ * and for the lookup of named elements in the EMF index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PropertyLookupBenchmark {
+
+	/**
+	 * The instance model of the generated model and the elements to look up
+	 * property values for.
+	 */
+	@State(Scope.Benchmark)
+	public static class LookupModel {
+		public XtextResourceSet resourceSet;
+
+		public String packageName;
+
+		public Property weight;
+
+		public SystemInstance instance;
+
+		public List<ComponentInstance> components;
+
+		public List<NamedElement> declarative;
+
+		@Setup
+		public void instantiate(final BenchmarkModel model) throws Exception {
+			resourceSet = OsateResourceUtil.getResourceSet();
+			weight = EMFIndexRetrieval.getPropertyDefinitionInWorkspace(resourceSet, ModelGenerator.WEIGHT);
+			instance = model.instantiate();
+			components = instance.getAllComponentInstances();
+			declarative = new ArrayList<NamedElement>();
+			final AadlPackage pkg = (AadlPackage) model.root.getElementRoot();
+			packageName = pkg.getName();
+			for (Classifier cl : pkg.getOwnedPublicSection().getOwnedClassifiers()) {
+				if (cl instanceof ComponentType) {
+					declarative.add(cl);
+					declarative.addAll(((ComponentType) cl).getAllFeatures());
+				} else if (cl instanceof ComponentImplementation) {
+					declarative.add(cl);
+					declarative.addAll(((ComponentImplementation) cl).getAllSubcomponents());
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public void instancePropertyValue(final LookupModel model, final Blackhole bh) {
+		for (ComponentInstance ci : model.components) {
+			bh.consume(ci.getPropertyValue(model.weight));
+		}
+	}
+
+	@Benchmark
+	public void declarativePropertyValue(final LookupModel model, final Blackhole bh) {
+		for (NamedElement ne : model.declarative) {
+			bh.consume(ne.getPropertyValue(model.weight));
+		}
+	}
+
+	@Benchmark
+	public Property lookupPredeclaredProperty(final LookupModel model) {
+		return EMFIndexRetrieval.getPropertyDefinitionInWorkspace(model.resourceSet, "Period");
+	}
+
+	@Benchmark
+	public Property lookupQualifiedProperty(final LookupModel model) {
+		return EMFIndexRetrieval.getPropertyDefinitionInWorkspace(model.resourceSet, ModelGenerator.WEIGHT);
+	}
+
+	@Benchmark
+	public Object lookupPropertySet(final LookupModel model) {
+		return EMFIndexRetrieval.getPropertySetInWorkspace(ModelGenerator.PROPERTY_SET_NAME, model.resourceSet);
+	}
+
+	@Benchmark
+	public Object lookupPackage(final LookupModel model) {
+		return EMFIndexRetrieval.getPackageInWorkspace(model.packageName, model.resourceSet);
+	}
+}
@@ -0,0 +1,410 @@
+/*
+ * <copyright>
+ * Copyright  2004 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ *
+ * </copyright>
+ */
+package org.osate.aadl2.instantiation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.osate.aadl2.SystemImplementation;
+import org.osate.aadl2.impl.DeclarativeAdapters;
+import org.osate.aadl2.instance.SystemInstance;
+import org.osate.aadl2.modelsupport.AadlConstants;
+import org.osate.aadl2.modelsupport.errorreporting.AnalysisErrorReporter;
+import org.osate.aadl2.modelsupport.errorreporting.AnalysisErrorReporterFactory;
+import org.osate.aadl2.modelsupport.errorreporting.AnalysisErrorReporterManager;
+import org.osate.aadl2.modelsupport.errorreporting.MarkerAnalysisErrorReporter;
+import org.osate.aadl2.modelsupport.errorreporting.QueuingAnalysisErrorReporter;
+import org.osate.aadl2.modelsupport.modeltraversal.TraverseWorkspace;
+import org.osate.aadl2.modelsupport.resources.OsateResourceUtil;
+import org.osate.aadl2.properties.PropertyValueCache;
+
+/**
+ * Instantiates several system implementations in parallel without a user
+ * interface, e.g., to rebuild all instance models of a workspace in a
+ * nightly build.
+ * <p>
+ * The declarative models are loaded once into the OSATE resource set and all
+ * proxies are resolved before the workers start, so the workers only read
+ * the declarative models. Each worker creates its instance model in a
+ * resource set of its own. The models are saved and their markers are
+ * created on the calling thread, so the workers take no scheduling rules and
+ * the caller may hold one, e.g., a job with the workspace root as its rule.
+ * The instance models are not added to
+ * the OSATE resource set and are not created through the transactional
+ * editing domain, so the batch should not run while instance models are
+ * open in editors.
+ * <p>
+ * Progress is reported on the calling thread when a model is done, and the
+ * time needed for each model is recorded in its {@link Result}.
+ */
+public class BatchInstantiation {
+
+	/**
+	 * The outcome of instantiating one system implementation.
+	 */
+	public static final class Result {
+		private final SystemImplementation systemImplementation;
+
+		private final URI instanceModelURI;
+
+		private final boolean success;
+
+		private final String errorMessage;
+
+		private final long time;
+
+		private final int numErrors;
+
+		private final int numWarnings;
+
+		Result(final SystemImplementation si, final URI uri, final boolean ok, final String message,
+				final long millis, final AnalysisErrorReporterManager errManager) {
+			systemImplementation = si;
+			instanceModelURI = uri;
+			success = ok;
+			errorMessage = message;
+			time = millis;
+			numErrors = errManager.getNumErrors();
+			numWarnings = errManager.getNumWarnings();
+		}
+
+		/**
+		 * @return the instantiated system implementation
+		 */
+		public SystemImplementation getSystemImplementation() {
+			return systemImplementation;
+		}
+
+		/**
+		 * @return the URI of the instance model, or null if instantiation was
+		 *         canceled before it started
+		 */
+		public URI getInstanceModelURI() {
+			return instanceModelURI;
+		}
+
+		/**
+		 * @return <code>true</code> if the instance model has been created and
+		 *         saved
+		 */
+		public boolean isSuccess() {
+			return success;
+		}
+
+		/**
+		 * @return why instantiation failed, or null
+		 */
+		public String getErrorMessage() {
+			return errorMessage;
+		}
+
+		/**
+		 * @return the time in milliseconds needed to create and save the
+		 *         instance model
+		 */
+		public long getTime() {
+			return time;
+		}
+
+		/**
+		 * @return the number of errors reported on the instance model
+		 */
+		public int getNumErrors() {
+			return numErrors;
+		}
+
+		/**
+		 * @return the number of warnings reported on the instance model
+		 */
+		public int getNumWarnings() {
+			return numWarnings;
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder sb = new StringBuilder(systemImplementation.getQualifiedName());
+			if (!success) {
+				sb.append(": failed");
+				if (errorMessage != null) {
+					sb.append(" - ").append(errorMessage);
+				}
+			} else {
+				sb.append(": ").append(numErrors).append(" errors, ").append(numWarnings).append(" warnings");
+			}
+			sb.append(" (").append(time).append(" ms)");
+			return sb.toString();
+		}
+	}
+
+	/** The number of worker threads. */
+	private final int threads;
+
+	/** Save the instance models in the EMF binary format. */
+	private boolean saveBinary = false;
+
+	/**
+	 * @param threads the number of instance models to create in parallel
+	 */
+	public BatchInstantiation(final int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * @param binary <code>true</code> to save the instance models in the
+	 *            EMF binary format
+	 */
+	public void setSaveBinary(final boolean binary) {
+		saveBinary = binary;
+	}
+
+	/**
+	 * Load the declarative models of all AADL files in the workspace into the
+	 * OSATE resource set, resolve all references between them and attach the
+	 * adapters that cache values computed from them. This must be done before
+	 * {@link #instantiate(List, IProgressMonitor)} because the workers must
+	 * not modify the shared declarative models.
+	 */
+	public static void loadDeclarativeModels() {
+		final ResourceSet rs = OsateResourceUtil.getResourceSet();
+		for (IFile file : TraverseWorkspace.getAadlFilesInWorkspace()) {
+			OsateResourceUtil.getResource((IResource) file);
+		}
+		EcoreUtil.resolveAll(rs);
+		for (Resource res : rs.getResources()) {
+			if (res.getContents().isEmpty() || !(res.getContents().get(0) instanceof SystemInstance)) {
+				DeclarativeAdapters.attachAll(res);
+			}
+		}
+	}
+
+	/**
+	 * Rebuild all instance models in the workspace in parallel. The
+	 * declarative models are reloaded first.
+	 * 
+	 * @param monitor the progress monitor
+	 * @return the result for each instance model, in completion order
+	 * @throws CoreException if markers of the old instance models cannot be
+	 *             deleted
+	 */
+	public List<Result> rebuildAllInstanceModelFiles(final IProgressMonitor monitor) throws CoreException,
+			InterruptedException {
+		final List<URI> implURIs = new ArrayList<URI>();
+		for (IFile iFile : TraverseWorkspace.getInstanceModelFilesInWorkspace()) {
+			final IResource ires = iFile;
+			ires.deleteMarkers(null, true, IResource.DEPTH_INFINITE);
+			final Resource res = OsateResourceUtil.getResource(ires);
+			if (!res.getContents().isEmpty() && res.getContents().get(0) instanceof SystemInstance) {
+				final SystemInstance target = (SystemInstance) res.getContents().get(0);
+				implURIs.add(EcoreUtil.getURI(target.getSystemImplementation()));
+				PropertyValueCache.disable(target);
+			}
+			res.unload();
+			res.getResourceSet().getResources().remove(res);
+		}
+		OsateResourceUtil.refreshResourceSet();
+		loadDeclarativeModels();
+
+		final List<SystemImplementation> sis = new ArrayList<SystemImplementation>(implURIs.size());
+		for (URI uri : implURIs) {
+			final Object si = OsateResourceUtil.getResourceSet().getEObject(uri, true);
+			if (si instanceof SystemImplementation) {
+				sis.add((SystemImplementation) si);
+			}
+		}
+		return instantiate(sis, monitor);
+	}
+
+	/**
+	 * Instantiate the given system implementations in parallel and save the
+	 * instance models. The declarative models must have been loaded
+	 * completely, see {@link #loadDeclarativeModels()}.
+	 * 
+	 * @param sis the system implementations
+	 * @param monitor the progress monitor, only used on the calling thread
+	 * @return the result for each system implementation, in completion order
+	 * @throws InterruptedException if the calling thread is interrupted
+	 */
+	public List<Result> instantiate(final List<SystemImplementation> sis, final IProgressMonitor monitor)
+			throws InterruptedException {
+		monitor.beginTask("Instantiating " + sis.size() + " system implementations", sis.size());
+		final IProgressMonitor cancelMonitor = new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return monitor.isCanceled();
+			}
+		};
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, sis.size())));
+		final CompletionService<Built> completion = new ExecutorCompletionService<Built>(executor);
+		final List<Result> results = new ArrayList<Result>(sis.size());
+		try {
+			for (final SystemImplementation si : sis) {
+				completion.submit(new Callable<Built>() {
+					public Built call() {
+						return instantiate(si, cancelMonitor);
+					}
+				});
+			}
+			for (int i = 0; i < sis.size(); i++) {
+				final Future<Built> future = completion.take();
+				final Result result;
+				try {
+					result = save(future.get(), monitor);
+				} catch (ExecutionException e) {
+					InstancePlugin.log(new Status(IStatus.ERROR, InstancePlugin.getPluginId(),
+							"Batch instantiation failed", e.getCause()));
+					monitor.worked(1);
+					continue;
+				}
+				results.add(result);
+				monitor.subTask(result.toString());
+				monitor.worked(1);
+			}
+		} finally {
+			executor.shutdownNow();
+			monitor.done();
+		}
+		return Collections.unmodifiableList(results);
+	}
+
+	/*
+	 * Worker: create the instance model of one system implementation in a
+	 * resource set of its own. The model is neither saved nor are markers
+	 * created here, as both need scheduling rules that the calling thread may
+	 * hold, e.g., the workspace root rule of a job. The messages are queued
+	 * instead.
+	 */
+	private Built instantiate(final SystemImplementation si, final IProgressMonitor monitor) {
+		final Built built = new Built(si);
+		if (monitor.isCanceled()) {
+			return built;
+		}
+		built.instanceURI = OsateResourceUtil.getInstanceModelURI(si);
+		final ResourceSet rs = OsateResourceUtil.createXtextResourceSet();
+		built.resource = rs.createResource(built.instanceURI);
+		// one queue for all resources keeps the messages in order
+		final QueuingAnalysisErrorReporter reporter = new QueuingAnalysisErrorReporter(built.resource);
+		final AnalysisErrorReporterManager queue = new AnalysisErrorReporterManager(
+				new AnalysisErrorReporterFactory() {
+					public AnalysisErrorReporter getReporterFor(final Resource rsrc) {
+						return reporter;
+					}
+				});
+		built.instantiateModel = new InstantiateModel(monitor, queue);
+		built.instantiateModel.setSaveBinary(saveBinary);
+		built.root = built.instantiateModel.createUnsavedSystemInstance(si, built.resource);
+		built.messages = reporter.getErrors();
+		built.time = System.currentTimeMillis() - built.start;
+		return built;
+	}
+
+	/*
+	 * Save an instance model created by a worker and create its markers.
+	 * Called on the calling thread.
+	 */
+	private Result save(final Built built, final IProgressMonitor monitor) {
+		final long start = System.currentTimeMillis();
+		final AnalysisErrorReporterManager errManager = new AnalysisErrorReporterManager(
+				new MarkerAnalysisErrorReporter.Factory(AadlConstants.INSTANTIATION_OBJECT_MARKER, null,
+						MarkerAnalysisErrorReporter.DEFAULT_FLUSH_THRESHOLD));
+		String message = "canceled";
+		boolean saved = false;
+		if (built.resource != null) {
+			if (built.root == null) {
+				if (!monitor.isCanceled()) {
+					message = built.instantiateModel.getInstantiationErrorMessage();
+				}
+			} else if (!monitor.isCanceled()) {
+				try {
+					built.resource.save(built.instantiateModel.getSaveOptions());
+					saved = true;
+					message = null;
+					QueuingAnalysisErrorReporter.replay(built.messages, errManager);
+					errManager.flush();
+				} catch (IOException e) {
+					message = e.getMessage();
+				}
+			}
+			// the instance model has been saved, don't keep it in memory
+			built.resource.unload();
+		}
+		return new Result(built.si, built.instanceURI, saved, message, built.time + System.currentTimeMillis()
+				- start, errManager);
+	}
+
+	/**
+	 * An instance model created by a worker that has not been saved yet.
+	 */
+	private static final class Built {
+		final SystemImplementation si;
+
+		final long start = System.currentTimeMillis();
+
+		URI instanceURI;
+
+		Resource resource;
+
+		InstantiateModel instantiateModel;
+
+		SystemInstance root;
+
+		List<QueuingAnalysisErrorReporter.Message> messages;
+
+		long time;
+
+		Built(final SystemImplementation si) {
+			this.si = si;
+		}
+	}
+}
@@ -39,8 +39,9 @@ package org.osate.aadl2.instantiation;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.List;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.emf.common.util.EList;
@@ -57,6 +58,7 @@ import org.osate.aadl2.Property;
 import org.osate.aadl2.PropertyAssociation;
 import org.osate.aadl2.PropertyExpression;
 import org.osate.aadl2.ReferenceValue;
+import org.osate.aadl2.Subcomponent;
 import org.osate.aadl2.instance.ComponentInstance;
 import org.osate.aadl2.instance.ConnectionInstance;
 import org.osate.aadl2.instance.FeatureCategory;
@@ -86,6 +88,18 @@ class CacheContainedPropertyAssociationsSwitch extends AadlProcessingSwitchWithP
 	 */
 	private SCProperties scProps;
 
+	/*
+	 * If not null, contained property associations are only cached for these
+	 * instance objects.
+	 */
+	private Set<InstanceObject> targets = null;
+
+	/*
+	 * The contained property associations of classifiers and subcomponents
+	 * indexed by their containment paths.
+	 */
+	private final HashMap<NamedElement, ContainmentPathIndex> pathIndexes = new HashMap<NamedElement, ContainmentPathIndex>();
+
 	CacheContainedPropertyAssociationsSwitch(final HashMap<InstanceObject, InstantiatedClassifier> classifierCache,
 			SCProperties scProps, final IProgressMonitor pm, final AnalysisErrorReporterManager errManager) {
 		super(pm, PROCESS_POST_ORDER_ALL, errManager);
@@ -98,7 +112,7 @@ class CacheContainedPropertyAssociationsSwitch extends AadlProcessingSwitchWithP
 			@Override
 			public String caseSystemInstance(final SystemInstance si) {
 				monitor.subTask("Caching system instance contained property associations");
-				processContainedPropertyAssociations(si, si, si.getSystemImplementation().getAllPropertyAssociations());
+				processContainedPropertyAssociations(si, si, getPathIndex(si.getSystemImplementation()));
 				return DONE;
 			}
 
@@ -114,14 +128,14 @@ class CacheContainedPropertyAssociationsSwitch extends AadlProcessingSwitchWithP
 				 */
 				ComponentClassifier ctype = InstanceUtil.getComponentType(ci, 0, classifierCache);
 				if (ctype != null) {
-					processContainedPropertyAssociations(ci, ci, ctype.getAllPropertyAssociations());
+					processContainedPropertyAssociations(ci, ci, getPathIndex(ctype));
 				}
 				ComponentClassifier cimpl = InstanceUtil.getComponentImplementation(ci, 0, classifierCache);
 				if (cimpl != null) {
-					processContainedPropertyAssociations(ci, ci, cimpl.getAllPropertyAssociations());
+					processContainedPropertyAssociations(ci, ci, getPathIndex(cimpl));
 				}
-				processContainedPropertyAssociations((ComponentInstance) ci.eContainer(), ci, ci.getSubcomponent()
-						.getOwnedPropertyAssociations());
+				processContainedPropertyAssociations((ComponentInstance) ci.eContainer(), ci,
+						getPathIndex(ci.getSubcomponent()));
 				return DONE;
 			}
 
@@ -138,6 +152,77 @@ class CacheContainedPropertyAssociationsSwitch extends AadlProcessingSwitchWithP
 		};
 	}
 
+	/**
+	 * Cache the contained property associations for a part of the instance
+	 * model only. The given regions are processed completely, and their
+	 * ancestors and the ancestors of the targets are processed in post-order
+	 * so that outer contained property associations still override inner
+	 * ones. Property associations are only added to the given targets.
+	 * 
+	 * @param root the system instance
+	 * @param regions roots of subtrees that have been re-instantiated
+	 * @param targets the instance objects whose property associations are
+	 *            cached
+	 */
+	void processRegions(final SystemInstance root, final Set<ComponentInstance> regions,
+			final Set<InstanceObject> targets) {
+		final Set<ComponentInstance> ancestors = new HashSet<ComponentInstance>();
+
+		for (ComponentInstance ci : regions) {
+			addAncestors(ci.getContainingComponentInstance(), ancestors);
+		}
+		for (InstanceObject io : targets) {
+			addAncestors(io.getContainingComponentInstance(), ancestors);
+		}
+		this.targets = targets;
+		try {
+			processRegions(root, regions, ancestors);
+		} finally {
+			this.targets = null;
+		}
+	}
+
+	private void addAncestors(ComponentInstance ci, final Set<ComponentInstance> ancestors) {
+		while (ci != null && ancestors.add(ci)) {
+			ci = ci.getContainingComponentInstance();
+		}
+	}
+
+	private void processRegions(final ComponentInstance ci, final Set<ComponentInstance> regions,
+			final Set<ComponentInstance> ancestors) {
+		for (ComponentInstance sub : ci.getComponentInstances()) {
+			if (cancelled()) {
+				return;
+			}
+			if (regions.contains(sub)) {
+				processPostOrderAll(sub);
+			} else if (ancestors.contains(sub)) {
+				processRegions(sub, regions, ancestors);
+			}
+		}
+		processObject(ci);
+	}
+
+	private ContainmentPathIndex getPathIndex(final ComponentClassifier cc) {
+		ContainmentPathIndex index = pathIndexes.get(cc);
+
+		if (index == null) {
+			index = new ContainmentPathIndex(cc.getAllPropertyAssociations());
+			pathIndexes.put(cc, index);
+		}
+		return index;
+	}
+
+	private ContainmentPathIndex getPathIndex(final Subcomponent sub) {
+		ContainmentPathIndex index = pathIndexes.get(sub);
+
+		if (index == null) {
+			index = new ContainmentPathIndex(sub.getOwnedPropertyAssociations());
+			pathIndexes.put(sub, index);
+		}
+		return index;
+	}
+
 	protected void processContainedPropertyAssociations
 		(final FeatureInstance fi, final EList<PropertyAssociation> propertyAssociations) {
 		for (PropertyAssociation pa : propertyAssociations) {
@@ -153,6 +238,9 @@ class CacheContainedPropertyAssociationsSwitch extends AadlProcessingSwitchWithP
 
 					if (!ios.isEmpty()) {
 						for (InstanceObject io : ios) {
+							if (targets != null && !targets.contains(io)) {
+								continue;
+							}
 							PropertyAssociation newPA = Aadl2Factory.eINSTANCE.createPropertyAssociation();
 
 							newPA.setProperty(prop);
@@ -193,57 +281,40 @@ class CacheContainedPropertyAssociationsSwitch extends AadlProcessingSwitchWithP
 	 * @param propertyAssociations
 	 */
 	private void processContainedPropertyAssociations(final ComponentInstance modeContext, final ComponentInstance ci,
-			final EList<PropertyAssociation> propertyAssociations) {
-		for (PropertyAssociation pa : propertyAssociations) {
-			//OsateDebug.osateDebug  ("[CacheContainedProperty] Process contained property association" + pa);
-			Property prop = pa.getProperty();
-			if (Aadl2Util.isNull(prop) || Aadl2Util.isNull(prop.getType())) {
-				// PA is missing the prop def, skip to the next one
-//				OsateDebug.osateDebug  ("   skip");
-
+			final ContainmentPathIndex pathIndex) {
+		for (ContainmentPathIndex.Match match : pathIndex.find(ci)) {
+			final InstanceObject io = match.io;
+			if (targets != null && !targets.contains(io)) {
 				continue;
 			}
-			//OsateDebug.osateDebug  ("   appliesto=" + pa.getAppliesTos());
-
-			for (ContainedNamedElement cne : pa.getAppliesTos()) {
-				final EList<ContainmentPathElement> cpes = cne.getContainmentPathElements();
-				//OsateDebug.osateDebug ("   cpes=" + cpes);
+			final Property prop = match.pa.getProperty();
+			final EList<ContainmentPathElement> cpes = match.cne.getContainmentPathElements();
+			final NamedElement last = cpes.get(cpes.size() - 1).getNamedElement();
+			PropertyAssociation newPA = Aadl2Factory.eINSTANCE.createPropertyAssociation();
 
-				if (cpes != null && !cpes.isEmpty()) {
-					final NamedElement last = cpes.get(cpes.size() - 1).getNamedElement();
-					final List<InstanceObject> ios = ci.findInstanceObjects(cpes);
-					for (InstanceObject io : ios) {
-						//OsateDebug.osateDebug ("   io=" + io);
-
-						PropertyAssociation newPA = Aadl2Factory.eINSTANCE.createPropertyAssociation();
+			newPA.setProperty(prop);
+			newPA.getOwnedValues().addAll(EcoreUtil.copyAll(match.pa.getOwnedValues()));
 
-						newPA.setProperty(prop);
-						newPA.getOwnedValues().addAll(EcoreUtil.copyAll(pa.getOwnedValues()));
+			// replace reference values in the context of the contained PA's owner
+			for (Iterator<Element> content = EcoreUtil.getAllProperContents(newPA, false); content.hasNext();) {
+				Element elem = content.next();
 
-						// replace reference values in the context of the contained PA's owner
-						for (Iterator<Element> content = EcoreUtil.getAllProperContents(newPA, false); content
-								.hasNext();) {
-							Element elem = content.next();
-
-							if (elem instanceof ReferenceValue) {
-								try {
-									PropertyExpression irv = ((ReferenceValue) elem).instantiate(ci);
-									EcoreUtil.replace(elem, irv);
-								} catch (InvalidModelException e) {
-									error(io, e.getMessage());
-								}
-							}
-						}
-
-						if (last instanceof Connection) {
-							scProps.recordSCProperty((ConnectionInstance) io, prop, (Connection) last, newPA);
-						} else {
-							io.removePropertyAssociations(prop);
-							io.getOwnedPropertyAssociations().add(newPA);
-						}
+				if (elem instanceof ReferenceValue) {
+					try {
+						PropertyExpression irv = ((ReferenceValue) elem).instantiate(ci);
+						EcoreUtil.replace(elem, irv);
+					} catch (InvalidModelException e) {
+						error(io, e.getMessage());
 					}
 				}
 			}
+
+			if (last instanceof Connection) {
+				scProps.recordSCProperty((ConnectionInstance) io, prop, (Connection) last, newPA);
+			} else {
+				io.removePropertyAssociations(prop);
+				io.getOwnedPropertyAssociations().add(newPA);
+			}
 			checkIfCancelled();
 			if (cancelled()) {
 				break;
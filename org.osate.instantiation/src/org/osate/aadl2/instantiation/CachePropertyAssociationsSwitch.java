@@ -38,32 +38,48 @@
 package org.osate.aadl2.instantiation;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.osate.aadl2.Aadl2Factory;
+import org.osate.aadl2.Element;
 import org.osate.aadl2.ListValue;
 import org.osate.aadl2.ModalPropertyValue;
 import org.osate.aadl2.Mode;
 import org.osate.aadl2.Property;
 import org.osate.aadl2.PropertyAssociation;
 import org.osate.aadl2.PropertyExpression;
+import org.osate.aadl2.ReferenceValue;
 import org.osate.aadl2.impl.EnumerationLiteralImpl;
 import org.osate.aadl2.impl.NamedValueImpl;
 import org.osate.aadl2.instance.ComponentInstance;
 import org.osate.aadl2.instance.ConnectionInstance;
 import org.osate.aadl2.instance.ConnectionReference;
+import org.osate.aadl2.instance.FeatureCategory;
+import org.osate.aadl2.instance.FeatureInstance;
 import org.osate.aadl2.instance.InstanceObject;
+import org.osate.aadl2.instance.InstanceReferenceValue;
 import org.osate.aadl2.instance.ModeInstance;
 import org.osate.aadl2.instance.SystemInstance;
 import org.osate.aadl2.instance.SystemOperationMode;
 import org.osate.aadl2.instance.util.InstanceSwitch;
+import org.osate.aadl2.instance.util.InstanceUtil;
 import org.osate.aadl2.instance.util.InstanceUtil.InstantiatedClassifier;
 import org.osate.aadl2.modelsupport.errorreporting.AnalysisErrorReporterManager;
 import org.osate.aadl2.modelsupport.modeltraversal.AadlProcessingSwitchWithProgress;
+import org.osate.aadl2.properties.ContainedPropertyIndex;
 import org.osate.aadl2.properties.EvaluatedProperty;
 import org.osate.aadl2.properties.EvaluatedProperty.MpvProxy;
 import org.osate.aadl2.properties.EvaluationContext;
@@ -94,6 +110,18 @@ class CachePropertyAssociationsSwitch extends AadlProcessingSwitchWithProgress {
 	 */
 	final private SCProperties scProps;
 
+	/*
+	 * Leave instance independent values in the declarative model instead of
+	 * copying them to the instance objects?
+	 */
+	private boolean shareValues = false;
+
+	/*
+	 * Contained property associations by target, only valid for this
+	 * instantiation because changes to the declarative model are not tracked
+	 */
+	private final ContainedPropertyIndex containedIndex = new ContainedPropertyIndex();
+
 	CachePropertyAssociationsSwitch
 		   (final IProgressMonitor pm, 
 			final AnalysisErrorReporterManager errManager, 
@@ -109,6 +137,18 @@ class CachePropertyAssociationsSwitch extends AadlProcessingSwitchWithProgress {
 		this.mode2som = mode2som;
 			}
 
+	/**
+	 * Enable or disable value sharing. If enabled, property values that are
+	 * taken unchanged from the declarative model and do not depend on the
+	 * instance object are not cached on the instance object. Property lookup
+	 * on the instance object then finds the value in the declarative model,
+	 * so all instance objects share it. Shared values are not contained in
+	 * the saved instance model, see {@link InstantiateModel#setShareValues}.
+	 */
+	void setShareValues(final boolean share) {
+		shareValues = share;
+	}
+
 	protected void initSwitches() {
 		instanceSwitch = new InstanceSwitch<String>() {
 			@Override
@@ -152,6 +192,240 @@ class CachePropertyAssociationsSwitch extends AadlProcessingSwitchWithProgress {
 		return scProps;
 	}
 
+	/**
+	 * Cache the property associations of all instance objects in the instance
+	 * model using several threads. The instance tree is processed one level at
+	 * a time so that the values of all containers are cached before their
+	 * contents are evaluated, as in the pre-order traversal. The objects on a
+	 * level are evaluated in parallel into detached property associations,
+	 * which are then added to the model in tree order on the calling thread.
+	 * Connection instances are always processed on the calling thread because
+	 * they share the semantic connection property cache.
+	 * <p>
+	 * The workers evaluate properties in the declarative model, where lazy
+	 * linking and proxy resolution are not thread safe. All references in the
+	 * declarative models must therefore have been resolved before this method
+	 * is called.
+	 * 
+	 * @param root the system instance
+	 * @param threads the number of worker threads
+	 */
+	void processParallel(final SystemInstance root, final int threads) {
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			monitor.subTask("Caching "
+					+ root.getSystemImplementation().getOwnedPropertyAssociations().size()
+					+ " property associations");
+			List<InstanceObject> level = Collections.<InstanceObject> singletonList(root);
+			while (!level.isEmpty() && notCancelled()) {
+				level = processLevel(level, executor, threads);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Cache the property associations of the instance objects of one level of
+	 * the instance tree.
+	 * 
+	 * @return the instance objects on the next level
+	 */
+	private List<InstanceObject> processLevel(final List<InstanceObject> level,
+			final ExecutorService executor, final int threads) {
+		final List<InstanceObject> evaluated = new ArrayList<InstanceObject>(level.size());
+		for (InstanceObject io : level) {
+			if (!(io instanceof ConnectionInstance || io instanceof ConnectionReference)) {
+				evaluated.add(io);
+				// fill the classifier cache now, the workers must only read it
+				if (io instanceof ComponentInstance
+						|| (io instanceof FeatureInstance && ((FeatureInstance) io).getCategory() == FeatureCategory.FEATURE_GROUP)) {
+					InstanceUtil.getInstantiatedClassifier(io, 0, classifierCache);
+				}
+			}
+		}
+
+		// evaluate in chunks of consecutive objects
+		final int chunkSize = Math.max(1, evaluated.size() / (threads * 4));
+		final List<Future<List<CachedValues>>> futures = new ArrayList<Future<List<CachedValues>>>();
+		for (int start = 0; start < evaluated.size(); start += chunkSize) {
+			final List<InstanceObject> chunk = evaluated.subList(start,
+					Math.min(start + chunkSize, evaluated.size()));
+			futures.add(executor.submit(new Callable<List<CachedValues>>() {
+				public List<CachedValues> call() {
+					final List<CachedValues> result = new ArrayList<CachedValues>(chunk.size());
+					for (InstanceObject io : chunk) {
+						if (monitor.isCanceled()) {
+							break;
+						}
+						result.add(evaluatePropertyAssociations(io));
+					}
+					return result;
+				}
+			}));
+		}
+
+		// wait for the whole level, the workers read the tree while it is unchanged
+		final List<CachedValues> values = new ArrayList<CachedValues>(evaluated.size());
+		RuntimeException failure = null;
+		for (Future<List<CachedValues>> future : futures) {
+			try {
+				values.addAll(getResult(future));
+			} catch (RuntimeException e) {
+				if (failure == null) {
+					failure = e;
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+
+		// add the results to the model in tree order
+		final Iterator<CachedValues> valueIter = values.iterator();
+		final List<InstanceObject> next = new ArrayList<InstanceObject>();
+		for (InstanceObject io : level) {
+			if (io instanceof ConnectionInstance) {
+				cacheConnectionPropertyAssociations((ConnectionInstance) io);
+			} else if (!(io instanceof ConnectionReference)) {
+				if (!valueIter.hasNext()) {
+					// cancelled
+					break;
+				}
+				if (io instanceof ComponentInstance && io.getContainingComponentInstance() instanceof SystemInstance) {
+					monitor.subTask("Caching property associations in " + io.getName());
+				}
+				commitPropertyAssociations(valueIter.next());
+			}
+			checkIfCancelled();
+			if (cancelled()) {
+				break;
+			}
+			for (Element child : io.getChildren()) {
+				if (child instanceof InstanceObject) {
+					next.add((InstanceObject) child);
+				}
+			}
+		}
+		return next;
+	}
+
+	private List<CachedValues> getResult(final Future<List<CachedValues>> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			cancelTraversal();
+			return Collections.emptyList();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/**
+	 * Evaluate the used properties for an instance object without modifying
+	 * the instance model. Called from worker threads.
+	 */
+	private CachedValues evaluatePropertyAssociations(final InstanceObject io) {
+		final CachedValues result = new CachedValues(io);
+		try {
+			for (Property property : propertyFilter) {
+				if (monitor.isCanceled()) {
+					break;
+				}
+				if (io.acceptsProperty(property)) {
+					List<EvaluatedProperty> value = property.evaluate(new EvaluationContext(io, classifierCache, containedIndex));
+
+					if (!value.isEmpty() && !(shareValues && isSharedValue(io, value))) {
+						PropertyAssociation pa = Aadl2Factory.eINSTANCE.createPropertyAssociation();
+
+						pa.setProperty(property);
+						result.associations.add(pa);
+						fillPropertyValue(io, pa, value);
+					}
+				}
+			}
+		} catch (IllegalStateException e) {
+			// circular dependency
+			result.error = e;
+		} catch (InvalidModelException e) {
+			result.error = e;
+		}
+		return result;
+	}
+
+	/**
+	 * Add the evaluated property associations to the instance object and
+	 * report any error encountered during evaluation.
+	 */
+	private void commitPropertyAssociations(final CachedValues values) {
+		final InstanceObject io = values.io;
+
+		for (PropertyAssociation pa : values.associations) {
+			io.removePropertyAssociations(pa.getProperty());
+			io.getOwnedPropertyAssociations().add(pa);
+		}
+		if (values.error instanceof InvalidModelException) {
+			OsateDebug.osateDebug("InvalidModelException raised in cachePropertyAssociations");
+			error(((InvalidModelException) values.error).getElement(), values.error.getMessage());
+		} else if (values.error != null) {
+			// xxx: this is a misleading place to put the marker
+			OsateDebug.osateDebug("IllegalStateException raised in cachePropertyAssociations");
+			error(io, values.error.getMessage());
+		}
+	}
+
+	/**
+	 * Check if an evaluated property value can be shared instead of being
+	 * copied to the instance object. This is the case for a single non-modal
+	 * value that is contained in a declarative model and that does not refer
+	 * to model elements. Values that were created or modified during
+	 * evaluation, values already cached in the instance model and list
+	 * appends are not shared.
+	 */
+	private static boolean isSharedValue(final InstanceObject io, final List<EvaluatedProperty> values) {
+		if (values.size() != 1 || io instanceof ConnectionInstance || io instanceof ConnectionReference) {
+			return false;
+		}
+		final List<MpvProxy> proxies = values.get(0).getProxies();
+		if (proxies.size() != 1 || proxies.get(0).isModal()) {
+			return false;
+		}
+		final PropertyExpression value = proxies.get(0).getValue();
+		final Resource rsrc = (value == null) ? null : value.eResource();
+		if (rsrc == null || rsrc == io.eResource() || isReference(value)) {
+			return false;
+		}
+		for (final TreeIterator<EObject> iter = value.eAllContents(); iter.hasNext();) {
+			if (isReference(iter.next())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isReference(final EObject value) {
+		return value instanceof ReferenceValue || value instanceof InstanceReferenceValue;
+	}
+
+	/**
+	 * The property associations evaluated for one instance object
+	 */
+	private static class CachedValues {
+		final InstanceObject io;
+
+		final List<PropertyAssociation> associations = new ArrayList<PropertyAssociation>();
+
+		RuntimeException error;
+
+		CachedValues(final InstanceObject io) {
+			this.io = io;
+		}
+	}
+
 	protected void cachePropertyAssociations(InstanceObject io)
 	{
 		//OsateDebug.osateDebug ("[CachePropertyAssociation] io=" + io);
@@ -170,10 +444,10 @@ class CachePropertyAssociationsSwitch extends AadlProcessingSwitchWithProgress {
 					 * reference values to instance reference values.
 					 */
 
-					List<EvaluatedProperty> value =  property.evaluate(new EvaluationContext(io, classifierCache));
+					List<EvaluatedProperty> value =  property.evaluate(new EvaluationContext(io, classifierCache, containedIndex));
 					//OsateDebug.osateDebug ("   value=" + value);
 
-					if (!value.isEmpty()) 
+					if (!value.isEmpty() && !(shareValues && isSharedValue(io, value))) 
 					{
 						//OsateDebug.osateDebug ("[CachePropertyAssociation] io=" + io + ";property=" + property + ";value=" + value);
 						PropertyAssociation pa = io.createOwnedPropertyAssociation();
@@ -244,7 +518,7 @@ class CachePropertyAssociationsSwitch extends AadlProcessingSwitchWithProgress {
 
 						final PropertyAssociation propAssociation = scProps.retrieveSCProperty(conni, prop, connRef.getConnection());
 
-						final EvaluationContext ctx = new EvaluationContext(connRef, classifierCache, propAssociation);
+						final EvaluationContext ctx = new EvaluationContext(connRef, classifierCache, propAssociation, containedIndex);
 						propertyValue = prop.evaluate(ctx);
 
 						if (!propertyValue.isEmpty()) 
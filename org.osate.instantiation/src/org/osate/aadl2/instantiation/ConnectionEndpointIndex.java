@@ -0,0 +1,264 @@
+/*
+ * <copyright>
+ * Copyright  2004 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ *
+ * </copyright>
+ */
+package org.osate.aadl2.instantiation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.osate.aadl2.ComponentImplementation;
+import org.osate.aadl2.Connection;
+import org.osate.aadl2.Feature;
+import org.osate.aadl2.NamedElement;
+import org.osate.aadl2.Subcomponent;
+
+/**
+ * Index of the connections of a component implementation by their source and
+ * destination ends and contexts. The queries return the same connections as
+ * scanning {@link ComponentImplementation#getAllConnections()}, in the same
+ * order, but only look at the connections that have the given feature or
+ * subcomponent as an end or context. Refinements of features and
+ * subcomponents are taken into account as in the scanning helpers of
+ * {@link CreateConnectionsSwitch}.
+ */
+class ConnectionEndpointIndex {
+
+	/*
+	 * position of each connection in getAllConnections()
+	 */
+	private final Map<Connection, Integer> positions = new IdentityHashMap<Connection, Integer>();
+
+	private final Map<NamedElement, List<Connection>> bySource = new HashMap<NamedElement, List<Connection>>();
+
+	private final Map<NamedElement, List<Connection>> byDestination = new HashMap<NamedElement, List<Connection>>();
+
+	private final Map<NamedElement, List<Connection>> bySourceContext = new HashMap<NamedElement, List<Connection>>();
+
+	private final Map<NamedElement, List<Connection>> byDestinationContext = new HashMap<NamedElement, List<Connection>>();
+
+	/**
+	 * @param impl the component implementation whose connections are indexed
+	 */
+	ConnectionEndpointIndex(final ComponentImplementation impl) {
+		int pos = 0;
+		for (Connection conn : impl.getAllConnections()) {
+			positions.put(conn, pos++);
+			put(bySource, conn.getAllSource(), conn);
+			put(byDestination, conn.getAllDestination(), conn);
+			put(bySourceContext, conn.getAllSourceContext(), conn);
+			put(byDestinationContext, conn.getAllDestinationContext(), conn);
+		}
+	}
+
+	private static void put(final Map<NamedElement, List<Connection>> map, final NamedElement key,
+			final Connection conn) {
+		if (key == null) {
+			return;
+		}
+		List<Connection> conns = map.get(key);
+		if (conns == null) {
+			conns = new ArrayList<Connection>(2);
+			map.put(key, conns);
+		}
+		conns.add(conn);
+	}
+
+	/**
+	 * Get the connections that start with a subcomponent, i.e., access
+	 * connections from a shared component.
+	 *
+	 * @param sub a subcomponent of the indexed implementation
+	 * @return the connections that start with the subcomponent
+	 */
+	List<Connection> getStartingConnections(final Subcomponent sub) {
+		final Collector result = new Collector();
+		for (Subcomponent s : sub.getAllSubcomponentRefinements()) {
+			result.addAll(bySource.get(s), false);
+			result.addAll(byDestination.get(s), true);
+		}
+		return result.getConnections();
+	}
+
+	/**
+	 * Get the connections that leave a subcomponent through one of its
+	 * features.
+	 *
+	 * @param sub a subcomponent of the indexed implementation
+	 * @return the connections that go out of the subcomponent
+	 */
+	List<Connection> getOutgoingConnections(final Subcomponent sub) {
+		final Collector result = new Collector();
+		for (Subcomponent s : sub.getAllSubcomponentRefinements()) {
+			result.addAll(bySourceContext.get(s), false);
+			result.addAll(byDestinationContext.get(s), true);
+		}
+		return result.getConnections();
+	}
+
+	/**
+	 * Get the connections that leave a subcomponent through a feature.
+	 *
+	 * @param feature a feature of the subcomponent
+	 * @param sub a subcomponent of the indexed implementation
+	 * @return the connections with the subcomponent's feature as source
+	 */
+	List<Connection> getOutgoingConnections(final Feature feature, final Subcomponent sub) {
+		final List<Subcomponent> subs = sub.getAllSubcomponentRefinements();
+		final Collector result = new Collector();
+		for (Feature f : feature.getAllFeatureRefinements()) {
+			List<Connection> conns = bySource.get(f);
+			if (conns != null) {
+				for (Connection conn : conns) {
+					if (subs.contains(conn.getAllSourceContext())) {
+						result.add(conn);
+					}
+				}
+			}
+			conns = byDestination.get(f);
+			if (conns != null) {
+				for (Connection conn : conns) {
+					if (conn.isBidirectional() && subs.contains(conn.getAllDestinationContext())) {
+						result.add(conn);
+					}
+				}
+			}
+		}
+		return result.getConnections();
+	}
+
+	/**
+	 * Get the connections that go into the indexed implementation through a
+	 * feature of its type or an element of a feature group.
+	 *
+	 * @param feature a feature of the implementation's type
+	 * @return the connections that start at the feature
+	 */
+	List<Connection> getIngoingConnections(final Feature feature) {
+		final Collector result = new Collector();
+		for (Feature f : feature.getAllFeatureRefinements()) {
+			result.addAll(bySource.get(f), false);
+			result.addAll(byDestination.get(f), true);
+			result.addAll(bySourceContext.get(f), false);
+			result.addAll(byDestinationContext.get(f), true);
+		}
+		return result.getConnections();
+	}
+
+	/**
+	 * Check if one of the connections points to a feature of the
+	 * implementation's type.
+	 *
+	 * @param feature a feature of the implementation's type
+	 * @return whether one of the connections points to the feature
+	 */
+	boolean isDestination(final Feature feature) {
+		for (Feature f : feature.getAllFeatureRefinements()) {
+			if (byDestination.containsKey(f) || byDestinationContext.containsKey(f)
+					|| hasBidirectional(bySource.get(f)) || hasBidirectional(bySourceContext.get(f))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Check if a feature of the implementation's type is the end of one of the
+	 * connections.
+	 *
+	 * @param feature a feature of the implementation's type
+	 * @return whether the feature is an end of one of the connections
+	 */
+	boolean isConnectionEnd(final Feature feature) {
+		for (Feature f : feature.getAllFeatureRefinements()) {
+			if (bySource.containsKey(f) || byDestination.containsKey(f) || bySourceContext.containsKey(f)
+					|| byDestinationContext.containsKey(f)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean hasBidirectional(final List<Connection> conns) {
+		if (conns != null) {
+			for (Connection conn : conns) {
+				if (conn.isBidirectional()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Collects connections without duplicates and returns them in declaration
+	 * order.
+	 */
+	private class Collector {
+		private final Map<Connection, Integer> found = new IdentityHashMap<Connection, Integer>();
+
+		void add(final Connection conn) {
+			found.put(conn, positions.get(conn));
+		}
+
+		void addAll(final List<Connection> conns, final boolean bidirectionalOnly) {
+			if (conns != null) {
+				for (Connection conn : conns) {
+					if (!bidirectionalOnly || conn.isBidirectional()) {
+						add(conn);
+					}
+				}
+			}
+		}
+
+		List<Connection> getConnections() {
+			if (found.isEmpty()) {
+				return Collections.emptyList();
+			}
+			final List<Connection> sorted = new ArrayList<Connection>(found.keySet());
+			if (sorted.size() > 1) {
+				Collections.sort(sorted, new Comparator<Connection>() {
+					public int compare(final Connection c1, final Connection c2) {
+						return found.get(c1) - found.get(c2);
+					}
+				});
+			}
+			return sorted;
+		}
+	}
+}
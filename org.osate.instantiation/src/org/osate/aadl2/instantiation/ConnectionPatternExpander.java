@@ -0,0 +1,585 @@
+/*
+ * <copyright>
+ * Copyright  2004 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ *
+ * </copyright>
+ */
+package org.osate.aadl2.instantiation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.InternalEList;
+import org.osate.aadl2.ArrayDimension;
+import org.osate.aadl2.BasicPropertyAssociation;
+import org.osate.aadl2.EnumerationLiteral;
+import org.osate.aadl2.IntegerLiteral;
+import org.osate.aadl2.ListValue;
+import org.osate.aadl2.NamedValue;
+import org.osate.aadl2.PropertyAssociation;
+import org.osate.aadl2.PropertyExpression;
+import org.osate.aadl2.PropertySet;
+import org.osate.aadl2.RecordValue;
+import org.osate.aadl2.instance.ComponentInstance;
+import org.osate.aadl2.instance.ConnectionInstance;
+import org.osate.aadl2.instance.ConnectionInstanceEnd;
+import org.osate.aadl2.instance.FeatureInstance;
+import org.osate.aadl2.instance.InstanceObject;
+import org.osate.aadl2.modelsupport.errorreporting.AnalysisErrorReporterManager;
+
+/**
+ * Expands connection instances that connect arrays into connection instances
+ * between array elements as specified by the connection patterns and
+ * connection sets. Array sizes and indices are kept in int arrays. The array
+ * elements are looked up in tables that are built once for each instance
+ * object on the path of a connection end, and the connection instances are
+ * added to their container without a uniqueness check.
+ */
+class ConnectionPatternExpander {
+
+	private final AnalysisErrorReporterManager errManager;
+
+	/*
+	 * the named elements owned by an instance object, grouped by lower case
+	 * name
+	 */
+	private final Map<InstanceObject, Map<String, ElementTable>> elementTables =
+			new HashMap<InstanceObject, Map<String, ElementTable>>();
+
+	/*
+	 * the connection instances of a component instance by lower case name, to
+	 * detect duplicates
+	 */
+	private final Map<ComponentInstance, Map<String, ConnectionInstance>> connectionNames =
+			new HashMap<ComponentInstance, Map<String, ConnectionInstance>>();
+
+	ConnectionPatternExpander(final AnalysisErrorReporterManager errManager) {
+		this.errManager = errManager;
+	}
+
+	/**
+	 * Expand the given connection instances according to their connection
+	 * patterns and connection sets. Connection instances that have been
+	 * expanded are deleted.
+	 *
+	 * @param connections the connection instances to process
+	 */
+	void process(final List<ConnectionInstance> connections) {
+		final List<ConnectionInstance> toRemove = new ArrayList<ConnectionInstance>();
+
+		for (ConnectionInstance conni : connections) {
+			final PropertyAssociation setPA = getPA(conni, "Connection_Set");
+			final PropertyAssociation patternPA = getPA(conni, "Connection_Pattern");
+			final ComponentInstance container = conni.getContainingComponentInstance();
+
+			if (setPA == null && patternPA == null) {
+				final EndPath src = new EndPath(container, conni.getSource());
+				final EndPath dst = new EndPath(container, conni.getDestination());
+
+				if (src.sizes.length != 0 || dst.sizes.length != 0) {
+					if (interpretConnectionPatterns(conni, null, 0, src, 0, dst, 0, new int[src.sizes.length],
+							new int[dst.sizes.length])) {
+						toRemove.add(conni);
+					}
+				}
+			} else if (patternPA != null) {
+				EcoreUtil.remove(patternPA);
+				final List<PropertyExpression> patterns = ((ListValue) patternPA.getOwnedValues().get(0)
+						.getOwnedValue()).getOwnedListElements();
+				final EndPath src = new EndPath(container, conni.getSource());
+				final EndPath dst = new EndPath(container, conni.getDestination());
+
+				for (PropertyExpression pe : patterns) {
+					List<PropertyExpression> pattern = ((ListValue) pe).getOwnedListElements();
+
+					if (src.sizes.length == 0 && dst.sizes.length == 0) {
+						errManager.warning(conni,
+								"Connection pattern specified for connection that does not connect array elements.");
+					} else {
+						if (interpretConnectionPatterns(conni, pattern, pattern.size() - 1, src, 0, dst, 0,
+								new int[src.sizes.length], new int[dst.sizes.length])) {
+							toRemove.add(conni);
+						}
+					}
+				}
+			} else if (setPA != null) {
+				EcoreUtil.remove(setPA);
+				// TODO-LW: modal conn set allowed?
+				final EndPath src = new EndPath(container, conni.getSource());
+				final EndPath dst = new EndPath(container, conni.getDestination());
+
+				for (PropertyExpression pe : ((ListValue) setPA.getOwnedValues().get(0).getOwnedValue())
+						.getOwnedListElements()) {
+					RecordValue rv = (RecordValue) pe;
+					int[] srcIndices = getIndices(rv, "src");
+					int[] dstIndices = getIndices(rv, "dst");
+
+					createNewConnection(conni, src, srcIndices, srcIndices.length, dst, dstIndices, dstIndices.length);
+				}
+				toRemove.add(conni);
+			}
+		}
+		for (ConnectionInstance conni : toRemove) {
+			EcoreUtil.delete(conni);
+		}
+	}
+
+	/*
+	 * Recursively assign the array indices of source and destination as
+	 * specified by the patterns, starting with the last pattern. Without
+	 * patterns the default One_To_One pattern is used for all dimensions. The
+	 * index arrays are overwritten in place; srcOffset and dstOffset are the
+	 * number of indices assigned so far.
+	 */
+	private boolean interpretConnectionPatterns(ConnectionInstance conni, List<PropertyExpression> patterns,
+			int offset, EndPath src, int srcOffset, EndPath dst, int dstOffset, int[] srcIndices, int[] dstIndices) {
+		final int[] srcSizes = src.sizes;
+		final int[] dstSizes = dst.sizes;
+		boolean result = true;
+
+		if (patterns != null ? offset < 0 : srcOffset == srcSizes.length && dstOffset == dstSizes.length) {
+			createNewConnection(conni, src, srcIndices, srcOffset, dst, dstIndices, dstOffset);
+		} else if (patterns == null) {
+			// default one-to-one pattern
+			if (srcOffset >= srcSizes.length) {
+				errManager.error(conni, "Too few indices in for connection source");
+				return false;
+			}
+			if (dstOffset >= dstSizes.length) {
+				errManager.error(conni, "Too few indices for connection destination");
+				return false;
+			}
+			if (srcSizes[srcOffset] != dstSizes[dstOffset]) {
+				errManager.error(conni, "Array size mismatch (One_To_One): " + srcSizes[srcOffset]
+						+ " at source and " + dstSizes[dstOffset] + " at destination end");
+				return false;
+			} else {
+				for (int i = 1; i <= srcSizes[srcOffset]; i++) {
+					srcIndices[srcOffset] = i;
+					dstIndices[dstOffset] = i;
+					result &= interpretConnectionPatterns(conni, patterns, offset - 1, src, srcOffset + 1, dst,
+							dstOffset + 1, srcIndices, dstIndices);
+				}
+			}
+		} else {
+			NamedValue nv = (NamedValue) patterns.get(offset);
+			EnumerationLiteral pattern = (EnumerationLiteral) nv.getNamedValue();
+			String patternName = pattern.getName();
+
+			if (!patternName.equalsIgnoreCase("One_To_All") && srcOffset >= srcSizes.length) {
+				errManager.error(conni, "Too few indices for connection source");
+				return false;
+			}
+			if (!patternName.equalsIgnoreCase("All_To_One") && dstOffset >= dstSizes.length) {
+				errManager.error(conni, "Too few indices for connection destination");
+				return false;
+			}
+			if (patternName.equalsIgnoreCase("All_To_All")) {
+				for (int i = 1; i <= srcSizes[srcOffset]; i++) {
+					srcIndices[srcOffset] = i;
+					for (int j = 1; j <= dstSizes[dstOffset]; j++) {
+						dstIndices[dstOffset] = j;
+						result &= interpretConnectionPatterns(conni, patterns, offset - 1, src, srcOffset + 1, dst,
+								dstOffset + 1, srcIndices, dstIndices);
+					}
+				}
+			} else if (patternName.equalsIgnoreCase("One_To_All")) {
+				for (int j = 1; j <= dstSizes[dstOffset]; j++) {
+					dstIndices[dstOffset] = j;
+					result &= interpretConnectionPatterns(conni, patterns, offset - 1, src, srcOffset, dst,
+							dstOffset + 1, srcIndices, dstIndices);
+				}
+			} else if (patternName.equalsIgnoreCase("All_To_One")) {
+				for (int i = 1; i <= srcSizes[srcOffset]; i++) {
+					srcIndices[srcOffset] = i;
+					result &= interpretConnectionPatterns(conni, patterns, offset - 1, src, srcOffset + 1, dst,
+							dstOffset, srcIndices, dstIndices);
+				}
+			} else {
+				final int size = srcSizes[srcOffset];
+
+				if (size != dstSizes[dstOffset]) {
+					errManager.error(conni, "Array size mismatch (" + patternName + "): " + size
+							+ " at source and " + dstSizes[dstOffset] + " at destination end");
+					return false;
+				} else {
+					int first;
+					int last;
+					int shift;
+
+					if (patternName.equalsIgnoreCase("One_To_One")) {
+						first = 1;
+						last = size;
+						shift = 0;
+					} else if (patternName.equalsIgnoreCase("Next")) {
+						first = 1;
+						last = size - 1;
+						shift = 1;
+					} else if (patternName.equalsIgnoreCase("Previous")) {
+						first = 2;
+						last = size;
+						shift = -1;
+					} else if (patternName.equalsIgnoreCase("Cyclic_Next")) {
+						first = 1;
+						last = size;
+						shift = 1;
+					} else if (patternName.equalsIgnoreCase("Cyclic_Previous")) {
+						first = 1;
+						last = size;
+						shift = -1;
+					} else {
+						return result;
+					}
+					for (int i = first; i <= last; i++) {
+						int j = i + shift;
+
+						// only the cyclic patterns can leave the array
+						if (j > size) {
+							j = 1;
+						} else if (j < 1) {
+							j = size;
+						}
+						srcIndices[srcOffset] = i;
+						dstIndices[dstOffset] = j;
+						result &= interpretConnectionPatterns(conni, patterns, offset - 1, src, srcOffset + 1, dst,
+								dstOffset + 1, srcIndices, dstIndices);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	private int[] getIndices(RecordValue rv, String field) {
+		int[] indices = new int[0];
+		for (BasicPropertyAssociation fv : rv.getOwnedFieldValues()) {
+			if (fv.getProperty().getName().equalsIgnoreCase(field)) {
+				EList<PropertyExpression> elems = ((ListValue) fv.getOwnedValue()).getOwnedListElements();
+				int[] more = new int[indices.length + elems.size()];
+				System.arraycopy(indices, 0, more, 0, indices.length);
+				for (int i = 0; i < elems.size(); i++) {
+					more[indices.length + i] = (int) ((IntegerLiteral) elems.get(i)).getValue();
+				}
+				indices = more;
+			}
+		}
+		return indices;
+	}
+
+	private PropertyAssociation getPA(ConnectionInstance conni, String name) {
+		for (PropertyAssociation pa : conni.getOwnedPropertyAssociations()) {
+			if (pa.getProperty().getName().equalsIgnoreCase(name)
+					&& ((PropertySet) pa.getProperty().getOwner()).getName().equalsIgnoreCase(
+							"Communication_Properties")) {
+				return pa;
+			}
+		}
+		return null;
+	}
+
+	// TODO-LW: check for invalid number of indices (in property vs. in model path)
+	private void createNewConnection(ConnectionInstance conni, EndPath srcPath, int[] srcIndices, int srcCount,
+			EndPath dstPath, int[] dstIndices, int dstCount) {
+		final ComponentInstance container = conni.getContainingComponentInstance();
+		final Map<String, ConnectionInstance> names = getConnectionNames(container);
+		final ConnectionInstance newConn = EcoreUtil.copy(conni);
+
+		// the copy is new, so there is no need to check if the list contains it
+		((InternalEList<ConnectionInstance>) container.getConnectionInstances()).addUnique(newConn);
+		InstanceObject src = srcPath.resolve(srcIndices, srcCount, newConn);
+		InstanceObject dst = dstPath.resolve(dstIndices, dstCount, newConn);
+
+		if (src == null) {
+			errManager.error(newConn, "Connection source not found");
+		}
+		if (dst == null) {
+			errManager.error(newConn, "Connection destination not found");
+		}
+
+		String containerPath = container.getInstanceObjectPath();
+		int len = containerPath.length() + 1;
+		String srcName = (src != null) ? src.getInstanceObjectPath() : "Source end not found";
+		StringBuffer sb = new StringBuffer();
+		int i = (srcName.startsWith(containerPath)) ? len : 0;
+		sb.append(srcName.substring(i));
+		sb.append(" --> ");
+		String dstName = (dst != null) ? dst.getInstanceObjectPath() : "Destination end not found";
+		i = (dstName.startsWith(containerPath)) ? len : 0;
+		sb.append(dstName.substring(i));
+
+		final String name = sb.toString();
+		final String key = name.toLowerCase();
+		final ConnectionInstance duplicate = names.get(key);
+		if (duplicate != null && duplicate != conni) { // conni will be removed later
+			errManager.warning(newConn, "There is already another connection between the same endpoints");
+		}
+		newConn.setSource((ConnectionInstanceEnd) src);
+		newConn.setDestination((ConnectionInstanceEnd) dst);
+		newConn.setName(name);
+		if (duplicate == null) {
+			names.put(key, newConn);
+		}
+	}
+
+	private Map<String, ConnectionInstance> getConnectionNames(final ComponentInstance container) {
+		Map<String, ConnectionInstance> names = connectionNames.get(container);
+		if (names == null) {
+			names = new HashMap<String, ConnectionInstance>();
+			for (ConnectionInstance conni : container.getConnectionInstances()) {
+				String name = conni.getName();
+				if (name != null && name.length() > 0) {
+					name = name.toLowerCase();
+					if (!names.containsKey(name)) {
+						names.put(name, conni);
+					}
+				}
+			}
+			connectionNames.put(container, names);
+		}
+		return names;
+	}
+
+	private Map<String, ElementTable> getElementTables(final InstanceObject owner) {
+		Map<String, ElementTable> tables = elementTables.get(owner);
+		if (tables == null) {
+			tables = new HashMap<String, ElementTable>();
+			if (owner instanceof ComponentInstance) {
+				addElements(tables, ((ComponentInstance) owner).getComponentInstances());
+				addElements(tables, ((ComponentInstance) owner).getFeatureInstances());
+			} else if (owner instanceof FeatureInstance) {
+				addElements(tables, ((FeatureInstance) owner).getFeatureInstances());
+			}
+			elementTables.put(owner, tables);
+		}
+		return tables;
+	}
+
+	private static void addElements(final Map<String, ElementTable> tables, final List<? extends InstanceObject> ios) {
+		for (InstanceObject io : ios) {
+			final String name = io.getName();
+			if (name != null && name.length() > 0) {
+				final String key = name.toLowerCase();
+				ElementTable table = tables.get(key);
+				if (table == null) {
+					table = new ElementTable();
+					tables.put(key, table);
+				}
+				table.elements.add(io);
+			}
+		}
+	}
+
+	/*
+	 * The instance objects with the same name that are owned by an instance
+	 * object, i.e., the elements of a component or feature array, in model
+	 * order and by their array indices.
+	 */
+	private static class ElementTable {
+		final List<InstanceObject> elements = new ArrayList<InstanceObject>(1);
+
+		/*
+		 * the array elements by linear index, created on first indexed lookup
+		 */
+		InstanceObject[] byIndex;
+
+		/*
+		 * the array sizes used for the linear index
+		 */
+		int[] sizes;
+
+		/*
+		 * get the element with the given indices
+		 */
+		InstanceObject get(final int[] indices, final int offset, final int dim, final int[] allSizes,
+				final int sizesOffset) {
+			if (byIndex == null) {
+				sizes = new int[dim];
+				System.arraycopy(allSizes, sizesOffset, sizes, 0, dim);
+				int length = 1;
+				for (int size : sizes) {
+					length *= size;
+				}
+				byIndex = new InstanceObject[length];
+				for (InstanceObject io : elements) {
+					final int idx = linearIndex(getOwnIndices(io, dim), 0);
+					if (idx >= 0 && byIndex[idx] == null) {
+						byIndex[idx] = io;
+					}
+				}
+			}
+			final int idx = linearIndex(indices, offset);
+			return idx >= 0 ? byIndex[idx] : null;
+		}
+
+		/*
+		 * get the first element whose leading indices match the given ones
+		 */
+		InstanceObject getFirst(final int[] indices, final int offset, final int count, final int dim) {
+			outer: for (InstanceObject io : elements) {
+				final int[] own = getOwnIndices(io, dim);
+				if (own == null) {
+					continue;
+				}
+				for (int d = 0; d < count; d++) {
+					if (own[d] != indices[offset + d]) {
+						continue outer;
+					}
+				}
+				return io;
+			}
+			return null;
+		}
+
+		private int linearIndex(final int[] indices, final int offset) {
+			if (indices == null) {
+				return -1;
+			}
+			int idx = 0;
+			for (int d = 0; d < sizes.length; d++) {
+				final int i = indices[offset + d];
+				if (i < 1 || i > sizes[d]) {
+					return -1;
+				}
+				idx = idx * sizes[d] + i - 1;
+			}
+			return idx;
+		}
+
+		private static int[] getOwnIndices(final InstanceObject io, final int dim) {
+			final int[] own = new int[dim];
+			if (io instanceof ComponentInstance) {
+				final EList<Long> indices = ((ComponentInstance) io).getIndices();
+				if (indices.size() < dim) {
+					return null;
+				}
+				for (int d = 0; d < dim; d++) {
+					own[d] = indices.get(d).intValue();
+				}
+			} else if (io instanceof FeatureInstance && dim == 1) {
+				own[0] = (int) ((FeatureInstance) io).getIndex();
+			} else {
+				return null;
+			}
+			return own;
+		}
+	}
+
+	/*
+	 * The path from the containing component instance of a connection
+	 * instance to one of its ends, with the number of array indices of each
+	 * path element and the array sizes.
+	 */
+	private class EndPath {
+		final ComponentInstance container;
+
+		final String[] names;
+
+		final int[] dims;
+
+		final int[] sizes;
+
+		EndPath(final ComponentInstance container, final ConnectionInstanceEnd end) {
+			final List<InstanceObject> path = new ArrayList<InstanceObject>();
+			int dimCount = 0;
+
+			this.container = container;
+			for (InstanceObject current = end; current != container; current = (InstanceObject) current.getOwner()) {
+				path.add(0, current);
+			}
+			names = new String[path.size()];
+			dims = new int[path.size()];
+			for (int k = 0; k < path.size(); k++) {
+				final InstanceObject current = path.get(k);
+
+				names[k] = current.getName();
+				if (current instanceof ComponentInstance) {
+					dims[k] = ((ComponentInstance) current).getSubcomponent().getArrayDimensions().size();
+				} else if (current instanceof FeatureInstance && ((FeatureInstance) current).getIndex() != 0) {
+					dims[k] = 1;
+				}
+				dimCount += dims[k];
+			}
+			sizes = new int[dimCount];
+			int offset = 0;
+			for (int k = 0; k < path.size(); k++) {
+				final InstanceObject current = path.get(k);
+
+				if (dims[k] == 0) {
+					continue;
+				}
+				if (current instanceof ComponentInstance) {
+					for (ArrayDimension ad : ((ComponentInstance) current).getSubcomponent().getArrayDimensions()) {
+						sizes[offset++] = (int) InstantiateModel.getElementCount(ad.getSize());
+					}
+				} else {
+					FeatureInstance fi = (FeatureInstance) current;
+					sizes[offset++] = (int) InstantiateModel.getElementCount(fi.getFeature().getArrayDimensions()
+							.get(0).getSize());
+				}
+			}
+		}
+
+		/*
+		 * find the instance object at the end of the path for the given array
+		 * indices
+		 */
+		InstanceObject resolve(final int[] indices, final int count, final InstanceObject errorHolder) {
+			InstanceObject result = container;
+			int offset = 0;
+
+			for (int k = 0; k < names.length; k++) {
+				final int dim = dims[k];
+				final ElementTable table = getElementTables(result).get(names[k].toLowerCase());
+
+				if (table == null) {
+					return null;
+				}
+				if (dim == 0) {
+					result = table.elements.get(0);
+				} else if (offset + dim > count) {
+					errManager.warning(errorHolder, "Too few indices for connection end, using fist array element");
+					result = table.getFirst(indices, offset, Math.max(count - offset, 0), dim);
+				} else {
+					result = table.get(indices, offset, dim, sizes, offset);
+				}
+				if (result == null) {
+					return null;
+				}
+				offset += dim;
+			}
+			return result;
+		}
+	}
+}
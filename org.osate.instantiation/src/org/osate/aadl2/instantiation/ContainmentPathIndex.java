@@ -0,0 +1,298 @@
+/*
+ * <copyright>
+ * Copyright  2004 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ *
+ * </copyright>
+ *
+package org.osate.aadl2.instantiation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EObject;
+import org.osate.aadl2.ArrayRange;
+import org.osate.aadl2.Connection;
+import org.osate.aadl2.ContainedNamedElement;
+import org.osate.aadl2.ContainmentPathElement;
+import org.osate.aadl2.NamedElement;
+import org.osate.aadl2.Property;
+import org.osate.aadl2.PropertyAssociation;
+import org.osate.aadl2.instance.ComponentInstance;
+import org.osate.aadl2.instance.InstanceObject;
+import org.osate.aadl2.util.Aadl2Util;
+
+/**
+ * Prefix tree of the containment paths of a list of contained property
+ * associations. The instance objects that the property associations apply to
+ * are found by walking the instance model and the tree together, so each
+ * instance object is visited once per distinct path prefix instead of once
+ * per property association. Path elements are matched by name and array
+ * index as in {@link InstanceObject#findInstanceObjects(EList)}.
+ */
+class ContainmentPathIndex {
+
+	/**
+	 * A property association applied to an instance object.
+	 */
+	static class Match {
+		final int seq;
+
+		final PropertyAssociation pa;
+
+		final ContainedNamedElement cne;
+
+		final InstanceObject io;
+
+		Match(final Entry entry, final InstanceObject io) {
+			seq = entry.seq;
+			pa = entry.pa;
+			cne = entry.cne;
+			this.io = io;
+		}
+	}
+
+	/*
+	 * A path that ends at a tree node. The sequence number orders the entries
+	 * by property association and applies to clause.
+	 */
+	private static class Entry {
+		final int seq;
+
+		final PropertyAssociation pa;
+
+		final ContainedNamedElement cne;
+
+		Entry(final int seq, final PropertyAssociation pa, final ContainedNamedElement cne) {
+			this.seq = seq;
+			this.pa = pa;
+			this.cne = cne;
+		}
+	}
+
+	private static class Node {
+		/*
+		 * outgoing edges by lower case element name
+		 */
+		final Map<String, List<Edge>> edges = new HashMap<String, List<Edge>>();
+
+		final List<Entry> entries = new ArrayList<Entry>(1);
+	}
+
+	private static class Edge {
+		final NamedElement element;
+
+		final EList<ArrayRange> ranges;
+
+		final String rangeKey;
+
+		final Node node = new Node();
+
+		Edge(final NamedElement element, final EList<ArrayRange> ranges, final String rangeKey) {
+			this.element = element;
+			this.ranges = ranges;
+			this.rangeKey = rangeKey;
+		}
+	}
+
+	private static final Comparator<Match> BY_SEQUENCE = new Comparator<Match>() {
+		public int compare(Match m1, Match m2) {
+			return (m1.seq < m2.seq) ? -1 : ((m1.seq == m2.seq) ? 0 : 1);
+		}
+	};
+
+	private final Node root = new Node();
+
+	/**
+	 * Build the index. Property associations without a valid property and
+	 * applies to clauses with an empty path are ignored.
+	 * 
+	 * @param propertyAssociations the property associations in the order in
+	 *            which they are applied
+	 */
+	ContainmentPathIndex(final List<PropertyAssociation> propertyAssociations) {
+		int seq = 0;
+
+		for (PropertyAssociation pa : propertyAssociations) {
+			Property prop = pa.getProperty();
+			if (Aadl2Util.isNull(prop) || Aadl2Util.isNull(prop.getType())) {
+				continue;
+			}
+			for (ContainedNamedElement cne : pa.getAppliesTos()) {
+				final EList<ContainmentPathElement> cpes = cne.getContainmentPathElements();
+				if (cpes != null && !cpes.isEmpty()) {
+					Node node = root;
+					for (ContainmentPathElement cpe : cpes) {
+						node = getChild(node, cpe);
+						if (node == null) {
+							break;
+						}
+					}
+					if (node != null) {
+						node.entries.add(new Entry(seq++, pa, cne));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the child of a node for a path element, adding it if necessary.
+	 * 
+	 * @return The child node, or <code>null</code> if the path element refers
+	 *         to an unresolved or unnamed element and cannot match any
+	 *         instance object.
+	 */
+	private Node getChild(final Node node, final ContainmentPathElement cpe) {
+		final NamedElement ne = cpe.getNamedElement();
+		if (ne == null || ne.getName() == null) {
+			return null;
+		}
+		final String name = ne.getName().toLowerCase();
+		final EList<ArrayRange> ranges = cpe.getArrayRanges();
+		final String rangeKey = getRangeKey(ranges);
+		List<Edge> edges = node.edges.get(name);
+
+		if (edges == null) {
+			edges = new ArrayList<Edge>(1);
+			node.edges.put(name, edges);
+		}
+		for (Edge edge : edges) {
+			if (edge.rangeKey.equals(rangeKey)) {
+				return edge.node;
+			}
+		}
+		final Edge edge = new Edge(ne, ranges, rangeKey);
+		edges.add(edge);
+		return edge.node;
+	}
+
+	private static String getRangeKey(final EList<ArrayRange> ranges) {
+		if (ranges.isEmpty()) {
+			return "";
+		}
+		final StringBuilder sb = new StringBuilder();
+		for (ArrayRange r : ranges) {
+			sb.append('[').append(r.getLowerBound()).append("..").append(r.getUpperBound()).append(']');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @return <code>true</code> if there are no paths in the index
+	 */
+	boolean isEmpty() {
+		return root.edges.isEmpty();
+	}
+
+	/**
+	 * Find the instance objects the property associations apply to.
+	 * 
+	 * @param context the instance object the paths start at
+	 * @return the matches ordered by property association and applies to
+	 *         clause
+	 */
+	List<Match> find(final InstanceObject context) {
+		if (isEmpty()) {
+			return Collections.emptyList();
+		}
+		final List<Match> result = new ArrayList<Match>();
+
+		walk(context, root, result);
+		Collections.sort(result, BY_SEQUENCE);
+		return result;
+	}
+
+	private void walk(final InstanceObject io, final Node node, final List<Match> result) {
+		for (Entry entry : node.entries) {
+			result.add(new Match(entry, io));
+		}
+		if (node.edges.isEmpty()) {
+			return;
+		}
+		final Set<String> matched = new HashSet<String>();
+		for (EObject eo : io.eContents()) {
+			if (eo instanceof InstanceObject) {
+				final InstanceObject next = (InstanceObject) eo;
+				final String name = next.getName();
+
+				if (name != null) {
+					final String key = name.toLowerCase();
+					final List<Edge> edges = node.edges.get(key);
+
+					if (edges != null) {
+						matched.add(key);
+						for (Edge edge : edges) {
+							if (next.matchesIndex(edge.ranges)) {
+								walk(next, edge.node, result);
+							}
+						}
+					}
+				}
+			}
+		}
+		if (io instanceof ComponentInstance && matched.size() < node.edges.size()) {
+			// connections are not matched by name but by the declarative connection
+			for (Map.Entry<String, List<Edge>> me : node.edges.entrySet()) {
+				if (!matched.contains(me.getKey())) {
+					for (Edge edge : me.getValue()) {
+						if (edge.element instanceof Connection) {
+							for (InstanceObject conni : ((ComponentInstance) io)
+									.findConnectionInstance((Connection) edge.element)) {
+								addAll(edge.node, conni, result);
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * the remaining path is ignored for connection instances
+	 */
+	private void addAll(final Node node, final InstanceObject io, final List<Match> result) {
+		for (Entry entry : node.entries) {
+			result.add(new Match(entry, io));
+		}
+		for (List<Edge> edges : node.edges.values()) {
+			for (Edge edge : edges) {
+				addAll(edge.node, io, result);
+			}
+		}
+	}
+}
@@ -51,8 +51,15 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Stack;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.emf.common.util.BasicEList;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.util.EcoreUtil;
@@ -99,6 +106,7 @@ import org.osate.aadl2.instance.util.InstanceSwitch;
 import org.osate.aadl2.instance.util.InstanceUtil;
 import org.osate.aadl2.instance.util.InstanceUtil.InstantiatedClassifier;
 import org.osate.aadl2.modelsupport.errorreporting.AnalysisErrorReporterManager;
+import org.osate.aadl2.modelsupport.errorreporting.QueuingAnalysisErrorReporter;
 import org.osate.aadl2.modelsupport.modeltraversal.AadlProcessingSwitchWithProgress;
 import org.osate.aadl2.modelsupport.util.AadlUtil;
 import org.osate.aadl2.util.OsateDebug;
@@ -132,6 +140,22 @@ public class CreateConnectionsSwitch extends AadlProcessingSwitchWithProgress {
 	 */
 	private HashMap<InstanceObject, InstantiatedClassifier> classifierCache = null;
 
+	/**
+	 * Connection endpoint indexes of the component implementations, built
+	 * when a component implementation is first used.
+	 */
+	private final HashMap<ComponentImplementation, ConnectionEndpointIndex> endpointIndexes =
+			new HashMap<ComponentImplementation, ConnectionEndpointIndex>();
+
+	/**
+	 * In a worker of the concurrent mode: the connection instances to be
+	 * created and the messages reported while tracing the connections of one
+	 * component instance, in the order in which they occur. The connection
+	 * instances are added to the model later on the calling thread. Null in
+	 * sequential mode.
+	 */
+	private List<Object> deferred = null;
+
 	/**
 	 * Create a new instance.
 	 * 
@@ -146,6 +170,18 @@ public class CreateConnectionsSwitch extends AadlProcessingSwitchWithProgress {
 		this.classifierCache = classifierCache;
 	}
 
+	/*
+	 * Create a worker for the concurrent mode. The worker has its own
+	 * traversal state, endpoint indexes and copy of the classifier cache and
+	 * collects its messages in a queue.
+	 */
+	private CreateConnectionsSwitch(final IProgressMonitor pm,
+			final HashMap<InstanceObject, InstantiatedClassifier> classifierCache) {
+		super(pm, PROCESS_PRE_ORDER_ALL, new AnalysisErrorReporterManager(QueuingAnalysisErrorReporter.factory));
+		this.classifierCache = classifierCache != null ? new HashMap<InstanceObject, InstantiatedClassifier>(
+				classifierCache) : null;
+	}
+
 	private boolean isOpposite (Feature feature, Connection connection) 
 	{
 		List<Feature> 	features= feature.getAllFeatureRefinements();
@@ -172,39 +208,245 @@ public class CreateConnectionsSwitch extends AadlProcessingSwitchWithProgress {
 	{
 		instanceSwitch = new InstanceSwitch<String>() 
 		{
-			boolean inArray = false;
-			String prefix = "";
+			final ArrayFilter filter = new ArrayFilter();
 
 			public String caseComponentInstance(final ComponentInstance ci) throws UnsupportedOperationException 
 			{
-				if (!(ci instanceof SystemInstance)) 
+				if (filter.accept(ci)) 
 				{
-					if (!inArray) 
-					{
-						for (Long index : ci.getIndices()) 
-						{
-							if (index > 1) 
-							{
-								inArray = true;
-								prefix = ci.getContainingComponentInstance().getInstanceObjectPath() + "."
-										+ ci.getName();
-							}
+					instantiateConnections(ci);
+				}
+				return DONE;
+			}
+		};
+	}
+
+	/**
+	 * Selects the component instances whose connections are traced during a
+	 * pre-order traversal: all but the system instance and the array
+	 * elements other than the first one.
+	 */
+	private static final class ArrayFilter {
+		private boolean inArray = false;
+
+		private String prefix = "";
+
+		boolean accept(final ComponentInstance ci) {
+			if (ci instanceof SystemInstance) {
+				return false;
+			}
+			if (!inArray) {
+				for (Long index : ci.getIndices()) {
+					if (index > 1) {
+						inArray = true;
+						prefix = ci.getContainingComponentInstance().getInstanceObjectPath() + "." + ci.getName();
+					}
+				}
+			} else {
+				inArray = ci.getInstanceObjectPath().startsWith(prefix);
+			}
+			// process first component of innermost array only
+			return !inArray;
+		}
+	}
+
+	/**
+	 * Create all connection instances of an instance model using several
+	 * threads. The semantic connections that start at different component
+	 * instances are traced in parallel, each worker with its own traversal
+	 * state. The resulting connection instances and messages are then added
+	 * to the model on the calling thread in the order of the pre-order
+	 * traversal, so the instance model is the same as the one created by
+	 * {@link #processPreOrderAll(Element)}.
+	 * <p>
+	 * The declarative model must not be changed while the workers run, and
+	 * all references in it must be resolved before, e.g., with
+	 * {@link org.eclipse.emf.ecore.util.EcoreUtil#resolveAll(org.eclipse.emf.ecore.resource.Resource)},
+	 * because resolving a proxy modifies the model.
+	 * 
+	 * @param root the system instance
+	 * @param threads the number of worker threads
+	 */
+	public void processParallel(final SystemInstance root, final int threads) {
+		final List<ComponentInstance> sources = new ArrayList<ComponentInstance>();
+		collectSources(root, new ArrayFilter(), sources);
+		final int size = sources.size();
+		final AtomicReferenceArray<List<Object>> traces = new AtomicReferenceArray<List<Object>>(size);
+		final AtomicInteger next = new AtomicInteger();
+		final IProgressMonitor workerMonitor = new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return monitor.isCanceled();
+			}
+		};
+
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final List<Future<?>> futures = new ArrayList<Future<?>>(threads);
+		try {
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(new Runnable() {
+					public void run() {
+						final CreateConnectionsSwitch worker = new CreateConnectionsSwitch(workerMonitor,
+								classifierCache);
+						int idx;
+						while ((idx = next.getAndIncrement()) < size && !workerMonitor.isCanceled()) {
+							traces.set(idx, worker.trace(sources.get(idx)));
 						}
-					} 
-					else 
-					{
-						inArray = ci.getInstanceObjectPath().startsWith(prefix);
 					}
-					
-					if (!inArray) 
-					{
-						// process first component of innermost array only
-						instantiateConnections(ci);
+				}));
+			}
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					cancelTraversal();
+					return;
+				} catch (ExecutionException e) {
+					final Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
 					}
+					throw new RuntimeException(cause);
 				}
-				return DONE;
 			}
-		};
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// add the connection instances in traversal order
+		for (int i = 0; i < size; i++) {
+			final List<Object> trace = traces.get(i);
+			checkIfCancelled();
+			if (trace == null || cancelled()) {
+				break;
+			}
+			final ComponentInstance ci = sources.get(i);
+			if (ci.getContainingComponentInstance() instanceof SystemInstance) {
+				monitor.subTask("Creating connections in  " + ci.getName());
+			}
+			commit(root, trace);
+		}
+	}
+
+	/*
+	 * Collect the component instances in pre-order
+	 */
+	private static void collectSources(final ComponentInstance ci, final ArrayFilter filter,
+			final List<ComponentInstance> result) {
+		if (filter.accept(ci)) {
+			result.add(ci);
+		}
+		for (ComponentInstance sub : ci.getComponentInstances()) {
+			collectSources(sub, filter, result);
+		}
+	}
+
+	/*
+	 * Worker: trace the connections that start at a component instance
+	 */
+	private List<Object> trace(final ComponentInstance ci) {
+		final List<Object> result = new ArrayList<Object>();
+		deferred = result;
+		try {
+			instantiateConnections(ci);
+			deferMessages(ci);
+		} finally {
+			deferred = null;
+		}
+		return result;
+	}
+
+	/*
+	 * Worker: move the queued messages to the deferred actions
+	 */
+	private void deferMessages(final InstanceObject io) {
+		final QueuingAnalysisErrorReporter reporter = (QueuingAnalysisErrorReporter) getErrorManager()
+				.getReporter(io.eResource());
+		deferred.addAll(reporter.getErrors());
+		reporter.deleteMessages();
+	}
+
+	/*
+	 * Replay the actions of a worker on the calling thread
+	 */
+	private void commit(final SystemInstance root, final List<Object> trace) {
+		final AnalysisErrorReporterManager errManager = getErrorManager();
+		for (Object action : trace) {
+			if (action instanceof DeferredConnection) {
+				final DeferredConnection dc = (DeferredConnection) action;
+				final ConnectionInstance conni = addConnectionInstance(root, dc.connInfo, dc.dstI);
+				if (dc.modeTransition) {
+					fillInModes(conni);
+					fillInModeTransitions(conni);
+				}
+			} else {
+				final QueuingAnalysisErrorReporter.Message msg = (QueuingAnalysisErrorReporter.Message) action;
+				if (QueuingAnalysisErrorReporter.ERROR.equals(msg.kind)) {
+					errManager.error(msg.where, msg.message, msg.attributes, msg.values);
+				} else if (QueuingAnalysisErrorReporter.WARNING.equals(msg.kind)) {
+					errManager.warning(msg.where, msg.message, msg.attributes, msg.values);
+				} else {
+					errManager.info(msg.where, msg.message, msg.attributes, msg.values);
+				}
+			}
+		}
+	}
+
+	/**
+	 * A connection instance found by a worker.
+	 */
+	private static final class DeferredConnection {
+		final ConnectionInfo connInfo;
+
+		final ConnectionInstanceEnd dstI;
+
+		/** Mode transition connection whose modes are filled in again */
+		final boolean modeTransition;
+
+		DeferredConnection(final ConnectionInfo connInfo, final ConnectionInstanceEnd dstI,
+				final boolean modeTransition) {
+			this.connInfo = connInfo;
+			this.dstI = dstI;
+			this.modeTransition = modeTransition;
+		}
+	}
+
+	/**
+	 * Create the connection instances that start at the given component
+	 * instances. As in the traversal, elements of component arrays other than
+	 * the first one are skipped; their connections are created from the
+	 * connection patterns. Connection instances that already exist are not
+	 * created again.
+	 *
+	 * @param sources the component instances to process
+	 */
+	public void instantiateConnections(final List<ComponentInstance> sources) {
+		for (ComponentInstance ci : sources) {
+			if (!(ci instanceof SystemInstance) && !isArrayCopy(ci)) {
+				instantiateConnections(ci);
+			}
+			checkIfCancelled();
+			if (cancelled()) {
+				break;
+			}
+		}
+	}
+
+	/*
+	 * check if the component instance or one of its ancestors is an array
+	 * element other than the first one
+	 */
+	private boolean isArrayCopy(ComponentInstance ci) {
+		while (ci != null && !(ci instanceof SystemInstance)) {
+			for (Long index : ci.getIndices()) {
+				if (index > 1) {
+					return true;
+				}
+			}
+			ci = ci.getContainingComponentInstance();
+		}
+		return false;
 	}
 
 	/**
@@ -219,11 +461,16 @@ public class CreateConnectionsSwitch extends AadlProcessingSwitchWithProgress {
 	// TODO-LW: warning if connection incomplete
 	private void instantiateConnections(final ComponentInstance ci) throws UnsupportedOperationException 
 	{
+		// indices left over from an aborted connection must not leak into
+		// the connections of other components
+		upIndex.clear();
+		downIndex.clear();
+
 		ComponentCategory cat = ci.getCategory();
 		Subcomponent sub = ci.getSubcomponent();
 		ComponentInstance parentci = ci.getContainingComponentInstance();
-		List<Connection> parentConns = 
-				InstanceUtil.getComponentImplementation(parentci, 0, classifierCache).getAllConnections();
+		ConnectionEndpointIndex parentIndex = 
+				getEndpointIndex(InstanceUtil.getComponentImplementation(parentci, 0, classifierCache));
 
 		if (parentci instanceof SystemInstance) 
 		{
@@ -233,7 +480,7 @@ public class CreateConnectionsSwitch extends AadlProcessingSwitchWithProgress {
 		if (cat == DATA || cat == BUS || cat == SUBPROGRAM || cat == SUBPROGRAM_GROUP)
 		{
 			// connection instance may start at a shared component
-			for (Connection conn : filterStartingConnections(parentConns, sub))
+			for (Connection conn : parentIndex.getStartingConnections(sub))
 			{
 				boolean opposite = sub.getAllSubcomponentRefinements().contains(conn.getAllDestination());
 
@@ -247,10 +494,8 @@ public class CreateConnectionsSwitch extends AadlProcessingSwitchWithProgress {
 		else 
 		{
 			// connection instance may start at a feature
-			List<Connection> outsideSubConns = filterOutgoingConnections(parentConns, sub);
 			ComponentImplementation cimpl = InstanceUtil.getComponentImplementation(ci, 0, classifierCache);
-			@SuppressWarnings("unchecked")
-			List<Connection> insideSubConns = cimpl != null ? cimpl.getAllConnections() : Collections.EMPTY_LIST;
+			ConnectionEndpointIndex insideIndex = cimpl != null ? getEndpointIndex(cimpl) : null;
 			boolean hasOutgoingFeatureSubcomponents = 
 					AadlUtil.hasOutgoingFeatureSubcomponents(ci.getComponentInstances());
 
@@ -260,15 +505,15 @@ public class CreateConnectionsSwitch extends AadlProcessingSwitchWithProgress {
 				// TODO warning if subcomponents with outgoing features exist
 				if (AadlUtil.hasOutgoingFeatures(featurei)) 
 				{
-					List<Connection> outgoingConns = filterOutgoingConnections(outsideSubConns, feature, sub);
+					List<Connection> outgoingConns = parentIndex.getOutgoingConnections(feature, sub);
 					boolean connectedInside = false;
 					boolean destinationFromInside = false;
 
 					// warn if there's an incomplete connection
 					if (cat != THREAD && cat != PROCESSOR && cat != DEVICE && cat != VIRTUAL_PROCESSOR
-							&& hasOutgoingFeatureSubcomponents) {
-						connectedInside = isConnectionEnd(insideSubConns, feature);
-						destinationFromInside = isDestination(insideSubConns, feature);
+							&& hasOutgoingFeatureSubcomponents && insideIndex != null) {
+						connectedInside = insideIndex.isConnectionEnd(feature);
+						destinationFromInside = insideIndex.isDestination(feature);
 					}
 
 					// first see if mode transitions are triggered by a
@@ -514,9 +759,9 @@ public class CreateConnectionsSwitch extends AadlProcessingSwitchWithProgress {
 					}
 
 					ComponentInstance nextCi = ci.getContainingComponentInstance();
-					List<Connection> parentConns = InstanceUtil.getComponentImplementation(nextCi, 0, classifierCache)
-							.getAllConnections();
-					List<Connection> conns = filterOutgoingConnections(parentConns, toFeature, ci.getSubcomponent());
+					List<Connection> conns = getEndpointIndex(
+							InstanceUtil.getComponentImplementation(nextCi, 0, classifierCache)).getOutgoingConnections(
+							toFeature, ci.getSubcomponent());
 
 					if (conns.isEmpty() && !didModeTransitionConnection) {
 						// PropertyValue reqconn =
@@ -588,7 +833,7 @@ public class CreateConnectionsSwitch extends AadlProcessingSwitchWithProgress {
 					finalizeConnectionInstance(ci, connInfo, toFi);
 				} else {
 					// there is a toImpl
-					List<Connection> conns = AadlUtil.getIngoingConnections(toImpl, toFeature);
+					List<Connection> conns = getEndpointIndex(toImpl).getIngoingConnections(toFeature);
 
 					
 					if (conns.isEmpty()) {
@@ -715,6 +960,11 @@ public class CreateConnectionsSwitch extends AadlProcessingSwitchWithProgress {
 
 	protected ConnectionInstance addConnectionInstance(final SystemInstance systemInstance,
 			final ConnectionInfo connInfo, final ConnectionInstanceEnd dstI) {
+		if (deferred != null) {
+			deferMessages(systemInstance);
+			deferred.add(new DeferredConnection(connInfo.cloneInfo(), dstI, false));
+			return null;
+		}
 		// Generate a name for the connection
 		String containerPath = (connInfo.container != null) ? connInfo.container.getInstanceObjectPath() : systemInstance.getName();
 		int len =  containerPath.length() + 1 ;
@@ -1071,10 +1321,16 @@ public class CreateConnectionsSwitch extends AadlProcessingSwitchWithProgress {
 					if (context instanceof FeatureGroup)
 						context = parent.getSubcomponent().getAllClassifier();
 					if (f == o && context == connContext) {
-						final ConnectionInstance mtci = addConnectionInstance(parentci.getSystemInstance(),
-								connInfo.convertToModeTransition(), mti);
-						fillInModes(mtci);
-						fillInModeTransitions(mtci);
+						if (deferred != null) {
+							deferMessages(parentci);
+							deferred.add(new DeferredConnection(connInfo.convertToModeTransition().cloneInfo(), mti,
+									true));
+						} else {
+							final ConnectionInstance mtci = addConnectionInstance(parentci.getSystemInstance(),
+									connInfo.convertToModeTransition(), mti);
+							fillInModes(mtci);
+							fillInModeTransitions(mtci);
+						}
 						didTransition = true;
 					}
 				} else {
@@ -1224,39 +1480,33 @@ public class CreateConnectionsSwitch extends AadlProcessingSwitchWithProgress {
 	// ------------------------------------------------------------------------
 
 	/**
-	 * Filter all (port or access) connections that start with a subcomponent.
+	 * Get the index of the connections of a component implementation.
 	 * 
-	 * @param connlist all connections in the component instance that contains
-	 *            the subcomponent
-	 * @param sub a subcomponent
-	 * @return the connections from connlist that start with the subcomponent
+	 * @param impl a component implementation
+	 * @return the connection endpoint index of the implementation
 	 */
-	protected List<Connection> filterStartingConnections(List<Connection> connlist, Subcomponent sub) {
-		List<Connection> result = new ArrayList<Connection>(connlist.size());
-		EList<Subcomponent> sublist = sub.getAllSubcomponentRefinements();
-		for (Connection conn : connlist) {
-			if (sublist.contains(conn.getAllSource())  || (conn.isBidirectional() && sublist.contains(conn.getAllDestination()))) {
-				result.add(conn);
-			}
+	private ConnectionEndpointIndex getEndpointIndex(ComponentImplementation impl) {
+		ConnectionEndpointIndex index = endpointIndexes.get(impl);
+		if (index == null) {
+			index = new ConnectionEndpointIndex(impl);
+			endpointIndexes.put(impl, index);
 		}
-		return result;
+		return index;
 	}
 
 	/**
-	 * Filter connections that leave a subcomponent through one of its features.
+	 * Filter all (port or access) connections that start with a subcomponent.
 	 * 
 	 * @param connlist all connections in the component instance that contains
 	 *            the subcomponent
 	 * @param sub a subcomponent
-	 * @return those connections from connlist that go out of the subcomponent
+	 * @return the connections from connlist that start with the subcomponent
 	 */
-	private List<Connection> filterOutgoingConnections(List<Connection> connlist, Subcomponent sub) {
-		List<Connection> result = new ArrayList<Connection>();
-		List<Subcomponent> subs = sub.getAllSubcomponentRefinements();
-
+	protected List<Connection> filterStartingConnections(List<Connection> connlist, Subcomponent sub) {
+		List<Connection> result = new ArrayList<Connection>(connlist.size());
+		EList<Subcomponent> sublist = sub.getAllSubcomponentRefinements();
 		for (Connection conn : connlist) {
-			if (subs.contains(conn.getAllSourceContext()) || conn.isBidirectional()
-					&& subs.contains(conn.getAllDestinationContext())) {
+			if (sublist.contains(conn.getAllSource())  || (conn.isBidirectional() && sublist.contains(conn.getAllDestination()))) {
 				result.add(conn);
 			}
 		}
@@ -38,6 +38,7 @@
 package org.osate.aadl2.instantiation;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -82,7 +83,9 @@ import org.osate.aadl2.instance.InstanceObject;
 import org.osate.aadl2.instance.ModeInstance;
 import org.osate.aadl2.instance.ModeTransitionInstance;
 import org.osate.aadl2.instance.SystemInstance;
-import org.osate.aadl2.instance.SystemOperationMode;
+import org.osate.aadl2.instance.impl.ComponentInstanceImpl;
+import org.osate.aadl2.instance.impl.SystemInstanceImpl;
+import org.osate.aadl2.instance.impl.SystemOperationModeIndex;
 import org.osate.aadl2.instance.util.InstanceSwitch;
 import org.osate.aadl2.instance.util.InstanceUtil;
 import org.osate.aadl2.instance.util.InstanceUtil.InstantiatedClassifier;
@@ -185,6 +188,15 @@ public class CreateEndToEndFlowsSwitch extends AadlProcessingSwitchWithProgress
 	 */
 	private List<Connection> connections = new ArrayList<Connection>();
 
+	/**
+	 * The connection instances of the system instance by the declarative
+	 * connections they pass through. Each list is in the order of
+	 * getAllConnectionInstances(). Built on first use, i.e., after the
+	 * connection instances have been created; this switch does not add or
+	 * remove connection instances.
+	 */
+	private HashMap<Connection, List<ConnectionInstance>> connectionIndex = null;
+
 	/**
 	 * All end to end flow instances created for an end to end flow.
 	 */
@@ -912,15 +924,44 @@ public class CreateEndToEndFlowsSwitch extends AadlProcessingSwitchWithProgress
 	 */
 	private List<ConnectionInstance> collectConnectionInstances(ComponentInstance ci, EndToEndFlowInstance etei) {
 		List<ConnectionInstance> result = new ArrayList<ConnectionInstance>();
+		List<ConnectionInstance> candidates = getConnectionIndex(ci.getSystemInstance()).get(connections.get(0));
 
-		for (ConnectionInstance conni : ci.getSystemInstance().getAllConnectionInstances()) {
-			if (testConnection(conni, etei)) {
-				result.add(conni);
+		if (candidates != null) {
+			for (ConnectionInstance conni : candidates) {
+				if (testConnection(conni, etei)) {
+					result.add(conni);
+				}
 			}
 		}
 		return result;
 	}
 
+	/**
+	 * Get the index from declarative connections to the connection instances
+	 * that go through them, building it if necessary.
+	 */
+	private HashMap<Connection, List<ConnectionInstance>> getConnectionIndex(SystemInstance si) {
+		if (connectionIndex == null) {
+			connectionIndex = new HashMap<Connection, List<ConnectionInstance>>();
+			for (ConnectionInstance conni : si.getAllConnectionInstances()) {
+				for (ConnectionReference connRef : conni.getConnectionReferences()) {
+					Connection conn = connRef.getConnection();
+					List<ConnectionInstance> connis = connectionIndex.get(conn);
+
+					if (connis == null) {
+						connis = new ArrayList<ConnectionInstance>(1);
+						connectionIndex.put(conn, connis);
+					}
+					// a connection instance may go through a connection more than once
+					if (connis.isEmpty() || connis.get(connis.size() - 1) != conni) {
+						connis.add(conni);
+					}
+				}
+			}
+		}
+		return connectionIndex;
+	}
+
 	/**
 	 * @param conni
 	 * @param etei
@@ -1015,89 +1056,53 @@ public class CreateEndToEndFlowsSwitch extends AadlProcessingSwitchWithProgress
 			return;
 		}
 
+		// SOMs are handled as bit sets over the SOM numbering of the system instance
+		SystemOperationModeIndex index = ((SystemInstanceImpl) etei.getSystemInstance()).getSystemOperationModeIndex();
+
 		// first, calculate intersection of all connection and ete instance SOMs
 		EList<FlowElementInstance> feis = etei.getFlowElements();
-		List<SystemOperationMode> soms = new ArrayList<SystemOperationMode>(etei.getSystemInstance()
-				.getSystemOperationModes());
+		BitSet soms = index.getAll();
 
 		for (FlowElementInstance fei : feis) {
-			List<SystemOperationMode> newSoms = new ArrayList<SystemOperationMode>();
-
 			if (fei instanceof ConnectionInstance) {
 				ConnectionInstance conni = (ConnectionInstance) fei;
 
-				if (conni.getInSystemOperationModes().isEmpty()) {
-					continue;
-				}
-				for (SystemOperationMode som : soms) {
-					if (conni.getInSystemOperationModes().contains(som)) {
-						newSoms.add(som);
-					}
+				if (!conni.getInSystemOperationModes().isEmpty()) {
+					soms.and(index.toBits(conni.getInSystemOperationModes()));
 				}
 			} else if (fei instanceof EndToEndFlowInstance) {
 				EndToEndFlowInstance efi = (EndToEndFlowInstance) fei;
 
-				if (efi.getInSystemOperationModes().isEmpty()) {
-					continue;
-				}
-				for (SystemOperationMode som : soms) {
-					if (efi.getInSystemOperationModes().contains(som)) {
-						newSoms.add(som);
-					}
+				if (!efi.getInSystemOperationModes().isEmpty()) {
+					soms.and(index.toBits(efi.getInSystemOperationModes()));
 				}
-			} else {
-				continue;
 			}
-			soms = newSoms;
 		}
 
 		// then, keep those SOMs where all other flow elements are active
 		for (FlowElementInstance fei : feis) {
-			List<SystemOperationMode> newSoms = new ArrayList<SystemOperationMode>();
 			if (fei instanceof FlowSpecificationInstance) {
 				FlowSpecificationInstance fsi = (FlowSpecificationInstance) fei;
 
-				for (SystemOperationMode som : soms) {
-					if (fsi.isActive(som)) {
-						newSoms.add(som);
+				for (int i = soms.nextSetBit(0); i >= 0; i = soms.nextSetBit(i + 1)) {
+					if (!fsi.isActive(index.get(i))) {
+						soms.clear(i);
 					}
 				}
 			} else if (fei instanceof ComponentInstance) {
-				ComponentInstance ci = (ComponentInstance) fei;
-
-				for (SystemOperationMode som : soms) {
-					if (ci.isActive(som)) {
-						newSoms.add(som);
-					}
-				}
-			} else {
-				continue;
+				soms.and(((ComponentInstanceImpl) fei).getActiveSystemOperationModes(index));
 			}
-			soms = newSoms;
 		}
 
 		// finally, keep those SOMs where the ete and used flow implementations are active
-		for (SystemOperationMode som : soms) {
-			if (containsModeInstances(som, etei.getModesList())) {
-				etei.getInSystemOperationModes().add(som);
-			}
+		for (List<ModeInstance> mis : etei.getModesList()) {
+			soms.and(index.getSystemOperationModesWithAny(mis));
 		}
+		etei.getInSystemOperationModes().addAll(index.toList(soms));
 
 		etei.getModesList().clear();
 	}
 
-	private boolean containsModeInstances(SystemOperationMode som, List<EList<ModeInstance>> modeLists) {
-		outer: for (List<ModeInstance> mis : modeLists) {
-			for (ModeInstance mi : mis) {
-				if (som.getCurrentModes().contains(mi)) {
-					continue outer;
-				}
-			}
-			return false;
-		}
-		return true;
-	}
-
 	// -------------------------------------------------------------------------
 	// Stack utilities
 	// -------------------------------------------------------------------------
@@ -41,15 +41,21 @@ package org.osate.aadl2.instantiation;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Stack;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.emf.common.command.Command;
@@ -69,7 +75,6 @@ import org.osate.aadl2.AccessSpecification;
 import org.osate.aadl2.ArrayDimension;
 import org.osate.aadl2.ArraySize;
 import org.osate.aadl2.ArraySizeProperty;
-import org.osate.aadl2.BasicPropertyAssociation;
 import org.osate.aadl2.Classifier;
 import org.osate.aadl2.ComponentCategory;
 import org.osate.aadl2.ComponentClassifier;
@@ -79,7 +84,6 @@ import org.osate.aadl2.Context;
 import org.osate.aadl2.DirectedFeature;
 import org.osate.aadl2.DirectionType;
 import org.osate.aadl2.Element;
-import org.osate.aadl2.EnumerationLiteral;
 import org.osate.aadl2.Feature;
 import org.osate.aadl2.FeatureGroup;
 import org.osate.aadl2.FeatureGroupPrototype;
@@ -91,14 +95,12 @@ import org.osate.aadl2.FeatureType;
 import org.osate.aadl2.FlowEnd;
 import org.osate.aadl2.FlowSpecification;
 import org.osate.aadl2.IntegerLiteral;
-import org.osate.aadl2.ListValue;
 import org.osate.aadl2.ModalElement;
 import org.osate.aadl2.Mode;
 import org.osate.aadl2.ModeBinding;
 import org.osate.aadl2.ModeTransition;
 import org.osate.aadl2.ModeTransitionTrigger;
 import org.osate.aadl2.NamedElement;
-import org.osate.aadl2.NamedValue;
 import org.osate.aadl2.PortCategory;
 import org.osate.aadl2.PortSpecification;
 import org.osate.aadl2.ProcessSubcomponent;
@@ -106,22 +108,24 @@ import org.osate.aadl2.Property;
 import org.osate.aadl2.PropertyAssociation;
 import org.osate.aadl2.PropertyConstant;
 import org.osate.aadl2.PropertyExpression;
-import org.osate.aadl2.PropertySet;
-import org.osate.aadl2.RecordValue;
 import org.osate.aadl2.Subcomponent;
 import org.osate.aadl2.SystemImplementation;
 import org.osate.aadl2.SystemSubcomponent;
 import org.osate.aadl2.ThreadGroupSubcomponent;
 import org.osate.aadl2.TriggerPort;
+import org.osate.aadl2.impl.DeclarativeAdapters;
 import org.osate.aadl2.instance.ComponentInstance;
 import org.osate.aadl2.instance.ConnectionInstance;
 import org.osate.aadl2.instance.ConnectionInstanceEnd;
 import org.osate.aadl2.instance.ConnectionReference;
+import org.osate.aadl2.instance.EndToEndFlowInstance;
 import org.osate.aadl2.instance.FeatureCategory;
 import org.osate.aadl2.instance.FeatureInstance;
+import org.osate.aadl2.instance.FlowElementInstance;
 import org.osate.aadl2.instance.FlowSpecificationInstance;
 import org.osate.aadl2.instance.InstanceFactory;
 import org.osate.aadl2.instance.InstanceObject;
+import org.osate.aadl2.instance.InstanceReferenceValue;
 import org.osate.aadl2.instance.ModeInstance;
 import org.osate.aadl2.instance.ModeTransitionInstance;
 import org.osate.aadl2.instance.SystemInstance;
@@ -132,9 +136,11 @@ import org.osate.aadl2.modelsupport.AadlConstants;
 import org.osate.aadl2.modelsupport.errorreporting.AnalysisErrorReporterManager;
 import org.osate.aadl2.modelsupport.errorreporting.MarkerAnalysisErrorReporter;
 import org.osate.aadl2.modelsupport.modeltraversal.ForAllElement;
+import org.osate.aadl2.modelsupport.modeltraversal.SystemOperationModeEnumerator;
 import org.osate.aadl2.modelsupport.modeltraversal.TraverseWorkspace;
 import org.osate.aadl2.modelsupport.resources.OsateResourceUtil;
-import org.osate.aadl2.modelsupport.util.AadlUtil;
+import org.osate.aadl2.properties.PropertyValueCache;
+import org.osate.aadl2.util.Aadl2ResourceImpl;
 import org.osate.aadl2.util.Aadl2Util;
 import org.osate.aadl2.util.OsateDebug;
 import org.osate.workspace.WorkspacePlugin;
@@ -170,27 +176,102 @@ public class InstantiateModel {
 	 */
 	private HashMap<ModeInstance, List<SystemOperationMode>> mode2som;
 
+	/**
+	 * Number of threads used to cache property values. With a single thread
+	 * the instance model is processed by a pre-order traversal.
+	 */
+	private int propertyCachingThreads = 1;
+
+	/**
+	 * Number of threads used to create connection instances. With a single
+	 * thread the instance model is processed by a pre-order traversal.
+	 */
+	private int connectionThreads = 1;
+
+	/**
+	 * Share instance independent property values with the declarative model
+	 * instead of copying them to every instance object?
+	 */
+	private boolean shareValues = false;
+
+	/**
+	 * Maximum number of system operation modes created for the instance
+	 * model, 0 for no limit.
+	 */
+	private int maxSystemOperationModes = 0;
+
+	/**
+	 * Save the instance model in the binary format instead of XMI?
+	 */
+	private boolean saveBinary = false;
+
 	/*
 	 * An error message that is filled by potential methods that
 	 * instantiate the system and raises an error. This message
 	 * is then show in the error dialog when an instantiation error
-	 * is raised.
+	 * is raised. Each instance keeps its own message so that models
+	 * can be instantiated in parallel.
+	 */
+	private String errorMessage = null;
+
+	/*
+	 * The message last set by any instance, kept for the deprecated static
+	 * accessors.
 	 */
-	private static String errorMessage = null;
+	private static volatile String lastErrorMessage = null;
 	
 	/*
 	 * To keep under control the error messages and ease
 	 * debug, we encapsulate the error message string
 	 * and access it only through methods (setters and getters).
 	 */
-	public static void setErrorMessage (String s)
+	private void reportError(String s)
 	{
 		errorMessage = s;
+		if (s != null) {
+			lastErrorMessage = s;
+		}
 	}
-	public static String getErrorMessage()
+
+	/**
+	 * Get the reason why the last call to
+	 * {@link #createSystemInstanceInt(SystemImplementation, Resource)} or
+	 * {@link #createSystemInstance(SystemImplementation, Resource)} on this
+	 * object failed.
+	 * 
+	 * @return the error message, or <code>null</code> if none is known
+	 */
+	public String getInstantiationErrorMessage()
 	{
 		return errorMessage;
 	}
+
+	/**
+	 * @deprecated The message is shared by all instantiations, so it is
+	 *             wrong when several models are instantiated at the same
+	 *             time. Use {@link #getInstantiationErrorMessage()}.
+	 */
+	@Deprecated
+	public static void setErrorMessage (String s)
+	{
+		lastErrorMessage = s;
+	}
+
+	/**
+	 * Get the error message of the instantiation that failed last, in any
+	 * thread.
+	 * 
+	 * @deprecated The message is shared by all instantiations, so it is
+	 *             wrong when several models are instantiated at the same
+	 *             time. Use {@link #getInstantiationErrorMessage()} or the
+	 *             exception thrown by
+	 *             {@link #buildInstanceModelFile(SystemImplementation)}.
+	 */
+	@Deprecated
+	public static String getErrorMessage()
+	{
+		return lastErrorMessage;
+	}
 	
 	// Constructors
 
@@ -220,6 +301,87 @@ public class InstantiateModel {
 		monitor = pm;
 	}
 
+	/**
+	 * Set the number of threads used to evaluate and cache the property values
+	 * of the instance objects. If more than one thread is used, the objects on
+	 * each level of the instance tree are evaluated in parallel and their
+	 * property associations are added to the model on the instantiating
+	 * thread.
+	 * 
+	 * @param threads the number of threads, 1 for sequential processing
+	 */
+	public void setPropertyCachingThreads(final int threads) {
+		propertyCachingThreads = Math.max(1, threads);
+	}
+
+	/**
+	 * Set the number of threads used to create connection instances. If more
+	 * than one thread is used, the semantic connections are traced in
+	 * parallel and the connection instances are added to the model on the
+	 * instantiating thread. All references in the declarative models are
+	 * resolved before the workers start. The resulting instance model is the
+	 * same.
+	 * 
+	 * @param threads the number of threads, 1 for sequential processing
+	 */
+	public void setConnectionThreads(final int threads) {
+		connectionThreads = Math.max(1, threads);
+	}
+
+	/**
+	 * Enable or disable sharing of property values. By default the value of
+	 * every used property is copied to each instance object it applies to.
+	 * With sharing enabled, values that are taken unchanged from the
+	 * declarative model and contain no references, such as literals, ranges
+	 * and enumeration values, are not copied. Property lookup on the instance
+	 * objects finds them in the declarative model instead, which reduces the
+	 * size of the instance model. Modal values, list appends and values that
+	 * refer to instance objects are still copied.
+	 * <p>
+	 * The shared values are not written to the saved instance model file.
+	 * Property lookup on a loaded instance model still finds them as long as
+	 * the declarative models can be loaded, but tools that read the
+	 * <code>.aaxl2</code> file without the declarative models do not see
+	 * them. Sharing is disabled by default.
+	 * 
+	 * @param share whether to share instance independent values
+	 */
+	public void setShareValues(final boolean share) {
+		shareValues = share;
+	}
+
+	/**
+	 * Set the maximum number of system operation modes that are created for
+	 * the instance model. Further system operation modes can still be
+	 * enumerated on demand with a {@link org.osate.aadl2.modelsupport.modeltraversal.SOMIterator}.
+	 * 
+	 * @param max the maximum number of system operation modes, 0 for no limit
+	 */
+	public void setMaxSystemOperationModes(final int max) {
+		maxSystemOperationModes = Math.max(0, max);
+	}
+
+	/**
+	 * Select the format of the instance model file. The binary format is much
+	 * faster to save and load for large instance models, XMI is the default.
+	 * 
+	 * @param binary <code>true</code> to save the instance model in the EMF
+	 *            binary format
+	 */
+	public void setSaveBinary(final boolean binary) {
+		saveBinary = binary;
+	}
+
+	/*
+	 * options for saving the instance model, null for the resource defaults
+	 */
+	Map<Object, Object> getSaveOptions() {
+		if (!saveBinary) {
+			return null;
+		}
+		return Collections.<Object, Object> singletonMap(Aadl2ResourceImpl.OPTION_BINARY, Boolean.TRUE);
+	}
+
 	// Methods
 	/*
 	 * This method will construct an instance model, save it on disk and return
@@ -232,6 +394,10 @@ public class InstantiateModel {
 	 * @param si system implementation
 	 * 
 	 * @return SystemInstance or <code>null</code> if cancelled.
+	 * 
+	 * @throws Exception if the instantiation failed, the message gives the
+	 * reason. Earlier versions returned <code>null</code> in this case and
+	 * left the reason in {@link #getErrorMessage()}, which is still set.
 	 */
 	public static SystemInstance buildInstanceModelFile(final SystemImplementation si) throws Exception 
 	{
@@ -249,9 +415,9 @@ public class InstantiateModel {
 				new AnalysisErrorReporterManager(new MarkerAnalysisErrorReporter.Factory(
 						AadlConstants.INSTANTIATION_OBJECT_MARKER)));
 		SystemInstance root = instantiateModel.createSystemInstance(isi, aadlResource);
-		if (root == null)
+		if (root == null && instantiateModel.getInstantiationErrorMessage() != null)
 		{
-			errorMessage = InstantiateModel.getErrorMessage();
+			throw new Exception(instantiateModel.getInstantiationErrorMessage());
 		}
 		return root;
 	}
@@ -272,6 +438,7 @@ public class InstantiateModel {
 		SystemInstance target = (SystemInstance) res.getContents().get(0);
 		SystemImplementation si = target.getSystemImplementation();
 		URI uri = EcoreUtil.getURI(si);
+		PropertyValueCache.disable(target);
 		res.unload();
 		OsateResourceUtil.refreshResourceSet();
 		si = (SystemImplementation) OsateResourceUtil.getResourceSet().getEObject(uri, true);
@@ -295,6 +462,7 @@ public class InstantiateModel {
 			SystemInstance target = (SystemInstance) res.getContents().get(0);
 			SystemImplementation si = target.getSystemImplementation();
 			URI uri = EcoreUtil.getURI(si);
+			PropertyValueCache.disable(target);
 			res.unload();
 			OsateResourceUtil.refreshResourceSet();
 			si = (SystemImplementation) OsateResourceUtil.getResourceSet().getEObject(uri, true);
@@ -305,6 +473,71 @@ public class InstantiateModel {
 		}
 	}
 
+	/**
+	 * Regenerate all instance models in the workspace, instantiating up to
+	 * the given number of models in parallel.
+	 * 
+	 * @param threads the number of models to instantiate in parallel
+	 * @param monitor the progress monitor
+	 * @return the outcome for each instance model
+	 * @see BatchInstantiation
+	 */
+	public static List<BatchInstantiation.Result> rebuildAllInstanceModelFiles(final int threads,
+			final IProgressMonitor monitor) throws Exception {
+		return new BatchInstantiation(threads).rebuildAllInstanceModelFiles(monitor);
+	}
+
+	/*
+	 * This method will update an instance model after the given classifiers
+	 * have changed and save it. Only the component instances that depend on
+	 * the changed classifiers are instantiated again. If that is not possible,
+	 * e.g., because the system implementation or modal components are
+	 * affected, the instance model is rebuilt completely. Markers on the
+	 * unchanged part of the instance model are kept.
+	 * 
+	 * @param ires the instance model file
+	 * 
+	 * @param changedClassifiers qualified names of the changed classifiers
+	 * 
+	 * @return SystemInstance or <code>null</code> if cancelled.
+	 */
+	public static SystemInstance rebuildInstanceModelFile(final IResource ires,
+			final Collection<String> changedClassifiers) throws Exception {
+		OsateResourceUtil.refreshResourceSet();
+		return reinstantiateInstanceModelFile(ires, changedClassifiers);
+	}
+
+	/*
+	 * This method will update all instance models in the workspace after the
+	 * given classifiers have changed
+	 */
+	public static void rebuildAllInstanceModelFiles(final Collection<String> changedClassifiers) throws Exception {
+		HashSet<IFile> files = TraverseWorkspace.getInstanceModelFilesInWorkspace();
+		OsateResourceUtil.refreshResourceSet();
+		for (IFile iFile : files) {
+			reinstantiateInstanceModelFile(iFile, changedClassifiers);
+		}
+	}
+
+	/*
+	 * Update an instance model incrementally, falling back to a full rebuild.
+	 * The declarative models must have been reloaded already.
+	 */
+	private static SystemInstance reinstantiateInstanceModelFile(final IResource ires,
+			final Collection<String> changedClassifiers) throws Exception {
+		Resource res = OsateResourceUtil.getResource(ires);
+		SystemInstance target = (SystemInstance) res.getContents().get(0);
+		final InstantiateModel instantiateModel = new InstantiateModel(new NullProgressMonitor(),
+				new AnalysisErrorReporterManager(new MarkerAnalysisErrorReporter.Factory(
+						AadlConstants.INSTANTIATION_OBJECT_MARKER)));
+
+		if (instantiateModel.reinstantiateChangedSubtrees(target, changedClassifiers)) {
+			res.save(null);
+			return target;
+		}
+		return rebuildInstanceModelFile(ires);
+	}
+
 	/**
 	 * create a system instance into the provided (empty) resource and save it
 	 * This is performed as a transactional operation
@@ -355,24 +588,17 @@ public class InstantiateModel {
 	 * @return SystemInstance or <code>null</code> if canceled.
 	 */
 	public SystemInstance createSystemInstanceInt(SystemImplementation si, Resource aadlResource) {
-		SystemInstance root = InstanceFactory.eINSTANCE.createSystemInstance();
-		final String instanceName = si.getTypeName() + "_" + si.getImplementationName()
-				+ WorkspacePlugin.INSTANCE_MODEL_POSTFIX;
-
-		root.setSystemImplementation(si);
-		root.setName(instanceName);
-		root.setCategory(ComponentCategory.SYSTEM);
-		aadlResource.getContents().add(root);
+		SystemInstance root = createRoot(si, aadlResource);
 		// Needed to save the root object because we may attach warnings to the
 		// IResource as we build it.
 		try 
 		{
-			aadlResource.save(null);
+			aadlResource.save(getSaveOptions());
 
 			try {
 				fillSystemInstance(root);
 			} catch (Exception e) {
-				InstantiateModel.setErrorMessage (e.getMessage());
+				reportError(e.getMessage());
 				e.printStackTrace();
 				return null;
 			}
@@ -381,18 +607,18 @@ public class InstantiateModel {
 
 			monitor.subTask ("Saving instance model");
 
-			aadlResource.save(null);
+			aadlResource.save(getSaveOptions());
 		} 
 		catch (IOException e) 
 		{
 			e.printStackTrace();
-			setErrorMessage( e.getMessage() );
+			reportError(e.getMessage());
 			return null;
 		}
 		catch (NullPointerException npe)
 		{
 			npe.printStackTrace();
-			setErrorMessage( npe.getMessage() );
+			reportError(npe.getMessage());
 
 			npe.getMessage();
 			return null;
@@ -400,7 +626,7 @@ public class InstantiateModel {
 		catch (Exception e)
 		{
 			e.printStackTrace();
-			errorMessage = e.getMessage();
+			reportError(e.getMessage());
 
 			e.getMessage();
 			return null;
@@ -408,6 +634,41 @@ public class InstantiateModel {
 		return root;
 	}
 
+	/*
+	 * instantiate SystemImpl as root of instance tree without saving the
+	 * model. Used by BatchInstantiation, whose workers must not write to the
+	 * workspace.
+	 * 
+	 * @return SystemInstance or <code>null</code> if the instantiation failed
+	 */
+	SystemInstance createUnsavedSystemInstance(SystemImplementation si, Resource aadlResource) {
+		final SystemInstance root = createRoot(si, aadlResource);
+		try {
+			fillSystemInstance(root);
+		} catch (Exception e) {
+			e.printStackTrace();
+			reportError(e.getMessage());
+			return null;
+		}
+		return root;
+	}
+
+	/*
+	 * create the system instance and add it to the resource
+	 */
+	private SystemInstance createRoot(SystemImplementation si, Resource aadlResource) {
+		final SystemInstance root = InstanceFactory.eINSTANCE.createSystemInstance();
+		final String instanceName = si.getTypeName() + "_" + si.getImplementationName()
+				+ WorkspacePlugin.INSTANCE_MODEL_POSTFIX;
+
+		root.setSystemImplementation(si);
+		root.setName(instanceName);
+		root.setCategory(ComponentCategory.SYSTEM);
+		aadlResource.getContents().add(root);
+		reportError(null);
+		return root;
+	}
+
 	/** 
 	 * Will in fill instance model under system instance but not save it
 	 * @param root
@@ -424,7 +685,15 @@ public class InstantiateModel {
 			return;
 		}
 
-		new CreateConnectionsSwitch(monitor, errManager, classifierCache).processPreOrderAll(root);
+		boolean resolved = false;
+		final CreateConnectionsSwitch ccs = new CreateConnectionsSwitch(monitor, errManager, classifierCache);
+		if (connectionThreads > 1) {
+			DeclarativeAdapters.prepare(root);
+			resolved = true;
+			ccs.processParallel(root, connectionThreads);
+		} else {
+			ccs.processPreOrderAll(root);
+		}
 		if (monitor.isCanceled()) {
 			return;
 		}
@@ -475,7 +744,15 @@ public class InstantiateModel {
 				 classifierCache, 
 				 scProps, 
 				 mode2som);
-		cpas.processPreOrderAll(root);
+		cpas.setShareValues(shareValues);
+		if (propertyCachingThreads > 1) {
+			if (!resolved) {
+				DeclarativeAdapters.prepare(root);
+			}
+			cpas.processParallel(root, propertyCachingThreads);
+		} else {
+			cpas.processPreOrderAll(root);
+		}
 		if (monitor.isCanceled()) {
 			return;
 		}
@@ -499,6 +776,391 @@ public class InstantiateModel {
 		return;
 	}
 
+	/**
+	 * Re-instantiate the parts of an instance model that depend on changed
+	 * classifiers. This is performed as a transactional operation.
+	 * 
+	 * @param root the system instance, it must refer to the current
+	 *            declarative model
+	 * @param changedClassifiers qualified names of the changed classifiers
+	 * @return <code>true</code> if the instance model has been updated,
+	 *         <code>false</code> if it must be instantiated again completely
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean reinstantiateChangedSubtrees(final SystemInstance root,
+			final Collection<String> changedClassifiers) throws Exception {
+		final TransactionalEditingDomain domain = TransactionalEditingDomain.Registry.INSTANCE
+				.getEditingDomain("org.osate.aadl2.ModelEditingDomain");
+		Command cmd = new RecordingCommand(domain) {
+			public boolean updated;
+
+			protected void doExecute() {
+				updated = reinstantiateChangedSubtreesInt(root, changedClassifiers);
+			}
+
+			public List<Boolean> getResult() {
+				return Collections.singletonList(updated);
+			}
+		};
+
+		((TransactionalCommandStack) domain.getCommandStack()).execute(cmd, null);
+		return ((List<Boolean>) cmd.getResult()).get(0);
+	}
+
+	/**
+	 * Re-instantiate the topmost component instances whose classifier, or the
+	 * classifier of one of whose features, is one of the changed classifiers
+	 * or extends one of them. Connection instances and end to end flow
+	 * instances that lead into these subtrees are created again, and
+	 * properties are cached for the new instance objects and for the instance
+	 * objects whose property values referred to removed instance objects.
+	 * Changes that affect the system implementation or modal components
+	 * require a full instantiation because the system operation modes may
+	 * change. If <code>false</code> is returned the instance model may have
+	 * been modified partially.
+	 * 
+	 * @param root the system instance
+	 * @param changedClassifiers qualified names of the changed classifiers
+	 * @return <code>true</code> if the instance model has been updated,
+	 *         <code>false</code> if it must be instantiated again completely
+	 */
+	public boolean reinstantiateChangedSubtreesInt(final SystemInstance root,
+			final Collection<String> changedClassifiers) {
+		final Set<String> names = new HashSet<String>();
+		for (String name : changedClassifiers) {
+			names.add(name.toLowerCase());
+		}
+		if (dependsOn(root, names)) {
+			return false;
+		}
+		// cached lookups may refer to the objects that are replaced
+		PropertyValueCache.disable(root);
+		final Set<ComponentInstance> regions = new LinkedHashSet<ComponentInstance>();
+		findChangedSubtrees(root, names, regions);
+		if (regions.isEmpty()) {
+			return true;
+		}
+
+		/*
+		 * Collect the instance objects that will be removed and everything
+		 * outside the changed subtrees that refers to them.
+		 */
+		final Set<EObject> removed = new HashSet<EObject>();
+		for (ComponentInstance ci : regions) {
+			if (hasModes(ci)) {
+				return false;
+			}
+			for (TreeIterator<EObject> it = ci.eAllContents(); it.hasNext();) {
+				EObject obj = it.next();
+				if (obj instanceof InstanceObject) {
+					removed.add(obj);
+				} else {
+					it.prune();
+				}
+			}
+		}
+		final List<ConnectionInstance> removedConnections = new ArrayList<ConnectionInstance>();
+		final Set<ComponentInstance> connectionSources = new LinkedHashSet<ComponentInstance>();
+		for (ConnectionInstance conni : root.getAllConnectionInstances()) {
+			if (!removed.contains(conni)
+					&& (isChanged(conni.getSource(), regions, removed) || isChanged(conni.getDestination(), regions,
+							removed))) {
+				ConnectionInstanceEnd src = conni.getSource();
+				ComponentInstance srcci = (src instanceof ComponentInstance) ? (ComponentInstance) src : src
+						.getContainingComponentInstance();
+
+				removedConnections.add(conni);
+				if (!isChanged(srcci, regions, removed)) {
+					connectionSources.add(srcci);
+				}
+			}
+		}
+		removed.addAll(removedConnections);
+		final Set<ComponentInstance> eteContainers = new LinkedHashSet<ComponentInstance>();
+		final Set<InstanceObject> referrers = new LinkedHashSet<InstanceObject>();
+		for (TreeIterator<EObject> it = root.eAllContents(); it.hasNext();) {
+			EObject obj = it.next();
+
+			if (regions.contains(obj) || removed.contains(obj)) {
+				it.prune();
+			} else if (obj instanceof EndToEndFlowInstance) {
+				for (FlowElementInstance fei : ((EndToEndFlowInstance) obj).getFlowElements()) {
+					if (isChanged(fei, regions, removed)) {
+						eteContainers.add(((EndToEndFlowInstance) obj).getContainingComponentInstance());
+						break;
+					}
+				}
+			} else if (obj instanceof InstanceReferenceValue) {
+				if (removed.contains(((InstanceReferenceValue) obj).getReferencedInstanceObject())) {
+					EObject holder = obj.eContainer();
+					while (!(holder instanceof InstanceObject)) {
+						holder = holder.eContainer();
+					}
+					referrers.add((InstanceObject) holder);
+				}
+			}
+		}
+
+		// drop the markers of the objects that are removed or created again
+		final Set<String> replaced = new HashSet<String>();
+		for (EObject obj : removed) {
+			replaced.add(EcoreUtil.getURI(obj).toString());
+		}
+		for (ComponentInstance ci : regions) {
+			replaced.add(EcoreUtil.getURI(ci).toString());
+		}
+		for (ComponentInstance ci : eteContainers) {
+			for (EndToEndFlowInstance etei : ci.getEndToEndFlows()) {
+				replaced.add(EcoreUtil.getURI(etei).toString());
+			}
+		}
+		for (InstanceObject io : referrers) {
+			replaced.add(EcoreUtil.getURI(io).toString());
+		}
+		deleteMarkers(root, replaced);
+
+		// remove the old instance objects and instantiate the subtrees again
+		for (ConnectionInstance conni : removedConnections) {
+			EcoreUtil.remove(conni);
+		}
+		for (ComponentInstance ci : eteContainers) {
+			ci.getEndToEndFlows().clear();
+		}
+		for (Iterator<InstanceObject> it = referrers.iterator(); it.hasNext();) {
+			if (!EcoreUtil.isAncestor(root, it.next())) {
+				it.remove();
+			}
+		}
+		classifierCache.keySet().removeAll(removed);
+		for (ComponentInstance ci : regions) {
+			List<Long> indices = ci.getIndices();
+			int index = indices.isEmpty() ? 0 : indices.get(indices.size() - 1).intValue();
+
+			classifierCache.remove(ci);
+			ci.getFeatureInstances().clear();
+			ci.getComponentInstances().clear();
+			ci.getModeInstances().clear();
+			ci.getModeTransitionInstances().clear();
+			ci.getFlowSpecifications().clear();
+			ci.getEndToEndFlows().clear();
+			ci.getConnectionInstances().clear();
+			ci.getOwnedPropertyAssociations().clear();
+			populateComponentInstance(ci, index);
+			if (monitor.isCanceled() || hasModes(ci)) {
+				return false;
+			}
+		}
+		if (mode2som.isEmpty()) {
+			for (SystemOperationMode som : root.getSystemOperationModes()) {
+				for (ModeInstance mi : som.getCurrentModes()) {
+					List<SystemOperationMode> soms = mode2som.get(mi);
+					if (soms == null) {
+						soms = new ArrayList<SystemOperationMode>();
+						mode2som.put(mi, soms);
+					}
+					soms.add(som);
+				}
+			}
+		}
+
+		// connections that start in or lead into the new subtrees
+		final Set<ConnectionInstance> oldConnections = new HashSet<ConnectionInstance>(root.getAllConnectionInstances());
+		final List<ComponentInstance> sources = new ArrayList<ComponentInstance>();
+		for (ComponentInstance ci : regions) {
+			sources.addAll(ci.getAllComponentInstances());
+		}
+		sources.addAll(connectionSources);
+		new CreateConnectionsSwitch(monitor, errManager, classifierCache).instantiateConnections(sources);
+		if (monitor.isCanceled()) {
+			return false;
+		}
+		final List<ConnectionInstance> newConnections = new ArrayList<ConnectionInstance>();
+		for (ConnectionInstance conni : root.getAllConnectionInstances()) {
+			if (!oldConnections.contains(conni)) {
+				newConnections.add(conni);
+			}
+		}
+
+		final CreateEndToEndFlowsSwitch cetefs = new CreateEndToEndFlowsSwitch(monitor, errManager, classifierCache);
+		for (ComponentInstance ci : regions) {
+			cetefs.processPreOrderAll(ci);
+		}
+		final List<EndToEndFlowInstance> newFlows = new ArrayList<EndToEndFlowInstance>();
+		for (ComponentInstance ci : eteContainers) {
+			cetefs.processObject(ci);
+			newFlows.addAll(ci.getEndToEndFlows());
+		}
+		if (monitor.isCanceled()) {
+			return false;
+		}
+
+		// cache the properties of the new and of the referring instance objects
+		final Set<InstanceObject> created = new HashSet<InstanceObject>();
+		for (ComponentInstance ci : regions) {
+			created.add(ci);
+			for (TreeIterator<EObject> it = ci.eAllContents(); it.hasNext();) {
+				EObject obj = it.next();
+				if (obj instanceof InstanceObject) {
+					created.add((InstanceObject) obj);
+				} else {
+					it.prune();
+				}
+			}
+		}
+		final Set<InstanceObject> targets = new HashSet<InstanceObject>(created);
+		targets.addAll(newConnections);
+		targets.addAll(newFlows);
+		targets.addAll(referrers);
+		EList<Property> propertyDefinitionList = getAllUsedPropertyDefinitions(root);
+		CacheContainedPropertyAssociationsSwitch ccpas = new CacheContainedPropertyAssociationsSwitch(classifierCache,
+				scProps, monitor, errManager);
+		ccpas.processRegions(root, regions, targets);
+		if (monitor.isCanceled()) {
+			return false;
+		}
+
+		final CachePropertyAssociationsSwitch cpas = new CachePropertyAssociationsSwitch(monitor, errManager,
+				propertyDefinitionList, classifierCache, scProps, mode2som);
+		cpas.setShareValues(shareValues);
+		for (ComponentInstance ci : regions) {
+			cpas.processPreOrderAll(ci);
+		}
+		for (ConnectionInstance conni : newConnections) {
+			if (!created.contains(conni)) {
+				cpas.processObject(conni);
+			}
+		}
+		for (EndToEndFlowInstance etei : newFlows) {
+			cpas.processObject(etei);
+		}
+		for (InstanceObject io : referrers) {
+			cpas.processObject(io);
+		}
+		if (monitor.isCanceled()) {
+			return false;
+		}
+
+		processConnections(newConnections);
+		return !monitor.isCanceled();
+	}
+
+	/*
+	 * Delete the markers on the instance model file that are attached to one
+	 * of the given objects or to an object contained in one of them. This is
+	 * the incremental counterpart of deleting all markers before a full
+	 * instantiation.
+	 */
+	private static void deleteMarkers(final SystemInstance root, final Set<String> uris) {
+		final IResource ires = OsateResourceUtil.convertToIResource(root.eResource());
+		if (ires == null || !ires.exists() || uris.isEmpty()) {
+			return;
+		}
+		try {
+			for (IMarker marker : ires.findMarkers(null, true, IResource.DEPTH_ZERO)) {
+				final String uri = marker.getAttribute(AadlConstants.AADLURI, null);
+				if (uri != null && isReplaced(uri, uris)) {
+					marker.delete();
+				}
+			}
+		} catch (CoreException e) {
+			InstancePlugin.log(e.getStatus());
+		}
+	}
+
+	/*
+	 * Is the object with the given URI or one of its containers in the set?
+	 * Containers are found by removing segments from the URI fragment.
+	 */
+	private static boolean isReplaced(String uri, final Set<String> uris) {
+		final int fragment = uri.indexOf('#');
+		while (!uris.contains(uri)) {
+			final int slash = uri.lastIndexOf('/');
+			if (fragment < 0 || slash <= fragment) {
+				return false;
+			}
+			uri = uri.substring(0, slash);
+		}
+		return true;
+	}
+
+	/*
+	 * find the topmost component instances below ci that depend on one of the
+	 * named classifiers
+	 */
+	private void findChangedSubtrees(final ComponentInstance ci, final Set<String> names,
+			final Set<ComponentInstance> result) {
+		for (ComponentInstance sub : ci.getComponentInstances()) {
+			if (dependsOn(sub, names)) {
+				result.add(sub);
+			} else {
+				findChangedSubtrees(sub, names, result);
+			}
+		}
+	}
+
+	/*
+	 * check if the classifier of a component instance or of one of its
+	 * features is one of the named classifiers or extends one of them
+	 */
+	private boolean dependsOn(final ComponentInstance ci, final Set<String> names) {
+		ComponentClassifier cc = InstanceUtil.getComponentClassifier(ci, 0, classifierCache);
+
+		if (isNamed(cc, names)) {
+			return true;
+		}
+		if (cc instanceof ComponentImplementation && isNamed(((ComponentImplementation) cc).getType(), names)) {
+			return true;
+		}
+		for (FeatureInstance fi : ci.getFeatureInstances()) {
+			if (dependsOn(fi, names)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean dependsOn(final FeatureInstance fi, final Set<String> names) {
+		if (!Aadl2Util.isNull(fi.getFeature()) && isNamed(fi.getFeature().getAllClassifier(), names)) {
+			return true;
+		}
+		for (FeatureInstance sub : fi.getFeatureInstances()) {
+			if (dependsOn(sub, names)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isNamed(final Classifier cl, final Set<String> names) {
+		if (Aadl2Util.isNull(cl)) {
+			return false;
+		}
+		for (Classifier c : cl.getSelfPlusAllExtended()) {
+			String name = c.getQualifiedName();
+			if (name != null && names.contains(name.toLowerCase())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * check if an instance object is the root of a changed subtree or will be
+	 * removed
+	 */
+	private boolean isChanged(final EObject io, final Set<ComponentInstance> regions, final Set<EObject> removed) {
+		return regions.contains(io) || removed.contains(io);
+	}
+
+	private boolean hasModes(final ComponentInstance ci) {
+		for (ComponentInstance sub : ci.getAllComponentInstances()) {
+			if (!sub.getModeInstances().isEmpty()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	// --------------------------------------------------------------------------------------------
 	// Methods for instantiating the component hierarchy
 	// --------------------------------------------------------------------------------------------
@@ -1017,378 +1679,15 @@ public class InstantiateModel {
 	// --------------------------------------------------------------------------------------------
 
 	private void processConnections(SystemInstance root) {
-		List<ConnectionInstance> toRemove = new ArrayList<ConnectionInstance>();
-
-		for (ConnectionInstance conni : root.getAllConnectionInstances()) {
-			PropertyAssociation setPA = getPA(conni, "Connection_Set");
-			PropertyAssociation patternPA = getPA(conni, "Connection_Pattern");
-
-			if (setPA == null && patternPA == null)
-			{
-				//OsateDebug.osateDebug("[InstantiateModel] processConnections");
-
-				LinkedList<Integer> srcDims = new LinkedList<Integer>();
-				LinkedList<Integer> dstDims = new LinkedList<Integer>();
-				LinkedList<Integer> srcSizes = new LinkedList<Integer>();
-				LinkedList<Integer> dstSizes = new LinkedList<Integer>();
-				boolean done = false;
-
-				analyzePath(conni.getContainingComponentInstance(), conni.getSource(), null, srcDims, srcSizes);
-				analyzePath(conni.getContainingComponentInstance(), conni.getDestination(), null, dstDims, dstSizes);
-				for (int d : srcDims) {
-					if (d != 0) {
-						done = true;
-						if (interpretConnectionPatterns(conni, null, 0, srcSizes, 0, dstSizes, 0,
-								new ArrayList<Long>(), new ArrayList<Long>())) {
-							toRemove.add(conni);
-						}
-						break;
-					}
-				}
-				if (!done) {
-					for (int d : dstDims) {
-						if (d != 0) {
-							done = true;
-							if (interpretConnectionPatterns(conni, null, 0, srcSizes, 0, dstSizes, 0,
-									new ArrayList<Long>(), new ArrayList<Long>())) {
-								toRemove.add(conni);
-							}
-							break;
-						}
-					}
-				}
-			} else if (patternPA != null) {
-				EcoreUtil.remove(patternPA);
-				List<PropertyExpression> patterns = ((ListValue) patternPA.getOwnedValues().get(0).getOwnedValue())
-						.getOwnedListElements();
-				for (PropertyExpression pe : patterns) {
-					List<PropertyExpression> pattern = ((ListValue) pe).getOwnedListElements();
-					LinkedList<Integer> srcSizes = new LinkedList<Integer>();
-					LinkedList<Integer> dstSizes = new LinkedList<Integer>();
-
-					analyzePath(conni.getContainingComponentInstance(), conni.getSource(), null, null, srcSizes);
-					analyzePath(conni.getContainingComponentInstance(), conni.getDestination(), null, null, dstSizes);
-					if (srcSizes.size() == 0 && dstSizes.size() == 0) {
-						errManager.warning(conni,
-								"Connection pattern specified for connection that does not connect array elements.");
-					} else {
-						if (interpretConnectionPatterns(conni, pattern, pattern.size() - 1, srcSizes, 0, dstSizes, 0,
-								new ArrayList<Long>(), new ArrayList<Long>())) {
-							toRemove.add(conni);
-						}
-					}
-				}
-			} else if (setPA != null) {
-				EcoreUtil.remove(setPA);
-				// TODO-LW: modal conn set allowed?
-				List<Long> srcIndices;
-				List<Long> dstIndices;
-				for (PropertyExpression pe : ((ListValue) setPA.getOwnedValues().get(0).getOwnedValue())
-						.getOwnedListElements()) {
-					RecordValue rv = (RecordValue) pe;
-
-					srcIndices = getIndices(rv, "src");
-					dstIndices = getIndices(rv, "dst");
-					createNewConnection(conni, srcIndices, dstIndices);
-				}
-				toRemove.add(conni);
-			}
-		}
-		for (ConnectionInstance conni : toRemove) {
-			EcoreUtil.delete(conni);
-		}
-	}
-
-	private boolean interpretConnectionPatterns(ConnectionInstance conni, List<PropertyExpression> patterns,
-			int offset, List<Integer> srcSizes, int srcOffset, List<Integer> dstSizes, int dstOffset,
-			List<Long> srcIndices, List<Long> dstIndices) {
-		boolean result = true;
-
-		if (patterns != null ? offset < 0 : srcOffset == srcSizes.size() && dstOffset == dstSizes.size()) {
-			createNewConnection(conni, srcIndices, dstIndices);
-		} else if (patterns == null) {
-			// default one-to-one pattern
-			if (srcOffset >= srcSizes.size()) {
-				errManager.error(conni, "Too few indices in for connection source");
-				return false;
-			}
-			if (dstOffset >= dstSizes.size()) {
-				errManager.error(conni, "Too few indices for connection destination");
-				return false;
-			}
-			if (srcSizes.get(srcOffset) != dstSizes.get(dstOffset)) {
-				errManager.error(conni, "Array size mismatch (One_To_One): " + srcSizes.get(srcOffset)
-						+ " at source and " + dstSizes.get(dstOffset) + " at destination end");
-				return false;
-			} else {
-				for (long i = 1; i <= srcSizes.get(srcOffset); i++) {
-					srcIndices.add(i);
-					dstIndices.add(i);
-					result &= interpretConnectionPatterns(conni, patterns, offset - 1, srcSizes, srcOffset + 1,
-							dstSizes, dstOffset + 1, srcIndices, dstIndices);
-					srcIndices.remove(srcOffset);
-					dstIndices.remove(dstOffset);
-				}
-			}
-		} else {
-			NamedValue nv = (NamedValue) patterns.get(offset);
-			EnumerationLiteral pattern = (EnumerationLiteral) nv.getNamedValue();
-			String patternName = pattern.getName();
-
-			if (!patternName.equalsIgnoreCase("One_To_All") && srcOffset >= srcSizes.size()) {
-				errManager.error(conni, "Too few indices for connection source");
-				return false;
-			}
-			if (!patternName.equalsIgnoreCase("All_To_One") && dstOffset >= dstSizes.size()) {
-				errManager.error(conni, "Too few indices for connection destination");
-				return false;
-			}
-			if (patternName.equalsIgnoreCase("All_To_All")) {
-				for (long i = 1; i <= srcSizes.get(srcOffset); i++) {
-					srcIndices.add(i);
-					for (long j = 1; j <= dstSizes.get(dstOffset); j++) {
-						dstIndices.add(j);
-						result &= interpretConnectionPatterns(conni, patterns, offset - 1, srcSizes, srcOffset + 1,
-								dstSizes, dstOffset + 1, srcIndices, dstIndices);
-						dstIndices.remove(dstOffset);
-					}
-					srcIndices.remove(srcOffset);
-				}
-			} else if (patternName.equalsIgnoreCase("One_To_All")) {
-				for (long j = 1; j <= dstSizes.get(dstOffset); j++) {
-					dstIndices.add(j);
-					result &= interpretConnectionPatterns(conni, patterns, offset - 1, srcSizes, srcOffset, dstSizes,
-							dstOffset + 1, srcIndices, dstIndices);
-					dstIndices.remove(dstOffset);
-				}
-			} else if (patternName.equalsIgnoreCase("All_To_One")) {
-				for (long i = 1; i <= srcSizes.get(srcOffset); i++) {
-					srcIndices.add(i);
-					result &= interpretConnectionPatterns(conni, patterns, offset - 1, srcSizes, srcOffset + 1,
-							dstSizes, dstOffset, srcIndices, dstIndices);
-					srcIndices.remove(srcOffset);
-				}
-			} else {
-				if (srcSizes.get(srcOffset) != dstSizes.get(dstOffset)) {
-					errManager.error(conni, "Array size mismatch (" + patternName + "): " + srcSizes.get(srcOffset)
-							+ " at source and " + dstSizes.get(dstOffset) + " at destination end");
-					return false;
-				} else {
-					if (patternName.equalsIgnoreCase("One_To_One")) {
-						for (long i = 1; i <= srcSizes.get(srcOffset); i++) {
-							srcIndices.add(i);
-							dstIndices.add(i);
-							result &= interpretConnectionPatterns(conni, patterns, offset - 1, srcSizes, srcOffset + 1,
-									dstSizes, dstOffset + 1, srcIndices, dstIndices);
-							srcIndices.remove(srcOffset);
-							dstIndices.remove(dstOffset);
-						}
-					} else if (patternName.equalsIgnoreCase("Next")) {
-						for (long i = 1; i <= srcSizes.get(srcOffset) - 1; i++) {
-							srcIndices.add(i);
-							dstIndices.add(i + 1);
-							result &= interpretConnectionPatterns(conni, patterns, offset - 1, srcSizes, srcOffset + 1,
-									dstSizes, dstOffset + 1, srcIndices, dstIndices);
-							dstIndices.remove(dstOffset);
-							srcIndices.remove(srcOffset);
-						}
-					} else if (patternName.equalsIgnoreCase("Previous")) {
-						for (long i = 2; i <= srcSizes.get(srcOffset); i++) {
-							srcIndices.add(i);
-							dstIndices.add(i - 1);
-							result &= interpretConnectionPatterns(conni, patterns, offset - 1, srcSizes, srcOffset + 1,
-									dstSizes, dstOffset + 1, srcIndices, dstIndices);
-							dstIndices.remove(dstOffset);
-							srcIndices.remove(srcOffset);
-						}
-					} else if (patternName.equalsIgnoreCase("Cyclic_Next")) {
-						for (long i = 1; i <= srcSizes.get(srcOffset); i++) {
-							srcIndices.add(i);
-							dstIndices.add(i == srcSizes.get(srcOffset) ? 1 : i + 1);
-							result &= interpretConnectionPatterns(conni, patterns, offset - 1, srcSizes, srcOffset + 1,
-									dstSizes, dstOffset + 1, srcIndices, dstIndices);
-							dstIndices.remove(dstOffset);
-							srcIndices.remove(srcOffset);
-						}
-					} else if (patternName.equalsIgnoreCase("Cyclic_Previous")) {
-						for (long i = 1; i <= srcSizes.get(srcOffset); i++) {
-							srcIndices.add(i);
-							dstIndices.add(i == 1 ? srcSizes.get(srcOffset) : i - 1);
-							result &= interpretConnectionPatterns(conni, patterns, offset - 1, srcSizes, srcOffset + 1,
-									dstSizes, dstOffset + 1, srcIndices, dstIndices);
-							dstIndices.remove(dstOffset);
-							srcIndices.remove(srcOffset);
-						}
-					}
-				}
-			}
-		}
-		return result;
-	}
-
-	private List<Long> getIndices(RecordValue rv, String field) {
-		List<Long> indices = new ArrayList<Long>();
-		for (BasicPropertyAssociation fv : rv.getOwnedFieldValues()) {
-			if (fv.getProperty().getName().equalsIgnoreCase(field)) {
-				ListValue lv = (ListValue) fv.getOwnedValue();
-				for (PropertyExpression elem : lv.getOwnedListElements()) {
-					indices.add(((IntegerLiteral) elem).getValue());
-				}
-			}
-		}
-		return indices;
-	}
-
-	private PropertyAssociation getPA(ConnectionInstance conni, String name) {
-		for (PropertyAssociation pa : conni.getOwnedPropertyAssociations()) {
-			if (pa.getProperty().getName().equalsIgnoreCase(name)
-					&& ((PropertySet) pa.getProperty().getOwner()).getName().equalsIgnoreCase(
-							"Communication_Properties")) {
-				return pa;
-			}
-		}
-		return null;
+		processConnections(root.getAllConnectionInstances());
 	}
 
-	private void analyzePath(ComponentInstance container, ConnectionInstanceEnd end, LinkedList<String> names,
-			LinkedList<Integer> dims, LinkedList<Integer> sizes) {
-		InstanceObject current = end;
-		while (current != container) {
-			int d = 0;
-
-			if (names != null) {
-				names.addFirst(current.getName());
-			}
-			if (current instanceof ComponentInstance) {
-				d = ((ComponentInstance) current).getSubcomponent().getArrayDimensions().size();
-			} else if (current instanceof FeatureInstance && ((FeatureInstance) current).getIndex() != 0) {
-				d = 1;
-			}
-			if (dims != null) {
-				dims.addFirst(d);
-			}
-			if (sizes != null && d != 0) {
-				if (current instanceof ComponentInstance) {
-					Subcomponent s = ((ComponentInstance) current).getSubcomponent();
-					List<Integer> temp = new ArrayList<Integer>();
-
-					for (ArrayDimension ad : s.getArrayDimensions()) {
-						ArraySize as = ad.getSize();
-
-						temp.add((int) getElementCount(as));
-					}
-					sizes.addAll(0, temp);
-
-				} else if (current instanceof FeatureInstance && ((FeatureInstance) current).getIndex() != 0) {
-					Feature f = ((FeatureInstance) current).getFeature();
-					ArraySize as = f.getArrayDimensions().get(0).getSize();
-
-					sizes.add(0, (int) getElementCount(as));
-				}
-			}
-			current = (InstanceObject) current.getOwner();
-		}
-	}
-
-	// TODO-LW: check for invalid number of indices (in property vs. in model path)
-	private void createNewConnection(ConnectionInstance conni, List<Long> srcIndices, List<Long> dstIndices) {
-		LinkedList<String> names = new LinkedList<String>();
-		LinkedList<Integer> dims = new LinkedList<Integer>();
-		LinkedList<Integer> sizes = new LinkedList<Integer>();
-
-		ConnectionInstance newConn = EcoreUtil.copy(conni);
-
-		conni.getContainingComponentInstance().getConnectionInstances().add(newConn);
-		analyzePath(conni.getContainingComponentInstance(), conni.getSource(), names, dims, sizes);
-		InstanceObject src = findInstanceObject(conni.getContainingComponentInstance(), names, dims, sizes, srcIndices,
-				newConn);
-		names.clear();
-		dims.clear();
-		sizes.clear();
-		analyzePath(conni.getContainingComponentInstance(), conni.getDestination(), names, dims, sizes);
-		InstanceObject dst = findInstanceObject(conni.getContainingComponentInstance(), names, dims, sizes, dstIndices,
-				newConn);
-
-		if (src == null) {
-			errManager.error(newConn, "Connection source not found");
-		}
-		if (dst == null) {
-			errManager.error(newConn, "Connection destination not found");
-		}
-
-		String containerPath = conni.getContainingComponentInstance().getInstanceObjectPath();
-		int len = containerPath.length() + 1;
-		String srcPath = (src != null) ? src.getInstanceObjectPath() : "Source end not found";
-		StringBuffer sb = new StringBuffer();
-		int i = (srcPath.startsWith(containerPath)) ? len : 0;
-		sb.append(srcPath.substring(i));
-		sb.append(" --> ");
-		String dstPath = (dst != null) ? dst.getInstanceObjectPath() : "Destination end not found";
-		i = (dstPath.startsWith(containerPath)) ? len : 0;
-		sb.append(dstPath.substring(i));
-
-		ConnectionInstance duplicate = (ConnectionInstance) AadlUtil.findNamedElementInList(conni
-				.getContainingComponentInstance().getConnectionInstances(), sb.toString());
-		if (duplicate != null && duplicate != conni) { // conni will be removed later
-			errManager.warning(newConn, "There is already another connection between the same endpoints");
-		}
-		newConn.setSource((ConnectionInstanceEnd) src);
-		newConn.setDestination((ConnectionInstanceEnd) dst);
-		newConn.setName(sb.toString());
-
-	}
-
-	private InstanceObject findInstanceObject(ComponentInstance container, List<String> names, List<Integer> dims,
-			List<Integer> sizes, List<Long> indices, InstanceObject errorHolder) {
-		InstanceObject result = container;
-		int offset = 0;
-		int count = 0;
-
-		for (String name : names) {
-			List<InstanceObject> owned = new ArrayList<InstanceObject>();
-			int dim = dims.get(count);
-
-			if (result instanceof ComponentInstance) {
-				owned.addAll(((ComponentInstance) result).getComponentInstances());
-				owned.addAll(((ComponentInstance) result).getFeatureInstances());
-			} else if (result instanceof FeatureInstance) {
-				owned.addAll(((FeatureInstance) result).getFeatureInstances());
-			}
-			result = null;
-
-			if (dim == 0) {
-				result = (InstanceObject) AadlUtil.findNamedElementInList(owned, name);
-			} else {
-				outer: for (InstanceObject io : owned) {
-					if (io.getName().equalsIgnoreCase(name)) {
-						try {
-							if (io instanceof ComponentInstance) {
-								int d = 0;
-								for (long i : ((ComponentInstance) io).getIndices()) {
-									if (i != indices.get(offset + d))
-										continue outer;
-									d++;
-								}
-							} else {
-								if (((FeatureInstance) io).getIndex() != indices.get(offset))
-									continue outer;
-							}
-						} catch (IndexOutOfBoundsException e) {
-							errManager.warning(errorHolder,
-									"Too few indices for connection end, using fist array element");
-						}
-						result = io;
-						break;
-					}
-				}
-			}
-			if (result == null) {
-				return null;
-			}
-			offset += dim;
-			count++;
-		}
-		return result;
+	/*
+	 * Expand the given connection instances according to their connection
+	 * patterns and connection sets.
+	 */
+	private void processConnections(List<ConnectionInstance> connections) {
+		new ConnectionPatternExpander(errManager).process(connections);
 	}
 
 	// --------------------------------------------------------------------------------------------
@@ -1403,7 +1702,7 @@ public class InstantiateModel {
 	// Methods related to arrays
 	// --------------------------------------------------------------------------------------------
 
-	private long getElementCount(ArraySize as) {
+	static long getElementCount(ArraySize as) {
 		long result = 0L;
 		if (as == null) {
 			return result;
@@ -1571,123 +1870,29 @@ public class InstantiateModel {
 	}
 
 	/*
-	 * Recursively enumerate all the system operation modes given an array of
-	 * component instances that are modal. The system operation mode objects are
-	 * created and added to the given system instance object.
+	 * Enumerate all the system operation modes given an array of component
+	 * instances that are modal. The system operation mode objects are created
+	 * and added to the given system instance object. If a maximum number of
+	 * system operation modes has been set, the enumeration stops there.
 	 * 
 	 * @param root The system instance object to which the SOMs are attached.
 	 * 
 	 * @param instances An array of component instances that should be all the
 	 * modal components in <code>root</code>.
-	 * 
-	 * @param currentInstance The index of the component instance in
-	 * <code>instances</code> that is to have its modes enumerated
-	 * 
-	 * @param modeState A list used as a dynamic workspace by the method. Should
-	 * initially be empty. When <code>currentInstance</code> equals the lenght
-	 * of <code>instances</code>, this list holds the modal instances that
-	 * should be turned into a System Operation Mode object.
 	 */
 	protected void enumerateSystemOperationModes(final SystemInstance root, final ComponentInstance[] instances) {
-		final LinkedList<ComponentInstance> skipped = new LinkedList<ComponentInstance>();
-		final List<ModeInstance> currentModes = new ArrayList<ModeInstance>();
-		final EList<ModeInstance> modes = instances[0].getModeInstances();
-
-		if (!modes.isEmpty()) {
-			for (ModeInstance mi : modes) {
-				if (!mi.isDerived()) {
-					List<ModeInstance> nextModes = new ArrayList<ModeInstance>(currentModes);
-
-					nextModes.add(mi);
-					for (ComponentInstance child : instances[0].getComponentInstances()) {
-						for (ModeInstance childMode : child.getModeInstances()) {
-							if (childMode.isDerived() && childMode.getParents().contains(mi)) {
-								nextModes.add(childMode);
-							}
-						}
-					}
-					enumerateSystemOperationModes(root, instances, 1, skipped, nextModes);
-				}
-			}
-		} else {
-			enumerateSystemOperationModes(root, instances, 1, skipped, currentModes);
-		}
-	}
-
-	/*
-	 * Recursively enumerate all the system operation modes given an array of
-	 * component instances that are modal. The system operation mode objects are
-	 * created and added to the given system instance object.
-	 * 
-	 * @param root The system instance object to which the SOMs are attached.
-	 * 
-	 * @param instances An array of component instances that should be all the
-	 * modal components in <code>root</code>.
-	 * 
-	 * @param currentInstance The index of the component instance in
-	 * <code>instances</code> that is to have its modes enumerated
-	 * 
-	 * @param modeState A list used as a dynamic workspace by the method. Should
-	 * initially be empty. When <code>currentInstance</code> equals the lenght
-	 * of <code>instances</code>, this list holds the modal instances that
-	 * should be turned into a System Operation Mode object.
-	 */
-	protected void enumerateSystemOperationModes(SystemInstance root, ComponentInstance[] instances,
-			int currentInstance, LinkedList<ComponentInstance> skipped, List<ModeInstance> modeState) {
-		if (currentInstance == instances.length) {
-			// Completed an SOM
-			root.getSystemOperationModes().add(createSOM(modeState));
-		} else {
-			/*
-			 * First test if the current component exists given the currently
-			 * selected modes. Component exists if it's parent is not skipped
-			 * and component exists in the currently selected mode of its
-			 * parent.
-			 */
-			ComponentInstance ci = instances[currentInstance];
-
-			if (!skipped.contains(ci.eContainer()) && existsGiven(modeState, ci.getInModes())) {
-				EList<ModeInstance> modes = ci.getModeInstances();
-
-				if (modes != null && modes.size() > 0) {
-					// Modal component
-					for (ModeInstance mi : modes) {
-						List<ModeInstance> nextModes = new ArrayList<ModeInstance>(modeState);
+		final SystemOperationModeEnumerator modeVectors = new SystemOperationModeEnumerator(instances,
+				maxSystemOperationModes);
 
-						nextModes.add(mi);
-						for (ComponentInstance child : ci.getComponentInstances()) {
-							for (ModeInstance childMode : child.getModeInstances()) {
-								if (childMode.isDerived() && childMode.getParents().contains(mi)) {
-									nextModes.add(childMode);
-								}
-							}
-						}
-						enumerateSystemOperationModes(root, instances, currentInstance + 1, skipped, nextModes);
-					}
-				} else {
-					// non-modal component
-					enumerateSystemOperationModes(root, instances, currentInstance + 1, skipped, modeState);
-				}
-			} else {
-				// Skip the current component, it doesn't exist under the
-				// modeState
-				skipped.addLast(ci);
-				enumerateSystemOperationModes(root, instances, currentInstance + 1, skipped, modeState);
-				skipped.removeLast();
+		while (modeVectors.hasNext()) {
+			root.getSystemOperationModes().add(createSOM(modeVectors.getModeInstances(modeVectors.next())));
+			if (monitor.isCanceled()) {
+				return;
 			}
 		}
-	}
-
-	private boolean existsGiven(final List<ModeInstance> modeState, final List<ModeInstance> inModes) {
-		if (inModes != null && inModes.size() > 0) {
-			for (ModeInstance mi : inModes) {
-				if (modeState.contains(mi)) {
-					return true;
-				}
-			}
-			return false;
-		} else {
-			return true;
+		if (modeVectors.isTruncated()) {
+			errManager.warning(root, "Only the first " + maxSystemOperationModes
+					+ " system operation modes have been created");
 		}
 	}
 
@@ -221,11 +221,16 @@ public abstract class AbstractAaxlAction implements IWorkbenchWindowActionDelega
 		notFound.clear();
 		initPropertyReferences();
 		initializeAction((NamedElement)root);
-		if (suppressErrorMessages() || !reportPropertyLookupErrors()) {
-			// Run the command (indirectly)
-			processAaxlAction(monitor, resource, root);
+		try {
+			if (suppressErrorMessages() || !reportPropertyLookupErrors()) {
+				// Run the command (indirectly)
+				processAaxlAction(monitor, resource, root);
+			}
+			finalizeAction();
+		} finally {
+			// create the markers for buffered messages
+			errManager.flush();
 		}
-		finalizeAction();
 	}
 
 	protected abstract Job createJob(Element root);
@@ -611,6 +616,8 @@ public abstract class AbstractAaxlAction implements IWorkbenchWindowActionDelega
 	 * used by the analysis.  The default
 	 * error reporter is a {@link MarkerAnalysisErrorReporter} that generates
 	 * markers with the marker type determined by {@link #getMarkerType()}.
+	 * The markers are created in batches, the last batch when the action
+	 * is done.
 	 * 
 	 * <p>This method exists so that subclasses can override 
 	 * {@link #getAnalysisErrorReporterFactory()} to create 
@@ -622,7 +629,8 @@ public abstract class AbstractAaxlAction implements IWorkbenchWindowActionDelega
 	 * @see #getAnalysisErrorReporterFactory()
 	 */
 	protected final AnalysisErrorReporterFactory getDefaultAnalysisErrorReporterFactory() {
-		return new MarkerAnalysisErrorReporter.Factory(getMarkerType());
+		return new MarkerAnalysisErrorReporter.Factory(getMarkerType(), null,
+				MarkerAnalysisErrorReporter.DEFAULT_FLUSH_THRESHOLD);
 	}
 	
 	/**
@@ -811,4 +819,4 @@ public abstract class AbstractAaxlAction implements IWorkbenchWindowActionDelega
 		return true;
 	}
 
-}
+}
@@ -40,10 +40,13 @@ import org.eclipse.emf.common.util.WrappedException;
 import org.eclipse.emf.ecore.EObject;
 import org.osate.aadl2.Element;
 import org.osate.aadl2.UnitsType;
+import org.osate.aadl2.instance.InstanceObject;
+import org.osate.aadl2.instance.SystemInstance;
 import org.osate.aadl2.modelsupport.AadlConstants;
 import org.osate.aadl2.modelsupport.errorreporting.AnalysisErrorReporterManager;
 import org.osate.aadl2.modelsupport.errorreporting.MarkerAnalysisErrorReporter;
 import org.osate.aadl2.modelsupport.resources.OsateResourceUtil;
+import org.osate.aadl2.properties.PropertyValueCache;
 
 
 /**
@@ -180,9 +183,24 @@ public abstract class AbstractAnalysis implements IAnalysis
 			case CONFIGURATOR_KEYS_AND_VALUES_SET:
 				throw new IllegalStateException("readyToRun() not called.");
 			case READY_TO_RUN:
-				errManager = new AnalysisErrorReporterManager(new MarkerAnalysisErrorReporter.Factory(getMarkerType()));
+				errManager = new AnalysisErrorReporterManager(new MarkerAnalysisErrorReporter.Factory(getMarkerType(),
+						null, MarkerAnalysisErrorReporter.DEFAULT_FLUSH_THRESHOLD));
 				state = State.ALREADY_RAN;
-				return runImpl();
+				// cache property lookups on the instance model while the analysis runs, if it asks for it
+				final SystemInstance si = (cachePropertyValues() && parameter instanceof InstanceObject) ? ((InstanceObject) parameter)
+						.getSystemInstance() : null;
+				final boolean cacheValues = si != null && PropertyValueCache.getCache(si) == null;
+				if (cacheValues) {
+					PropertyValueCache.enable(si);
+				}
+				try {
+					return runImpl();
+				} finally {
+					errManager.flush();
+					if (cacheValues) {
+						PropertyValueCache.disable(si);
+					}
+				}
 			case NOT_READY_TO_RUN:
 				throw new IllegalStateException("Not ready to run.");
 			case ALREADY_RAN:
@@ -192,6 +210,20 @@ public abstract class AbstractAnalysis implements IAnalysis
 		}
 	}
 	
+	/**
+	 * Should property lookups on the instance model be cached while the
+	 * analysis runs? The cached property values are shared by all lookups of
+	 * the same property, so an analysis that returns <code>true</code> must not
+	 * modify the values it looks up. The default is <code>false</code>.
+	 * 
+	 * @return <code>true</code> to enable the {@link PropertyValueCache} on
+	 * 		   the system instance while <code>runImpl()</code> runs.
+	 */
+	protected boolean cachePropertyValues()
+	{
+		return false;
+	}
+	
 	protected String getMarkerType()
 	{
 		return AadlConstants.AADLOBJECTMARKER;
@@ -51,6 +51,7 @@ import org.eclipse.core.runtime.IAdaptable;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.action.IAction;
 import org.eclipse.jface.viewers.ISelection;
@@ -109,8 +110,7 @@ public class ReinstantiateAadl implements IWorkbenchWindowActionDelegate, IObjec
 		}
 		
 		public IStatus runInWorkspace(final IProgressMonitor monitor) {
-			monitor.beginTask("Reinstantiate all instance models",
-					IProgressMonitor.UNKNOWN);
+			monitor.beginTask("Reinstantiate all instance models", 1);
 //			IWorkbench wb = PlatformUI.getWorkbench();
 //			IWorkbenchWindow win = wb.getActiveWorkbenchWindow();
 //			IWorkbenchPage page = win.getActivePage();
@@ -132,7 +132,8 @@ public class ReinstantiateAadl implements IWorkbenchWindowActionDelegate, IObjec
 				if (!selection.isEmpty()){
 					
 				} else {
-				InstantiateModel.rebuildAllInstanceModelFiles();
+				InstantiateModel.rebuildAllInstanceModelFiles(Runtime.getRuntime().availableProcessors(),
+						new SubProgressMonitor(monitor, 1));
 				}
 			}
 			catch (Exception e)
@@ -0,0 +1,330 @@
+/*
+ * <copyright>
+ * Copyright  2004 by Carnegie Mellon University, all rights reserved.
+ *
+ * Use of the Open Source AADL Tool Environment (OSATE) is subject to the terms of the license set forth
+ * at http://www.eclipse.org/legal/cpl-v10.html.
+ *
+ * NO WARRANTY
+ *
+ * ANY INFORMATION, MATERIALS, SERVICES, INTELLECTUAL PROPERTY OR OTHER PROPERTY OR RIGHTS GRANTED OR PROVIDED BY
+ * CARNEGIE MELLON UNIVERSITY PURSUANT TO THIS LICENSE (HEREINAFTER THE "DELIVERABLES") ARE ON AN "AS-IS" BASIS.
+ * CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED AS TO ANY MATTER INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, INFORMATIONAL CONTENT,
+ * NONINFRINGEMENT, OR ERROR-FREE OPERATION. CARNEGIE MELLON UNIVERSITY SHALL NOT BE LIABLE FOR INDIRECT, SPECIAL OR
+ * CONSEQUENTIAL DAMAGES, SUCH AS LOSS OF PROFITS OR INABILITY TO USE SAID INTELLECTUAL PROPERTY, UNDER THIS LICENSE,
+ * REGARDLESS OF WHETHER SUCH PARTY WAS AWARE OF THE POSSIBILITY OF SUCH DAMAGES. LICENSEE AGREES THAT IT WILL NOT
+ * MAKE ANY WARRANTY ON BEHALF OF CARNEGIE MELLON UNIVERSITY, EXPRESS OR IMPLIED, TO ANY PERSON CONCERNING THE
+ * APPLICATION OF OR THE RESULTS TO BE OBTAINED WITH THE DELIVERABLES UNDER THIS LICENSE.
+ *
+ * Licensee hereby agrees to defend, indemnify, and hold harmless Carnegie Mellon University, its trustees, officers,
+ * employees, and agents from all claims or demands made against them (and any related losses, expenses, or
+ * attorney's fees) arising out of, or relating to Licensee's and/or its sub licensees' negligent use or willful
+ * misuse of or negligent conduct or willful misconduct regarding the Software, facilities, or other rights or
+ * assistance granted by Carnegie Mellon University under this License, including, but not limited to, any claims of
+ * product liability, personal injury, death, damage to property, or violation of any laws or regulations.
+ *
+ * Carnegie Mellon University Software Engineering Institute authored documents are sponsored by the U.S. Department
+ * of Defense under Contract F19628-00-C-0003. Carnegie Mellon University retains copyrights in all material produced
+ * under this contract. The U.S. Government retains a non-exclusive, royalty-free license to publish or reproduce these
+ * documents, or allow others to do so, for U.S. Government purposes only pursuant to the copyright license
+ * under the contract clause at 252.227.7013.
+ *
+ * </copyright>
+ */
+package org.osate.internal.workspace;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IResourceVisitor;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.osate.workspace.WorkspacePlugin;
+
+/**
+ * Index of the AADL source and model files (extensions aadl, aadl2 and aaxl2)
+ * in the open projects of the workspace. Files are recorded per project by
+ * lower-case file name and by lower-case extension. The index is built on
+ * first use and then kept up to date by a resource change listener, so file
+ * lookups no longer have to walk the folder hierarchy.
+ */
+public final class AadlFileIndex implements IResourceChangeListener {
+
+	private static AadlFileIndex theIndex;
+
+	private static class ProjectFiles {
+		final Map<String, List<IFile>> byName = new HashMap<String, List<IFile>>();
+
+		final Map<String, Set<IFile>> byExtension = new HashMap<String, Set<IFile>>();
+	}
+
+	private final Map<IProject, ProjectFiles> projects = new HashMap<IProject, ProjectFiles>();
+
+	private AadlFileIndex() {
+	}
+
+	/**
+	 * Returns the workspace file index, building it and registering it as a
+	 * resource change listener on first use.
+	 */
+	public static synchronized AadlFileIndex getDefault() {
+		if (theIndex == null) {
+			AadlFileIndex index = new AadlFileIndex();
+			IWorkspace workspace = ResourcesPlugin.getWorkspace();
+			workspace.addResourceChangeListener(index, IResourceChangeEvent.POST_CHANGE);
+			index.rebuild();
+			theIndex = index;
+		}
+		return theIndex;
+	}
+
+	/**
+	 * Unregister the index from the workspace. Called when the workspace
+	 * plugin is stopped.
+	 */
+	public static synchronized void shutdown() {
+		if (theIndex != null) {
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(theIndex);
+			theIndex = null;
+		}
+	}
+
+	/**
+	 * Returns true if files with the given extension are recorded in the
+	 * index.
+	 */
+	public static boolean isIndexedExtension(String ext) {
+		return ext != null
+				&& (ext.equalsIgnoreCase(WorkspacePlugin.SOURCE_FILE_EXT)
+						|| ext.equalsIgnoreCase(WorkspacePlugin.SOURCE_FILE_EXT2) || ext
+						.equalsIgnoreCase(WorkspacePlugin.MODEL_FILE_EXT));
+	}
+
+	/**
+	 * Find a file by name in a folder or any of its subfolders. The name is
+	 * compared ignoring case.
+	 * 
+	 * @param folder the folder to search
+	 * @param filename file name with extension
+	 * @return the file or null if there is none
+	 */
+	public synchronized IFile findFile(IContainer folder, String filename) {
+		ProjectFiles files = projects.get(folder.getProject());
+		if (files == null) {
+			return null;
+		}
+		List<IFile> candidates = files.byName.get(filename.toLowerCase());
+		if (candidates != null) {
+			for (IFile file : candidates) {
+				if (folder.getFullPath().isPrefixOf(file.getFullPath())) {
+					return file;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the files with the given extension in a project. The extension
+	 * is compared ignoring case.
+	 * 
+	 * @param project the project
+	 * @param extension file extension without the dot
+	 * @return a new list, empty if the project is closed or has no such files
+	 */
+	public synchronized List<IFile> getFiles(IProject project, String extension) {
+		ProjectFiles files = projects.get(project);
+		if (files != null) {
+			Set<IFile> result = files.byExtension.get(extension.toLowerCase());
+			if (result != null) {
+				return new ArrayList<IFile>(result);
+			}
+		}
+		return new ArrayList<IFile>();
+	}
+
+	/**
+	 * Returns the files with the given extension in all open projects.
+	 * 
+	 * @param extension file extension without the dot
+	 * @return a new list of files
+	 */
+	public synchronized List<IFile> getFiles(String extension) {
+		List<IFile> result = new ArrayList<IFile>();
+		for (IProject project : projects.keySet()) {
+			result.addAll(getFiles(project, extension));
+		}
+		return result;
+	}
+
+	/**
+	 * Discard the index and scan all open projects again.
+	 */
+	public synchronized void rebuild() {
+		projects.clear();
+		IProject[] all = ResourcesPlugin.getWorkspace().getRoot().getProjects();
+		for (int i = 0; i < all.length; i++) {
+			indexProject(all[i]);
+		}
+	}
+
+	/**
+	 * Remove a file from the index. The file is added again if it is
+	 * recreated.
+	 */
+	public synchronized void remove(IFile file) {
+		ProjectFiles files = projects.get(file.getProject());
+		if (files == null) {
+			return;
+		}
+		String name = file.getName().toLowerCase();
+		List<IFile> named = files.byName.get(name);
+		if (named != null) {
+			named.remove(file);
+			if (named.isEmpty()) {
+				files.byName.remove(name);
+			}
+		}
+		String ext = file.getFileExtension();
+		if (ext != null) {
+			Set<IFile> typed = files.byExtension.get(ext.toLowerCase());
+			if (typed != null) {
+				typed.remove(file);
+			}
+		}
+	}
+
+	private void add(IFile file) {
+		ProjectFiles files = projects.get(file.getProject());
+		if (files == null) {
+			files = new ProjectFiles();
+			projects.put(file.getProject(), files);
+		}
+		String name = file.getName().toLowerCase();
+		List<IFile> named = files.byName.get(name);
+		if (named == null) {
+			named = new ArrayList<IFile>(1);
+			files.byName.put(name, named);
+		}
+		if (!named.contains(file)) {
+			named.add(file);
+		}
+		String ext = file.getFileExtension().toLowerCase();
+		Set<IFile> typed = files.byExtension.get(ext);
+		if (typed == null) {
+			typed = new LinkedHashSet<IFile>();
+			files.byExtension.put(ext, typed);
+		}
+		typed.add(file);
+	}
+
+	private void indexProject(IProject project) {
+		projects.remove(project);
+		if (!project.isOpen()) {
+			return;
+		}
+		try {
+			project.accept(new IResourceVisitor() {
+				public boolean visit(IResource resource) {
+					if (resource.getType() == IResource.FILE) {
+						if (isIndexedExtension(resource.getFileExtension())) {
+							add((IFile) resource);
+						}
+						return false;
+					}
+					return true;
+				}
+			});
+		} catch (CoreException e) {
+			WorkspacePlugin.log(e);
+		}
+	}
+
+	public synchronized void resourceChanged(IResourceChangeEvent event) {
+		IResourceDelta delta = event.getDelta();
+		if (delta == null) {
+			return;
+		}
+		try {
+			delta.accept(new IResourceDeltaVisitor() {
+				public boolean visit(IResourceDelta child) {
+					IResource resource = child.getResource();
+					switch (resource.getType()) {
+					case IResource.PROJECT:
+						IProject project = (IProject) resource;
+						if (child.getKind() == IResourceDelta.REMOVED) {
+							projects.remove(project);
+							return false;
+						}
+						if (child.getKind() == IResourceDelta.ADDED
+								|| (child.getFlags() & IResourceDelta.OPEN) != 0) {
+							// opened, closed, created or moved in: rescan
+							indexProject(project);
+							return false;
+						}
+						return project.isOpen();
+					case IResource.FILE:
+						if (isIndexedExtension(resource.getFileExtension())) {
+							if (child.getKind() == IResourceDelta.ADDED) {
+								add((IFile) resource);
+							} else if (child.getKind() == IResourceDelta.REMOVED) {
+								remove((IFile) resource);
+							}
+						}
+						return false;
+					default:
+						return true;
+					}
+				}
+			});
+		} catch (CoreException e) {
+			WorkspacePlugin.log(e);
+		}
+	}
+
+	/**
+	 * Drop the entries of projects that no longer exist. Only needed if
+	 * resource change events were missed.
+	 */
+	public synchronized void validate() {
+		for (Iterator<Map.Entry<IProject, ProjectFiles>> it = projects.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<IProject, ProjectFiles> entry = it.next();
+			if (!entry.getKey().isOpen()) {
+				it.remove();
+				continue;
+			}
+			for (Iterator<List<IFile>> lists = entry.getValue().byName.values().iterator(); lists.hasNext();) {
+				List<IFile> named = lists.next();
+				for (Iterator<IFile> files = named.iterator(); files.hasNext();) {
+					IFile file = files.next();
+					if (!file.exists()) {
+						files.remove();
+						String ext = file.getFileExtension().toLowerCase();
+						Set<IFile> typed = entry.getValue().byExtension.get(ext);
+						if (typed != null) {
+							typed.remove(file);
+						}
+					}
+				}
+				if (named.isEmpty()) {
+					lists.remove();
+				}
+			}
+		}
+	}
+}
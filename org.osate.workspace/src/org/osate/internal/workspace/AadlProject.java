@@ -159,31 +159,7 @@ public class AadlProject extends AadlElement implements IAadlProject {
 		if (!folder.exists()) {
 			return null;
 		}
-		return doFindAadlFile(folder, filename);
-	}
-
-	private IFile doFindAadlFile(IContainer folder, String filename) {
-		try {
-			IResource[] resources = folder.members();
-
-			for (int i = 0; i < resources.length; i++) {
-				if (resources[i] instanceof IFile) {
-					IFile file = (IFile) resources[i];
-					if (file.getName().equalsIgnoreCase(filename)) {
-						return file;
-					}
-				} else if (resources[i] instanceof IContainer) {
-					IContainer cont = (IContainer) resources[i];
-					IFile file = doFindAadlFile(cont, filename);
-					if (file != null) {
-						return file;
-					}
-				}
-			}
-		} catch (CoreException e) {
-			WorkspacePlugin.log(e);
-		}
-		return null;
+		return AadlFileIndex.getDefault().findFile(folder, filename);
 	}
 
 	/**
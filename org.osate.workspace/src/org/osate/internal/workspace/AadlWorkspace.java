@@ -11,9 +11,6 @@
  *******************************************************************************/
 package org.osate.internal.workspace;
 
-import java.util.Hashtable;
-import java.util.Iterator;
-
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
@@ -23,7 +20,6 @@ import org.eclipse.emf.common.util.BasicEList;
 import org.eclipse.emf.common.util.EList;
 import org.osate.workspace.IAadlProject;
 import org.osate.workspace.IAadlWorkspace;
-import org.osate.workspace.WorkspacePlugin;
 
 
 /**
@@ -33,8 +29,6 @@ public class AadlWorkspace extends AadlElement implements IAadlWorkspace {
 
 	private static AadlWorkspace theWorkspace = new AadlWorkspace();
 
-	private Hashtable lookupFile = new Hashtable();
-
 	public static IAadlWorkspace getAadlWorkspace() {
 		return theWorkspace;
 	}
@@ -191,18 +185,12 @@ public class AadlWorkspace extends AadlElement implements IAadlWorkspace {
 	 */
 	@Deprecated
 	public IFile findAadlModelFile(String name) {
-		String filename = name + "." + WorkspacePlugin.MODEL_FILE_EXT;
-		IFile result = (IFile) lookupFile.get(filename);
-		if (result != null)
-			return result;
 		IAadlProject[] projects = getOpenAadlProjects();
 
 		for (int i = 0; i < projects.length; i++) {
 			IFile f = projects[i].findAadlModelFile(name);
 
 			if (f != null) {
-
-				lookupFile.put(filename, f);
 				return f;
 			}
 		}
@@ -225,26 +213,19 @@ public class AadlWorkspace extends AadlElement implements IAadlWorkspace {
 	}
 
 	/**
-	 * the workspace maintains a lookup table to map names to File objects. This
-	 * method removes any entries for which the value (IFile) does not exist
+	 * the workspace maintains an index of AADL files (see {@link AadlFileIndex}).
+	 * This method removes any entries for which the file does not exist
 	 */
 	public void validateLookupTable() {
-		Iterator keyit = lookupFile.keySet().iterator();
-		for (Iterator it = lookupFile.values().iterator(); it.hasNext();) {
-			IFile f = (IFile) it.next();
-			String s = (String) keyit.next();
-			if (!f.exists()) {
-				lookupFile.remove(f.getName());
-			}
-		}
+		AadlFileIndex.getDefault().validate();
 	}
 
 	/**
-	 * the workspace maintains a lookup table to map names to File objects. This
-	 * method clears the lookup table.
+	 * the workspace maintains an index of AADL files (see {@link AadlFileIndex}).
+	 * This method discards the index and rebuilds it from the open projects.
 	 */
 	public void clearLookupTable() {
-		lookupFile.clear();
+		AadlFileIndex.getDefault().rebuild();
 	}
 
 	/**
@@ -253,6 +234,6 @@ public class AadlWorkspace extends AadlElement implements IAadlWorkspace {
 	 * @param f IFile
 	 */
 	public void removeFromLookupTable(IFile f) {
-		lookupFile.remove(f.getName());
+		AadlFileIndex.getDefault().remove(f);
 	}
-}
\ No newline at end of file
+}
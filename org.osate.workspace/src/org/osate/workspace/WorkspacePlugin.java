@@ -15,6 +15,7 @@ import org.eclipse.jface.preference.PreferenceStore;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
+import org.osate.internal.workspace.AadlFileIndex;
 import org.osgi.framework.BundleContext;
 
 /**
@@ -161,6 +162,7 @@ public class WorkspacePlugin extends AbstractUIPlugin {
 	 * This method is called when the plug-in is stopped
 	 */
 	public void stop(BundleContext context) throws Exception {
+		AadlFileIndex.shutdown();
 		super.stop(context);
 	}
 
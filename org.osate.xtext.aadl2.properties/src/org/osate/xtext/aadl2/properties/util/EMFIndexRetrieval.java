@@ -45,6 +45,7 @@ public class EMFIndexRetrieval {
 	 {
 		 rdp = frdp;
 		 rspr = frspr;
+		 ExportedNameIndex.reset();
 	 }
 
 	    
@@ -53,6 +54,23 @@ public class EMFIndexRetrieval {
 	     rspr.getResourceServiceProvider(res.getURI());
 	   return resourceServiceProvider.getResourceDescriptionManager();
 	 } 
+
+	 /**
+	 * get the exported objects of the given type that may have the given qualified name.
+	 * Uses the name index if the resource descriptions report changes,
+	 * otherwise returns all exported objects of the type. Callers still compare the name.
+	 * @param rds resource descriptions for the resource set
+	 * @param type EClass of the desired objects
+	 * @param name String qualified name
+	 * @return candidate object descriptions
+	 */
+	 private static Iterable<IEObjectDescription> getExportedObjectsByName(IResourceDescriptions rds, EClass type, String name) {
+		 ExportedNameIndex index = ExportedNameIndex.getIndex(rds);
+		 if (index == null) {
+			 return rds.getExportedObjectsByType(type);
+		 }
+		 return index.find(type, name);
+	 }
 	 
 
 		public static void printEMFIndexEMV2(EObject context) {
@@ -121,7 +139,7 @@ public class EMFIndexRetrieval {
 	 */
 	 public static AadlPackage getPackageInWorkspace(String pname,XtextResourceSet resourceSet){
 		 IResourceDescriptions rds= rdp.getResourceDescriptions(OsateResourceUtil.getResourceSet());
-	 	 Iterable<IEObjectDescription> packagedlist = rds.getExportedObjectsByType(Aadl2Package.eINSTANCE.getAadlPackage());
+	 	 Iterable<IEObjectDescription> packagedlist = getExportedObjectsByName(rds, Aadl2Package.eINSTANCE.getAadlPackage(), pname);
 	 	 for (IEObjectDescription eod : packagedlist) {
 	 			 if (eod.getName().toString().equalsIgnoreCase(pname)) {
  					 EObject res = eod.getEObjectOrProxy();
@@ -147,7 +165,7 @@ public class EMFIndexRetrieval {
 	 */
 	 public static AadlPackage getPackageInWorkspace(EObject context,String pname,XtextResourceSet resourceSet){
 		 IResourceDescriptions rds= rdp.getResourceDescriptions(context.eResource().getResourceSet());
-	 	 Iterable<IEObjectDescription> packagedlist = rds.getExportedObjectsByType(Aadl2Package.eINSTANCE.getAadlPackage());
+	 	 Iterable<IEObjectDescription> packagedlist = getExportedObjectsByName(rds, Aadl2Package.eINSTANCE.getAadlPackage(), pname);
 	 	 for (IEObjectDescription eod : packagedlist) {
 	 			 if (eod.getName().toString().equalsIgnoreCase(pname)) {
  					 EObject res = eod.getEObjectOrProxy();
@@ -197,7 +215,7 @@ public class EMFIndexRetrieval {
 	 */
 	 public static PropertySet getPropertySetInWorkspace(EObject context,String pname){
 		 IResourceDescriptions rds= rdp.getResourceDescriptions(context.eResource().getResourceSet());
-	 	 Iterable<IEObjectDescription> packagedlist = rds.getExportedObjectsByType(Aadl2Package.eINSTANCE.getPropertySet());
+	 	 Iterable<IEObjectDescription> packagedlist = getExportedObjectsByName(rds, Aadl2Package.eINSTANCE.getPropertySet(), pname);
 	 	 for (IEObjectDescription eod : packagedlist) {
 	 			 if (eod.getName().toString().equalsIgnoreCase(pname)) {
  					 EObject res = eod.getEObjectOrProxy();
@@ -223,7 +241,7 @@ public class EMFIndexRetrieval {
 	 */
 	 public static PropertySet getPropertySetInWorkspace(String pname,XtextResourceSet resourceSet){
 		 IResourceDescriptions rds= rdp.getResourceDescriptions(OsateResourceUtil.getResourceSet());
-	 	 Iterable<IEObjectDescription> packagedlist = rds.getExportedObjectsByType(Aadl2Package.eINSTANCE.getPropertySet());
+	 	 Iterable<IEObjectDescription> packagedlist = getExportedObjectsByName(rds, Aadl2Package.eINSTANCE.getPropertySet(), pname);
 	 	 for (IEObjectDescription eod : packagedlist) {
 	 			 if (eod.getName().toString().equalsIgnoreCase(pname)) {
  					 EObject res = eod.getEObjectOrProxy();
@@ -262,18 +280,19 @@ public class EMFIndexRetrieval {
 	 */
 	 public static Property getPropertyDefinitionInWorkspace(ResourceSet rs,String pdname){
 	 	 IResourceDescriptions rds= rdp.getResourceDescriptions(rs);
-	 	 Iterable<IEObjectDescription> packagedlist = rds.getExportedObjectsByType(Aadl2Package.eINSTANCE.getProperty());
-	 	 for (IEObjectDescription eod : packagedlist) {
-	 		 if (pdname.lastIndexOf("::") == -1){
-	 			 String name = eod.getName().toString();
-	 			 for (String predeclaredPSName : AadlUtil.getPredeclaredPropertySetNames()) {
-	 				 if (name.equalsIgnoreCase(predeclaredPSName+"::"+pdname)) {
+	 	 if (pdname.lastIndexOf("::") == -1){
+	 		 for (String predeclaredPSName : AadlUtil.getPredeclaredPropertySetNames()) {
+	 			 String qname = predeclaredPSName+"::"+pdname;
+	 			 for (IEObjectDescription eod : getExportedObjectsByName(rds, Aadl2Package.eINSTANCE.getProperty(), qname)) {
+	 				 if (eod.getName().toString().equalsIgnoreCase(qname)) {
 	 					 EObject res = eod.getEObjectOrProxy();
 	 					 res = EcoreUtil.resolve(res, rs);
 	 					 if (!Aadl2Util.isNull(res)) return (Property)res;
 	 				 }
 	 			 }
-	 		 } else{
+	 		 }
+	 	 } else{
+	 		 for (IEObjectDescription eod : getExportedObjectsByName(rds, Aadl2Package.eINSTANCE.getProperty(), pdname)) {
 	 			 if (eod.getName().toString().equalsIgnoreCase(pdname)) {
 	 				 EObject res = eod.getEObjectOrProxy();
 	 				 res = EcoreUtil.resolve(res, OsateResourceUtil.getResourceSet());
@@ -311,18 +330,19 @@ public class EMFIndexRetrieval {
 	 */
 	 public static PropertyType getPropertyTypeInWorkspace(ResourceSet rs,String ptname){
 	 	 IResourceDescriptions rds= rdp.getResourceDescriptions(rs);
-	 	 Iterable<IEObjectDescription> packagedlist = rds.getExportedObjectsByType(Aadl2Package.eINSTANCE.getPropertyType());
-	 	 for (IEObjectDescription eod : packagedlist) {
-	 		 if (ptname.lastIndexOf("::") == -1){
-	 			 String name = eod.getName().toString();
-	 			 for (String predeclaredPSName : AadlUtil.getPredeclaredPropertySetNames()) {
-	 				 if (name.equalsIgnoreCase(predeclaredPSName+"::"+ptname)) {
+	 	 if (ptname.lastIndexOf("::") == -1){
+	 		 for (String predeclaredPSName : AadlUtil.getPredeclaredPropertySetNames()) {
+	 			 String qname = predeclaredPSName+"::"+ptname;
+	 			 for (IEObjectDescription eod : getExportedObjectsByName(rds, Aadl2Package.eINSTANCE.getPropertyType(), qname)) {
+	 				 if (eod.getName().toString().equalsIgnoreCase(qname)) {
 	 					 EObject res = eod.getEObjectOrProxy();
 	 					 res = EcoreUtil.resolve(res, rs);
 	 					 if (!Aadl2Util.isNull(res)) return (PropertyType)res;
 	 				 }
 	 			 }
-	 		 } else{
+	 		 }
+	 	 } else{
+	 		 for (IEObjectDescription eod : getExportedObjectsByName(rds, Aadl2Package.eINSTANCE.getPropertyType(), ptname)) {
 	 			 if (eod.getName().toString().equalsIgnoreCase(ptname)) {
 	 				 EObject res = eod.getEObjectOrProxy();
 	 				 res = EcoreUtil.resolve(res, OsateResourceUtil.getResourceSet());
@@ -360,18 +380,19 @@ public class EMFIndexRetrieval {
 	 */
 	 public static PropertyConstant getPropertyConstantInWorkspace(ResourceSet rs,String pcname){
 	 	 IResourceDescriptions rds= rdp.getResourceDescriptions(rs);
-	 	 Iterable<IEObjectDescription> packagedlist = rds.getExportedObjectsByType(Aadl2Package.eINSTANCE.getPropertyConstant());
-	 	 for (IEObjectDescription eod : packagedlist) {
-	 		 if (pcname.lastIndexOf("::") == -1){
-	 			 String name = eod.getName().toString();
-	 			 for (String predeclaredPSName : AadlUtil.getPredeclaredPropertySetNames()) {
-	 				 if (name.equalsIgnoreCase(predeclaredPSName+"::"+pcname)) {
+	 	 if (pcname.lastIndexOf("::") == -1){
+	 		 for (String predeclaredPSName : AadlUtil.getPredeclaredPropertySetNames()) {
+	 			 String qname = predeclaredPSName+"::"+pcname;
+	 			 for (IEObjectDescription eod : getExportedObjectsByName(rds, Aadl2Package.eINSTANCE.getPropertyConstant(), qname)) {
+	 				 if (eod.getName().toString().equalsIgnoreCase(qname)) {
 	 					 EObject res = eod.getEObjectOrProxy();
 	 					 res = EcoreUtil.resolve(res, rs);
 	 					 if (!Aadl2Util.isNull(res)) return (PropertyConstant)res;
 	 				 }
 	 			 }
-	 		 } else{
+	 		 }
+	 	 } else{
+	 		 for (IEObjectDescription eod : getExportedObjectsByName(rds, Aadl2Package.eINSTANCE.getPropertyConstant(), pcname)) {
 	 			 if (eod.getName().toString().equalsIgnoreCase(pcname)) {
 	 				 EObject res = eod.getEObjectOrProxy();
 	 				 res = EcoreUtil.resolve(res, OsateResourceUtil.getResourceSet());
@@ -608,7 +629,7 @@ public class EMFIndexRetrieval {
 	  */
 	 public static EObject getEObjectOfType(EObject context, EClass eObjectType, String name){
 	 	 IResourceDescriptions rds= rdp.getResourceDescriptions(context.eResource().getResourceSet());
-	 	 Iterable<IEObjectDescription> edlist = rds.getExportedObjectsByType(eObjectType);
+	 	 Iterable<IEObjectDescription> edlist = getExportedObjectsByName(rds, eObjectType, name);
 	 	 for (IEObjectDescription eod : edlist) {
  			 if (eod.getName().toString().equalsIgnoreCase(name)) {
  				 EObject res = eod.getEObjectOrProxy();
@@ -628,7 +649,7 @@ public class EMFIndexRetrieval {
 	  */
 	 public static EObject getEObjectOfType(EClass eObjectType, String name){
 	 	 IResourceDescriptions rds= rdp.getResourceDescriptions(OsateResourceUtil.getResourceSet());
-	 	 Iterable<IEObjectDescription> edlist = rds.getExportedObjectsByType(eObjectType);
+	 	 Iterable<IEObjectDescription> edlist = getExportedObjectsByName(rds, eObjectType, name);
 	 	 for (IEObjectDescription eod : edlist) {
  			 if (eod.getName().toString().equalsIgnoreCase(name)) {
  				 EObject res = eod.getEObjectOrProxy();
@@ -666,7 +687,7 @@ public class EMFIndexRetrieval {
 	  */
 	 public static Classifier getClassifierInWorkspace(ResourceSet rs,String cname){
 		 IResourceDescriptions rds= rdp.getResourceDescriptions(rs);
-		 Iterable<IEObjectDescription> packagedlist = rds.getExportedObjectsByType(Aadl2Package.eINSTANCE.getClassifier());
+		 Iterable<IEObjectDescription> packagedlist = getExportedObjectsByName(rds, Aadl2Package.eINSTANCE.getClassifier(), cname);
 		 for (IEObjectDescription eod : packagedlist) {
 			 if (eod.getName().toString().equalsIgnoreCase(cname)) {
 				 EObject res = eod.getEObjectOrProxy();
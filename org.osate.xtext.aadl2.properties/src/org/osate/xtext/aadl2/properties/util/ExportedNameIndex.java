@@ -0,0 +1,150 @@
+package org.osate.xtext.aadl2.properties.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.IResourceDescriptions;
+
+/**
+ * Hash index over the exported objects of the EMF index.
+ * Entries are keyed by the case folded qualified name and filtered by EClass on lookup.
+ * There is one index per resource descriptions object that reports changes, e.g., the
+ * builder state of the workspace. It is populated on first use and kept up to date from
+ * the deltas afterwards. Resource descriptions of other resource sets, e.g., of a
+ * headless or batch resource set, get an index of their own, so names that only exist
+ * there are found. An index is dropped when its resource descriptions are no longer used.
+ * If the resource descriptions do not report changes
+ * {@link #getIndex(IResourceDescriptions)} returns null and callers
+ * fall back to scanning the exported objects.
+ */
+public class ExportedNameIndex implements IResourceDescription.Event.Listener {
+
+	/**
+	 * the index of each resource descriptions object. The indexes are registered as
+	 * listeners but do not refer to their source, so the entries can be collected.
+	 */
+	private static final Map<IResourceDescription.Event.Source, ExportedNameIndex> indexes = new WeakHashMap<IResourceDescription.Event.Source, ExportedNameIndex>();
+
+	/**
+	 * descriptions by lower case name
+	 */
+	private final Map<String, List<IEObjectDescription>> byName = new HashMap<String, List<IEObjectDescription>>();
+
+	/**
+	 * descriptions by resource URI so we can drop them when the resource changes
+	 */
+	private final Map<URI, List<IEObjectDescription>> byResource = new HashMap<URI, List<IEObjectDescription>>();
+
+	private ExportedNameIndex() {
+	}
+
+	/**
+	 * get the index of the given resource descriptions, building it on first use
+	 * @param rds resource descriptions of the EMF index
+	 * @return the index or null if the resource descriptions do not report changes
+	 */
+	public static synchronized ExportedNameIndex getIndex(IResourceDescriptions rds) {
+		if (!(rds instanceof IResourceDescription.Event.Source)) {
+			return null;
+		}
+		IResourceDescription.Event.Source source = (IResourceDescription.Event.Source) rds;
+		ExportedNameIndex index = indexes.get(source);
+		if (index == null) {
+			index = new ExportedNameIndex();
+			index.populate(source, rds);
+			indexes.put(source, index);
+		}
+		return index;
+	}
+
+	/**
+	 * discard all indexes and stop listening for changes. The indexes are built again on next use.
+	 * Called when the resource description provider is replaced.
+	 */
+	public static synchronized void reset() {
+		for (Map.Entry<IResourceDescription.Event.Source, ExportedNameIndex> entry : indexes.entrySet()) {
+			entry.getKey().removeListener(entry.getValue());
+		}
+		indexes.clear();
+	}
+
+	/**
+	 * find the descriptions with the given qualified name whose EClass conforms to the given type
+	 * @param type expected EClass
+	 * @param name qualified name, compared ignoring case
+	 * @return list of matching descriptions, empty if none
+	 */
+	public synchronized List<IEObjectDescription> find(EClass type, String name) {
+		List<IEObjectDescription> candidates = byName.get(name.toLowerCase());
+		if (candidates == null) {
+			return Collections.emptyList();
+		}
+		List<IEObjectDescription> result = new ArrayList<IEObjectDescription>(candidates.size());
+		for (IEObjectDescription eod : candidates) {
+			if (type.isSuperTypeOf(eod.getEClass())) {
+				result.add(eod);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * update the index for the resources that were changed
+	 */
+	public synchronized void descriptionsChanged(IResourceDescription.Event event) {
+		for (IResourceDescription.Delta delta : event.getDeltas()) {
+			removeResource(delta.getUri());
+			if (delta.getNew() != null) {
+				addResource(delta.getUri(), delta.getNew());
+			}
+		}
+	}
+
+	private synchronized void populate(IResourceDescription.Event.Source source, IResourceDescriptions rds) {
+		// listen first so that no change gets lost while we populate the index
+		source.addListener(this);
+		for (IResourceDescription rd : rds.getAllResourceDescriptions()) {
+			addResource(rd.getURI(), rd);
+		}
+	}
+
+	private void addResource(URI uri, IResourceDescription rd) {
+		List<IEObjectDescription> exported = new ArrayList<IEObjectDescription>();
+		for (IEObjectDescription eod : rd.getExportedObjects()) {
+			exported.add(eod);
+			String key = eod.getName().toString().toLowerCase();
+			List<IEObjectDescription> named = byName.get(key);
+			if (named == null) {
+				named = new ArrayList<IEObjectDescription>(1);
+				byName.put(key, named);
+			}
+			named.add(eod);
+		}
+		byResource.put(uri, exported);
+	}
+
+	private void removeResource(URI uri) {
+		List<IEObjectDescription> exported = byResource.remove(uri);
+		if (exported == null) {
+			return;
+		}
+		for (IEObjectDescription eod : exported) {
+			String key = eod.getName().toString().toLowerCase();
+			List<IEObjectDescription> named = byName.get(key);
+			if (named != null) {
+				named.remove(eod);
+				if (named.isEmpty()) {
+					byName.remove(key);
+				}
+			}
+		}
+	}
+}
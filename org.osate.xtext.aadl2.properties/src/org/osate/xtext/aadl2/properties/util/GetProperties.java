@@ -266,6 +266,13 @@ public class GetProperties {
 			return PropertyUtils.getScaledNumberValue(ne, MIPSCapacity, MIPS, defaultValue);
 	}
 
+	/**
+	 * Get the MIPS capacities of the given elements in MIPS.
+	 */
+	public static double[] getMIPSCapacityInMIPS(final List<? extends NamedElement> nes, final double defaultValue) {
+		return getScaledNumberValues(nes, SEI._NAME, SEI.MIPS_CAPACITY, SEI.MIPS_LITERAL, defaultValue);
+	}
+
 	public static double getMIPSBudgetInMIPS(final NamedElement ne, final double defaultValue) {
 			Property MIPSBudget = lookupPropertyDefinition(ne,SEI._NAME, SEI.MIPS_BUDGET);
 			UnitLiteral MIPS = findUnitLiteral(MIPSBudget, SEI.MIPS_LITERAL);
@@ -634,6 +641,22 @@ public class GetProperties {
 		return PropertyUtils.getScaledNumberValue(ne, period, microSecond, 0.0);
 	}
 
+	/**
+	 * Get the periods of the given elements in milliseconds, 0.0 for elements
+	 * without a period.
+	 */
+	public static double[] getPeriodinMS(final List<? extends NamedElement> nes) {
+		return getScaledNumberValues(nes, TimingProperties._NAME, TimingProperties.PERIOD, AadlProject.MS_LITERAL, 0.0);
+	}
+
+	/**
+	 * Get the periods of the given elements in microseconds, 0.0 for elements
+	 * without a period.
+	 */
+	public static double[] getPeriodinMicroSec(final List<? extends NamedElement> nes) {
+		return getScaledNumberValues(nes, TimingProperties._NAME, TimingProperties.PERIOD, AadlProject.US_LITERAL, 0.0);
+	}
+
 	public static double getActualLatencyinMS(final NamedElement ne) {
 		Property actualLatency = lookupPropertyDefinition(ne,CommunicationProperties._NAME, CommunicationProperties.ACTUAL_LATENCY);
 		UnitLiteral milliSecond = findUnitLiteral(actualLatency, AadlProject.MS_LITERAL);
@@ -673,6 +696,15 @@ public class GetProperties {
 		return PropertyUtils.getScaledNumberValue(ne, deadline, microSecond, 0.0);
 	}
 
+	/**
+	 * Get the deadlines of the given elements in milliseconds, 0.0 for
+	 * elements without a deadline.
+	 */
+	public static double[] getDeadlineinMilliSec(final List<? extends NamedElement> nes) {
+		return getScaledNumberValues(nes, TimingProperties._NAME, TimingProperties.DEADLINE, AadlProject.MS_LITERAL,
+				0.0);
+	}
+
 	public static double getDeadlineinNS(final NamedElement ne) {
 		Property deadline = lookupPropertyDefinition(ne,TimingProperties._NAME, TimingProperties.DEADLINE);
 		UnitLiteral nanoSecond = findUnitLiteral(deadline, AadlProject.NS_LITERAL);
@@ -792,6 +824,49 @@ public class GetProperties {
 		return origvalue * factor;
 	}
 
+	/**
+	 * Convert an array of values from one unit to another. The conversion
+	 * factor is computed once.
+	 * 
+	 * @return a new array with the converted values
+	 */
+	public static double[] convertToScale(final double[] origvalues, final UnitLiteral original,
+			final UnitLiteral target) {
+		final double factor = original.getAbsoluteFactor(target);
+		final double[] result = new double[origvalues.length];
+		for (int i = 0; i < origvalues.length; i++) {
+			result[i] = origvalues[i] * factor;
+		}
+		return result;
+	}
+
+	/**
+	 * Get a numeric property value scaled to a unit for each of the given
+	 * elements. The property definition and the unit literal are looked up
+	 * once for all elements, using the first element as context.
+	 * 
+	 * @param nes the property holders
+	 * @param ps the name of the property set
+	 * @param name the name of the property
+	 * @param unit the name of the unit literal to scale to
+	 * @param defaultValue the value for elements without a property value
+	 * @return the scaled values in the order of the elements
+	 */
+	public static double[] getScaledNumberValues(final List<? extends NamedElement> nes, final String ps,
+			final String name, final String unit, final double defaultValue) {
+		final double[] result = new double[nes.size()];
+		if (result.length == 0) {
+			return result;
+		}
+		final Property pd = lookupPropertyDefinition(nes.get(0), ps, name);
+		final UnitLiteral unitLiteral = findUnitLiteral(pd, unit);
+		int i = 0;
+		for (NamedElement ne : nes) {
+			result[i++] = PropertyUtils.getScaledNumberValue(ne, pd, unitLiteral, defaultValue);
+		}
+		return result;
+	}
+
 	/**
 	 * Determines the target unit from the original unit to scale the value to a
 	 * higher unit The goal is
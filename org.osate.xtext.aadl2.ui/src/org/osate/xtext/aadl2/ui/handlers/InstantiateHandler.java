@@ -160,13 +160,7 @@ public class InstantiateHandler extends AbstractHandler {
 												SystemInstance sinst = InstantiateModel.buildInstanceModelFile(si);
 												if (sinst == null)
 												{
-													String message;
-													message = "Error when instantiating the model";
-													if (InstantiateModel.getErrorMessage() != null)
-													{
-														message = message + " - reason: " + InstantiateModel.getErrorMessage() + "\nRefer to the help content and FAQ for more information";
-													}
-													Dialog.showError("Model Instantiate", message);
+													Dialog.showError("Model Instantiate", "Error when instantiating the model");
 												}
 											}
 											catch (UnsupportedOperationException uoe)
@@ -176,7 +170,13 @@ public class InstantiateHandler extends AbstractHandler {
 											catch (Exception other)
 											{
 												other.printStackTrace();
-												Dialog.showError("Model Instantiate", "Error when instantiating the model");
+												String message;
+												message = "Error when instantiating the model";
+												if (other.getMessage() != null)
+												{
+													message = message + " - reason: " + other.getMessage() + "\nRefer to the help content and FAQ for more information";
+												}
+												Dialog.showError("Model Instantiate", message);
 											}
 
 										} 